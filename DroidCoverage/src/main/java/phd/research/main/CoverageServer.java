@@ -0,0 +1,21 @@
+package phd.research.main;
+
+/**
+ * {@link DroidGraphServer} that also replays coverage logs. Accepts the 'graph' command of DroidGraph2.0 and the
+ * 'coverage' command, which takes the options of {@link Main}.
+ *
+ * @author Jordan Doyle
+ */
+
+public class CoverageServer {
+
+    public static void main(String[] args) {
+        DroidGraphServer server = new DroidGraphServer(DroidGraphServer.parsePort(args));
+        server.register("coverage", Main::run);
+
+        int exitCode = DroidGraphServer.start(server);
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+}
@@ -26,6 +26,13 @@ public class Main {
     private static final Logger LOGGER = LoggerFactory.getLogger(Main.class);
 
     public static void main(String[] args) {
+        int exitCode = run(args);
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+
+    public static int run(String[] args) {
         Options options = new Options();
         options.addOption(Option.builder("a").longOpt("apk-file").required().hasArg().numberOfArgs(1).argName("FILE")
                 .desc("The APK file to analyse.").build());
@@ -36,9 +43,11 @@ public class Main {
         options.addOption(Option.builder("p").longOpt("android-platform").hasArg().numberOfArgs(1).argName("DIRECTORY")
                 .desc("The Android SDK platform directory.").build());
         options.addOption(Option.builder("f").longOpt("output-format").hasArg().numberOfArgs(1).argName("FORMAT")
-                .desc("The graph output format ('DOT','JSON', GML, 'ALL').").build());
+                .desc("The graph output format ('DOT', 'JSON', 'GML', 'BINARY', 'ALL').").build());
         options.addOption(Option.builder("o").longOpt("output-directory").hasArg().numberOfArgs(1).argName("DIRECTORY")
                 .desc("The directory for storing output files.").build());
+        options.addOption(Option.builder("k").longOpt("cache-directory").hasArg().numberOfArgs(1).argName("DIRECTORY")
+                .desc("The directory for caching analysis results between runs.").build());
         options.addOption(Option.builder("z").longOpt("serialized-callbacks").hasArg().numberOfArgs(1).argName("FILE")
                 .desc("The FlowDroid serialized callbacks file.").build());
         options.addOption(Option.builder("c").longOpt("clean-directory").desc("Clean output directory.").build());
@@ -60,13 +69,13 @@ public class Main {
             final PrintWriter writer = new PrintWriter(System.out);
             formatter.printUsage(writer, 80, "Droid Coverage", options);
             writer.flush();
-            System.exit(10);
+            return 10;
         }
 
         if (cmd.hasOption("h")) {
             HelpFormatter formatter = new HelpFormatter();
             formatter.printHelp("Droid Coverage", options);
-            System.exit(0);
+            return 0;
         }
 
         GraphSettings settings = GraphSettings.v();
@@ -75,7 +84,7 @@ public class Main {
             settings.setCallGraphFile(new File(cmd.getOptionValue("i")));
         } catch (IOException e) {
             LOGGER.error("Files missing: " + e.getMessage());
-            System.exit(20);
+            return 20;
         }
 
         if (cmd.hasOption("p")) {
@@ -83,7 +92,7 @@ public class Main {
                 settings.setPlatformDirectory(new File(cmd.getOptionValue("p")));
             } catch (IOException e) {
                 LOGGER.error("Files missing: " + e.getMessage());
-                System.exit(30);
+                return 30;
             }
         }
 
@@ -96,7 +105,7 @@ public class Main {
                 settings.setOutputDirectory(new File(cmd.getOptionValue("o")));
             } catch (IOException e) {
                 LOGGER.error("Files missing: " + e.getMessage());
-                System.exit(40);
+                return 40;
             }
         }
 
@@ -107,7 +116,16 @@ public class Main {
             } else {
                 LOGGER.error("Files missing: FlowDroid serialized callbacks file does not exist or is not a file (" +
                         serializedCallbacks + ").");
-                System.exit(60);
+                return 60;
+            }
+        }
+
+        if (cmd.hasOption("k")) {
+            try {
+                settings.setCacheDirectory(new File(cmd.getOptionValue("k")));
+            } catch (IOException e) {
+                LOGGER.error("Files missing: " + e.getMessage());
+                return 110;
             }
         }
 
@@ -116,7 +134,7 @@ public class Main {
                 settings.setImportControlFlowGraph(new File(cmd.getOptionValue("l")));
             } catch (IOException e) {
                 LOGGER.error("Files missing: " + e.getMessage());
-                System.exit(70);
+                return 70;
             }
         }
 
@@ -124,7 +142,7 @@ public class Main {
             settings.validate();
         } catch (IOException e) {
             LOGGER.error("Files missing: " + e.getMessage());
-            System.exit(50);
+            return 50;
         }
 
         if (cmd.hasOption("c")) {
@@ -141,13 +159,13 @@ public class Main {
             traversalDirectory = new File(cmd.getOptionValue("t"));
             if (!traversalDirectory.isDirectory()) {
                 LOGGER.error("Provided directory (" + traversalDirectory.getAbsolutePath() + ") does not exist.");
-                System.exit(80);
+                return 80;
             }
 
             traversalLog = new File(traversalDirectory + File.separator + "traversal.log");
             if (!traversalLog.isFile()) {
                 LOGGER.error("Test directory (" + traversalDirectory.getAbsolutePath() + ") does not contain log.");
-                System.exit(90);
+                return 90;
             }
         }
 
@@ -156,17 +174,17 @@ public class Main {
             monkeyAllDirectory = new File(cmd.getOptionValue("ma"));
             if (!monkeyAllDirectory.isDirectory()) {
                 LOGGER.error("Provided directory (" + monkeyAllDirectory.getAbsolutePath() + ") does not exist.");
-                System.exit(80);
+                return 80;
             }
 
             try {
                 if (!Coverage.verifyTestsExist(monkeyAllDirectory)) {
                     LOGGER.error("Some of the Monkey test files are missing in " + monkeyAllDirectory);
-                    System.exit(90);
+                    return 90;
                 }
             } catch (IOException e) {
                 LOGGER.error("Problem verifying Monkey test files exist. " + e.getMessage());
-                System.exit(100);
+                return 100;
             }
         }
 
@@ -176,17 +194,17 @@ public class Main {
             monkeyClickDirectory = new File(cmd.getOptionValue("mc"));
             if (!monkeyClickDirectory.isDirectory()) {
                 LOGGER.error("Provided directory (" + monkeyClickDirectory.getAbsolutePath() + ") does not exist.");
-                System.exit(80);
+                return 80;
             }
 
             try {
                 if (!Coverage.verifyTestsExist(monkeyClickDirectory)) {
                     LOGGER.error("Some of the Monkey test files are missing in " + monkeyClickDirectory);
-                    System.exit(90);
+                    return 90;
                 }
             } catch (IOException e) {
                 LOGGER.error("Problem verifying Monkey test files exist. " + e.getMessage());
-                System.exit(100);
+                return 100;
             }
         }
 
@@ -289,6 +307,7 @@ public class Main {
 
         LOGGER.info("End time: " + timer.end());
         LOGGER.info("Execution time: " + timer.secondsDuration() + " second(s).");
+        return 0;
     }
 
     private static void createMonkeyLogs(File monkeyDirectory) {
@@ -89,9 +89,7 @@ public class LogHandler {
         if (logDataGroup != null) {
             LOGGER.debug("Interaction/Method: " + logMessage);
 
-            Vertex v = DroidGraph.getMethodVertex(logDataGroup.getRight().getSignature(),
-                    droidGraph.getControlFlowGraph().vertexSet()
-                                                 );
+            Vertex v = droidGraph.getMethodVertex(logDataGroup.getRight().getSignature());
             if (v == null) {
                 LOGGER.error("Failed to visit method: " + logDataGroup.getRight());
             } else {
@@ -100,9 +98,7 @@ public class LogHandler {
 
             if (logDataGroup.getLeft() != -1) {
                 Vertex viewVertex =
-                        DroidGraph.getControlVertex(logDataGroup.getMiddle().getName(), logDataGroup.getLeft(),
-                                droidGraph.getControlFlowGraph().vertexSet()
-                                                   );
+                        droidGraph.getControlVertex(logDataGroup.getMiddle().getName(), logDataGroup.getLeft());
                 if (viewVertex == null) {
                     LOGGER.warn("Failed to visit view vertex: " + logDataGroup.getLeft());
                 } else {
@@ -118,9 +114,7 @@ public class LogHandler {
         if (logDataGroup != null) {
             LOGGER.debug("Interaction/Method: " + logMessage);
 
-            Vertex methodVertex = DroidGraph.getMethodVertex(logDataGroup.getRight().getSignature(),
-                    droidGraph.getControlFlowGraph().vertexSet()
-                                                            );
+            Vertex methodVertex = droidGraph.getMethodVertex(logDataGroup.getRight().getSignature());
             if (methodVertex == null) {
                 LOGGER.error("Failed to visit method vertex: " + logDataGroup.getRight());
                 LOGGER.info("Adding method vertex with signature: " + logDataGroup.getRight());
@@ -131,9 +125,7 @@ public class LogHandler {
 
             if (logDataGroup.getLeft() != -1) {
                 Vertex controlVertex =
-                        DroidGraph.getControlVertex(logDataGroup.getMiddle().getName(), logDataGroup.getLeft(),
-                                droidGraph.getControlFlowGraph().vertexSet()
-                                                   );
+                        droidGraph.getControlVertex(logDataGroup.getMiddle().getName(), logDataGroup.getLeft());
                 if (controlVertex == null) {
                     LOGGER.warn("Failed to visit control vertex: " + logDataGroup.getLeft());
                     LOGGER.info("Adding control vertex with Id: " + logDataGroup.getLeft());
@@ -152,9 +144,7 @@ public class LogHandler {
         if (logDataGroup != null) {
             LOGGER.debug("Interaction/Method: " + logMessage);
 
-            Vertex methodVertex = DroidGraph.getMethodVertex(logDataGroup.getRight().getSignature(),
-                    droidGraph.getControlFlowGraph().vertexSet()
-                                                            );
+            Vertex methodVertex = droidGraph.getMethodVertex(logDataGroup.getRight().getSignature());
             if (methodVertex == null) {
                 LOGGER.error("Failed to find method vertex: " + logDataGroup.getRight());
                 LOGGER.error("Failed to add edge to method vertex: " + logDataGroup.getRight());
@@ -168,9 +158,7 @@ public class LogHandler {
 
             if (logDataGroup.getLeft() != -1) {
                 Vertex controlVertex =
-                        DroidGraph.getControlVertex(logDataGroup.getMiddle().getName(), logDataGroup.getLeft(),
-                                droidGraph.getControlFlowGraph().vertexSet()
-                                                   );
+                        droidGraph.getControlVertex(logDataGroup.getMiddle().getName(), logDataGroup.getLeft());
                 if (controlVertex == null) {
                     LOGGER.warn("Failed to find control vertex: " + logDataGroup.getLeft());
                     LOGGER.error("Failed to add edge to listener vertex: " + logDataGroup.getLeft());
@@ -4,9 +4,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import phd.research.Timer;
 import phd.research.graph.Control;
+import phd.research.helper.BodyManager;
+import phd.research.helper.ConstantResolver;
 import phd.research.helper.MenuFileParser;
-import phd.research.singletons.FlowDroidAnalysis;
-import phd.research.singletons.GraphSettings;
+import phd.research.singletons.AnalysisContext;
 import phd.research.utility.Filter;
 import phd.research.utility.Writer;
 import soot.*;
@@ -18,6 +19,8 @@ import soot.util.MultiMap;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 /**
@@ -28,24 +31,51 @@ public class DroidControls {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DroidControls.class);
 
+    private final AnalysisContext context;
     private final Collection<Control> controls;
 
     public DroidControls() {
+        this.context = AnalysisContext.v();
         this.controls = this.processFlowDroidControls();
     }
 
+    public DroidControls(Collection<Control> controls) {
+        this.context = AnalysisContext.v();
+        this.controls = Objects.requireNonNull(controls);
+    }
+
     private static String getResourceName(String name) {
         int index = name.lastIndexOf("/");
         name = index != -1 ? name.replace(name.substring(0, index + 1), "") : name;
         return name.contains(".xml") ? name.replace(".xml", "") : name;
     }
 
-    private static Collection<SootMethod> findCallbackMethods(String methodName) {
-        // Warning: if name is not specific, false positives may be returned. e.g. methodName = onClick()
-        Collection<SootMethod> methods = new ArrayList<>();
+    // Every valid method by name, in Scene order, so each listener lookup is a single map access.
+    private static Map<String, List<SootMethod>> indexMethodsByName() {
+        Map<String, List<SootMethod>> methodsByName = new HashMap<>();
         Scene.v().getClasses().forEach(clazz -> clazz.getMethods().stream().filter(Filter::isValidMethod)
-                .filter(method -> method.getName().equals(methodName)).forEach(methods::add));
-        return methods;
+                .forEach(method -> methodsByName.computeIfAbsent(method.getName(), name -> new ArrayList<>())
+                        .add(method)));
+        return methodsByName;
+    }
+
+    private static Collection<SootMethod> findCallbackMethods(Map<String, List<SootMethod>> methodsByName,
+            String methodName, SootClass layoutClass) {
+        // Warning: if name is not specific, false positives may be returned. e.g. methodName = onClick()
+        List<SootMethod> methods = methodsByName.getOrDefault(methodName, Collections.emptyList());
+        if (methods.size() < 2) {
+            return new ArrayList<>(methods);
+        }
+
+        // Android resolves an android:onClick handler on the layout's activity, so methods in its class hierarchy
+        // are preferred. Other matches are only returned if the hierarchy has none.
+        Set<SootClass> hierarchy = new HashSet<>();
+        for (SootClass clazz = layoutClass; clazz != null; clazz = clazz.getSuperclassUnsafe()) {
+            hierarchy.add(clazz);
+        }
+        List<SootMethod> scoped = methods.stream().filter(method -> hierarchy.contains(method.getDeclaringClass()))
+                .collect(Collectors.toList());
+        return new ArrayList<>(scoped.isEmpty() ? methods : scoped);
     }
 
     public Collection<Control> getControls() {
@@ -56,39 +86,45 @@ public class DroidControls {
         Timer timer = new Timer();
         LOGGER.info("Parsing app controls... (" + timer.start(true) + ")");
 
-        LayoutFileParser layoutParser = FlowDroidAnalysis.v().getLayoutFileParser();
+        LayoutFileParser layoutParser = this.context.getFlowDroidAnalysis().getLayoutFileParser();
+        Map<String, List<SootMethod>> methodsByName = DroidControls.indexMethodsByName();
+        Map<Integer, SootClass> layoutClasses = this.indexLayoutClasses();
         MultiMap<String, AndroidLayoutControl> layoutControls = layoutParser.getUserControls();
         Collection<Control> controls = new HashSet<>();
 
         try {
-            Writer.writeMultiMap(GraphSettings.v().getOutputDirectory(), "layout_controls.txt", layoutControls);
+            Writer.writeMultiMap(this.context.getSettings().getOutputDirectory(), "layout_controls.txt",
+                    layoutControls
+                                );
         } catch (IOException e) {
             LOGGER.error("Failed to output layout controls. " + e.getMessage());
         }
 
         for (String layoutFileName : layoutControls.keySet()) {
-            ARSCFileParser.AbstractResource layoutResource = FlowDroidAnalysis.v().getResources()
+            ARSCFileParser.AbstractResource layoutResource = this.context.getFlowDroidAnalysis().getResources()
                     .findResourceByName("layout", DroidControls.getResourceName(layoutFileName));
             if (Filter.isValidLayout(layoutResource.getResourceName())) {
                 try {
-                    controls.addAll(this.processResourceControls(layoutFileName, layoutResource, layoutControls));
+                    controls.addAll(this.processResourceControls(layoutFileName, layoutResource, layoutControls,
+                            methodsByName, layoutClasses
+                                                                ));
                 } catch (RuntimeException e) {
                     LOGGER.error(e.getMessage());
                 }
             }
         }
 
-        MenuFileParser menuParser = FlowDroidAnalysis.v().getMenuFileParser();
+        MenuFileParser menuParser = this.context.getFlowDroidAnalysis().getMenuFileParser();
         MultiMap<String, AndroidLayoutControl> menuControls = menuParser.getUserControls();
 
         try {
-            Writer.writeMultiMap(GraphSettings.v().getOutputDirectory(), "menu_controls.txt", menuControls);
+            Writer.writeMultiMap(this.context.getSettings().getOutputDirectory(), "menu_controls.txt", menuControls);
         } catch (IOException e) {
             LOGGER.error("Failed to output menu controls. " + e.getMessage());
         }
 
         for (String menuFileName : menuControls.keySet()) {
-            ARSCFileParser.AbstractResource menuResource = FlowDroidAnalysis.v().getResources()
+            ARSCFileParser.AbstractResource menuResource = this.context.getFlowDroidAnalysis().getResources()
                     .findResourceByName("menu", DroidControls.getResourceName(menuFileName));
             ARSCFileParser.AbstractResource layoutResource;
             try {
@@ -102,7 +138,9 @@ public class DroidControls {
             }
 
             try {
-                controls.addAll(this.processResourceControls(menuFileName, layoutResource, menuControls));
+                controls.addAll(this.processResourceControls(menuFileName, layoutResource, menuControls,
+                        methodsByName, layoutClasses
+                                                            ));
             } catch (RuntimeException e) {
                 LOGGER.error(e.getMessage());
             }
@@ -113,10 +151,15 @@ public class DroidControls {
     }
 
     private Collection<Control> processResourceControls(String fileName, ARSCFileParser.AbstractResource layoutResource,
-            MultiMap<String, AndroidLayoutControl> flowDroidControls) {
+            MultiMap<String, AndroidLayoutControl> flowDroidControls, Map<String, List<SootMethod>> methodsByName,
+            Map<Integer, SootClass> layoutClasses) {
 
         Collection<Control> controls = new HashSet<>();
-        SootClass layoutClass = this.findClassLinkedWithLayout(layoutResource);
+        SootClass layoutClass = layoutClasses.get(layoutResource.getResourceID());
+        if (layoutClass == null) {
+            throw new RuntimeException("Could not find class linked with layout resource " +
+                    layoutResource.getResourceID() + " (" + layoutResource.getResourceName() + ").");
+        }
 
         for (AndroidLayoutControl control : flowDroidControls.get(fileName)) {
             if (control.getID() == -1) {
@@ -137,7 +180,7 @@ public class DroidControls {
 
             Collection<SootMethod> listeners = new ArrayList<>();
             if (control.getClickListener() != null) {
-                listeners = DroidControls.findCallbackMethods(control.getClickListener());
+                listeners = DroidControls.findCallbackMethods(methodsByName, control.getClickListener(), layoutClass);
                 if (listeners.size() > 1) {
                     LOGGER.warn(String.format("Found multiple listeners with control id %s.", control.getID()));
                 }
@@ -163,7 +206,7 @@ public class DroidControls {
                 for (String attributeKey : control.getAdditionalAttributes().keySet()) {
                     if (attributeKey.equals("menu")) {
                         if ((int) control.getAdditionalAttributes().get(attributeKey) == id) {
-                            return FlowDroidAnalysis.v().getResources()
+                            return this.context.getFlowDroidAnalysis().getResources()
                                     .findResourceByName("layout", DroidControls.getResourceName(resourceFileName));
                         }
                     }
@@ -175,110 +218,92 @@ public class DroidControls {
     }
 
     private List<ARSCFileParser.AbstractResource> getResourcesWithId(int resourceId) {
-        ARSCFileParser.ResType resType = FlowDroidAnalysis.v().getResources().findResourceType(resourceId);
+        ARSCFileParser.ResType resType =
+                this.context.getFlowDroidAnalysis().getResources().findResourceType(resourceId);
         return resType != null ? resType.getAllResources(resourceId) : new ArrayList<>();
     }
 
-    private SootClass findClassLinkedWithLayout(ARSCFileParser.AbstractResource layout) {
-        for (SootClass clazz : Scene.v().getClasses()) {
-            if (Filter.isValidClass(clazz)) {
-                SootClass layoutClass = this.recursiveClassSearch(clazz, layout.getResourceID());
-                if (layoutClass != null) {
-                    return layoutClass;
-                }
+    // Layout id -> class linked with the layout. Every body is scanned once, in parallel, for the layout ids it uses.
+    // Bodies loaded for the scan are released straight away, only the ids are kept.
+    // A layout belongs to the first valid class (in Scene order) that uses its id itself or through a superclass, the
+    // nearest class in the hierarchy winning, which is the class a search over the valid classes would find first.
+    private Map<Integer, SootClass> indexLayoutClasses() {
+        Timer timer = new Timer();
+        LOGGER.info("Indexing classes linked with layouts... (" + timer.start(true) + ")");
+
+        List<SootClass> validClasses =
+                Scene.v().getClasses().stream().filter(Filter::isValidClass).collect(Collectors.toList());
+        Set<SootClass> scannedClasses = new LinkedHashSet<>();
+        for (SootClass clazz : validClasses) {
+            for (SootClass current = clazz; current != null && scannedClasses.add(current); ) {
+                current = current.getSuperclassUnsafe();
             }
         }
-        throw new RuntimeException("Could not find class linked with layout resource " + layout.getResourceID() + " (" +
-                layout.getResourceName() + ").");
-    }
 
-    private SootClass recursiveClassSearch(SootClass clazz, int id) {
-        for (SootMethod method : clazz.getMethods()) {
-            try {
-                method.retrieveActiveBody();
-            } catch (RuntimeException ignored) {
-                continue;
-            }
+        BodyManager bodies = this.context.getBodyManager();
+        ForkJoinPool pool = this.context.newForkJoinPool();
+        Map<SootClass, Set<Integer>> classLayoutIds;
+        try {
+            classLayoutIds = pool.submit(() -> new ArrayList<>(scannedClasses).parallelStream()
+                    .collect(Collectors.toConcurrentMap(clazz -> clazz,
+                            clazz -> DroidControls.findLayoutIds(clazz, bodies)))).get();
+        } catch (InterruptedException e) {
+            throw new RuntimeException("Failed to index classes linked with layouts: " + e.getMessage(), e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to index classes linked with layouts: " + e.getCause().getMessage(),
+                    e.getCause());
+        } finally {
+            pool.shutdown();
+        }
 
-            if (method.hasActiveBody() && this.searchMethodInvokeExprForId(method, id)) {
-                return clazz;
+        Map<Integer, SootClass> layoutClasses = new HashMap<>();
+        for (SootClass clazz : validClasses) {
+            for (SootClass current = clazz; current != null; current = current.getSuperclassUnsafe()) {
+                for (Integer id : classLayoutIds.getOrDefault(current, Collections.emptySet())) {
+                    layoutClasses.putIfAbsent(id, current);
+                }
             }
         }
 
-        if (clazz.hasSuperclass()) {
-            return this.recursiveClassSearch(clazz.getSuperclassUnsafe(), id);
-        }
-        return null;
+        LOGGER.info("(" + timer.end() + ") Indexing " + layoutClasses.size() + " layout(s) in " +
+                scannedClasses.size() + " classes took " + timer.secondsDuration() + " second(s).");
+        return layoutClasses;
     }
 
-    private boolean searchMethodInvokeExprForId(SootMethod method, int id) {
-        PatchingChain<Unit> units = method.getActiveBody().getUnits();
-        Map<Value, List<String>> variableDeclarations = new HashMap<>();
-        for (Iterator<Unit> iterator = units.snapshotIterator(); iterator.hasNext(); ) {
-            Unit unit = iterator.next();
-
-            final boolean[] searchStatus = {false};
-            unit.apply(new AbstractStmtSwitch<Stmt>() {
-                @Override
-                public void caseInvokeStmt(InvokeStmt stmt) {
-                    super.caseInvokeStmt(stmt);
-                    InvokeExpr expr = stmt.getInvokeExpr();
-                    if (expr.getMethod().getName().equals("setContentView") ||
-                            expr.getMethod().getName().equals("inflate")) {
-                        if (expr.getArgCount() > 0 && expr.getArg(0).toString().equals(String.valueOf(id))) {
-                            searchStatus[0] = true;
-                        }
-                    } else if (expr.getMethod().getName().equals("<init>") &&
-                            expr.getMethod().getDeclaringClass().getShortName().equals("RemoteViews")) {
-                        if (expr.getArgCount() > 0) {
-                            if (expr.getArg(1) instanceof Constant &&
-                                    expr.getArg(1).toString().equals(String.valueOf(id))) {
-                                searchStatus[0] = true;
-                            } else if (variableDeclarations.containsKey(expr.getArg(1))) {
-                                List<String> assignmentValues = variableDeclarations.get(expr.getArg(1));
-                                for (String value : assignmentValues) {
-                                    if (value.equals(String.valueOf(id))) {
-                                        searchStatus[0] = true;
-                                        break;
-                                    }
-                                }
-                            } else if (expr.getArg(1).toString().equals(String.valueOf(id))) {
-                                searchStatus[0] = true;
-                            }
-                        }
-                    }
-                }
+    private static Set<Integer> findLayoutIds(SootClass clazz, BodyManager bodies) {
+        Set<Integer> ids = new HashSet<>();
+        for (SootMethod method : new ArrayList<>(clazz.getMethods())) {
+            ids.addAll(bodies.withBody(method, DroidControls::findLayoutIds, Collections.emptySet()));
+        }
+        return ids;
+    }
 
-                @Override
-                public void caseAssignStmt(AssignStmt stmt) {
-                    super.caseAssignStmt(stmt);
-                    if (stmt.containsInvokeExpr()) {
-                        InvokeExpr expr = stmt.getInvokeExpr();
-                        if (expr.getMethod().getName().equals("setContentView") ||
-                                expr.getMethod().getName().equals("inflate")) {
-                            if (expr.getArgCount() > 0 && expr.getArg(0).toString().equals(String.valueOf(id))) {
-                                searchStatus[0] = true;
-                            }
-                        }
-                    }
+    // The layout ids that can reach setContentView, inflate or the RemoteViews constructor. Ids held in locals are
+    // resolved by constant propagation, which only runs for bodies that have such a call.
+    private static Set<Integer> findLayoutIds(Body body) {
+        Set<Integer> ids = new HashSet<>();
+        ConstantResolver resolver = new ConstantResolver(body);
+        for (Unit unit : body.getUnits()) {
+            Stmt stmt = (Stmt) unit;
+            if (!stmt.containsInvokeExpr()) {
+                continue;
+            }
 
-                    if (stmt.getRightOpBox().getValue() instanceof Constant) {
-                        if (variableDeclarations.containsKey(stmt.getLeftOp())) {
-                            List<String> assignmentValues = variableDeclarations.get(stmt.getLeftOp());
-                            assignmentValues.add(stmt.getRightOpBox().getValue().toString());
-                            variableDeclarations.put(stmt.getLeftOp(), assignmentValues);
-                        } else {
-                            variableDeclarations.put(stmt.getLeftOp(), new ArrayList<>(
-                                    Collections.singletonList(stmt.getRightOpBox().getValue().toString())));
-                        }
-                    }
+            // Matched on the method ref, resolving it (getMethod()) can add phantom methods to classes other workers
+            // are reading.
+            InvokeExpr expr = stmt.getInvokeExpr();
+            SootMethodRef methodRef = expr.getMethodRef();
+            String methodName = methodRef.getName();
+            if (methodName.equals("setContentView") || methodName.equals("inflate")) {
+                if (expr.getArgCount() > 0) {
+                    ids.addAll(resolver.resolve(expr.getArg(0), stmt));
                 }
-            });
-
-            if (searchStatus[0]) {
-                return true;
+            } else if (stmt instanceof InvokeStmt && methodName.equals("<init>") &&
+                    methodRef.getDeclaringClass().getShortName().equals("RemoteViews") &&
+                    expr.getArgCount() > 1) {
+                ids.addAll(resolver.resolve(expr.getArg(1), stmt));
             }
         }
-        return false;
+        return ids;
     }
-}
\ No newline at end of file
+}
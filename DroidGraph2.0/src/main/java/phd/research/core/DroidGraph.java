@@ -3,24 +3,37 @@ package phd.research.core;
 import org.jetbrains.annotations.NotNull;
 import org.jgrapht.Graph;
 import org.jgrapht.Graphs;
+import org.jgrapht.ListenableGraph;
 import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DefaultListenableGraph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import phd.research.Pair;
 import phd.research.StringTable;
 import phd.research.Timer;
 import phd.research.enums.Type;
+import phd.research.graph.BodyGraph;
+import phd.research.graph.ClassificationTable;
 import phd.research.graph.Classifier;
 import phd.research.graph.Composition;
 import phd.research.graph.Control;
-import phd.research.graph.UnitGraph;
+import phd.research.graph.GraphVerifier;
+import phd.research.graph.MethodSubGraph;
+import phd.research.graph.Reachability;
+import phd.research.graph.SignatureTable;
+import phd.research.graph.VerificationReport;
+import phd.research.graph.VertexIndex;
+import phd.research.helper.BodyManager;
+import phd.research.singletons.AnalysisContext;
 import phd.research.singletons.FlowDroidAnalysis;
 import phd.research.singletons.GraphSettings;
+import phd.research.utility.AnalysisCache;
 import phd.research.utility.Filter;
 import phd.research.utility.Importer;
 import phd.research.utility.Writer;
 import phd.research.vertices.*;
+import soot.Body;
 import soot.Scene;
 import soot.SootClass;
 import soot.SootMethod;
@@ -29,8 +42,10 @@ import soot.jimple.toolkits.ide.icfg.JimpleBasedInterproceduralCFG;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 /**
@@ -41,18 +56,52 @@ public class DroidGraph {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DroidGraph.class);
 
+    private static final int UNIT_GRAPH_BATCH_SIZE = 512;
+
+    @NotNull
+    private final AnalysisContext context;
+    @NotNull
+    private final ListenableGraph<Vertex, DefaultEdge> controlFlowGraph;
     @NotNull
-    private final Graph<Vertex, DefaultEdge> controlFlowGraph;
+    private final VertexIndex vertexIndex;
 
     private DroidControls droidControls;
     private Graph<Vertex, DefaultEdge> callGraph;
+    private VerificationReport verificationReport;
+    private List<String> prunedMethods;
 
     public DroidGraph() {
-        if (GraphSettings.v().isImportControlFlowGraph()) {
-            this.controlFlowGraph = Importer.importDroidGraph(GraphSettings.v().getContolFlowGraphFile());
+        this.context = AnalysisContext.v();
+        GraphSettings settings = this.context.getSettings();
+        AnalysisCache cache = null;
+        Graph<Vertex, DefaultEdge> cachedGraph = null;
+        if (!settings.isImportControlFlowGraph() && settings.isCacheAnalysis()) {
+            cache = AnalysisCache.forSettings(settings);
+            cachedGraph = cache.loadControlFlowGraph();
+        }
+
+        if (settings.isImportControlFlowGraph()) {
+            this.controlFlowGraph = new DefaultListenableGraph<>(
+                    Importer.importDroidGraph(settings.getContolFlowGraphFile()));
+            this.vertexIndex = VertexIndex.attach(this.controlFlowGraph);
+        } else if (cachedGraph != null) {
+            this.controlFlowGraph = new DefaultListenableGraph<>(cachedGraph);
+            this.vertexIndex = VertexIndex.attach(this.controlFlowGraph);
+            this.loadCachedAnalysis(cache);
+            LOGGER.info("Control flow graph loaded from the analysis cache, verification skipped (the graph was " +
+                    "verified when it was generated).");
         } else {
-            this.controlFlowGraph = this.generateGraph();
-            verifyControlFlowGraphContents();
+            this.controlFlowGraph = new DefaultListenableGraph<>(new DefaultDirectedGraph<>(DefaultEdge.class));
+            this.vertexIndex = VertexIndex.attach(this.controlFlowGraph);
+            this.generateGraph();
+            this.verificationReport = this.verifyControlFlowGraphContents();
+            if (cache != null) {
+                this.storeCachedAnalysis(cache);
+            }
+        }
+
+        if (cache != null) {
+            LOGGER.info(cache.getSummary());
         }
     }
 
@@ -76,8 +125,66 @@ public class DroidGraph {
     }
 
     public static Vertex getMethodVertex(String methodSignature, Set<Vertex> vertices) {
-        return vertices.stream().filter(vertex -> vertex instanceof MethodVertex &&
-                ((MethodVertex) vertex).getMethodSignature().equals(methodSignature)).findFirst().orElse(null);
+        // The vertices hold signature ids of this thread's context, so the signature is looked up once.
+        int signatureId = SignatureTable.v().getId(methodSignature);
+        return signatureId == -1 ? null : vertices.stream().filter(vertex -> vertex instanceof MethodVertex)
+                .map(vertex -> (MethodVertex) vertex).filter(vertex -> vertex.getSignatureId() == signatureId)
+                .findFirst().orElse(null);
+    }
+
+    public Vertex getControlVertex(String activity, String controlName) {
+        return this.vertexIndex.getControlVertex(activity, controlName);
+    }
+
+    public Vertex getControlVertex(String activity, int controlId) {
+        return this.vertexIndex.getControlVertex(activity, controlId);
+    }
+
+    /**
+     * @return the vertex of the unit or, when the graph is built at basic block granularity, of the block holding it.
+     */
+    public Vertex getUnitVertex(String methodSignature, Unit unit) {
+        Vertex vertex = this.vertexIndex.getUnitVertex(methodSignature, unit.toString());
+        return vertex != null ? vertex : this.vertexIndex.getBlockVertex(methodSignature, unit.toString());
+    }
+
+    public Vertex getMethodVertex(String methodSignature) {
+        return this.vertexIndex.getMethodVertex(methodSignature);
+    }
+
+    /**
+     * @return the table the signatures of this graph's method and unit vertices are interned in.
+     */
+    public SignatureTable getSignatureTable() {
+        return this.context.getSignatureTable();
+    }
+
+    // Everything the cache holds is loaded up front, so that FlowDroid only runs if an artifact is missing.
+    private void loadCachedAnalysis(AnalysisCache cache) {
+        File callbacksFile = cache.loadCallbacksFile();
+        if (callbacksFile != null && !this.context.getSettings().getFlowDroidCallbacksFile().isFile()) {
+            try {
+                Files.copy(callbacksFile.toPath(), this.context.getSettings().getFlowDroidCallbacksFile().toPath());
+            } catch (IOException e) {
+                LOGGER.error("Failed to copy cached FlowDroid callbacks file: " + e.getMessage());
+            }
+        }
+
+        Collection<Control> controls = cache.loadControls();
+        if (controls != null) {
+            this.droidControls = new DroidControls(controls);
+        }
+        this.callGraph = cache.loadCallGraph();
+    }
+
+    private void storeCachedAnalysis(AnalysisCache cache) {
+        try {
+            cache.store(this.context.getSettings().getFlowDroidCallbacksFile(), this.getDroidControls().getControls(),
+                    this.getCallGraph(), this.getControlFlowGraph()
+                       );
+        } catch (IOException e) {
+            LOGGER.error("Failed to store analysis in cache: " + e.getMessage());
+        }
     }
 
     public DroidControls getDroidControls() {
@@ -100,6 +207,24 @@ public class DroidGraph {
         return this.controlFlowGraph;
     }
 
+    /**
+     * @return the report of the checks run after the graph was generated, or null if the graph was imported or
+     * loaded from the analysis cache. Cached graphs were verified when they were generated and stored, the report of
+     * that run is in its log.
+     */
+    public VerificationReport getVerificationReport() {
+        return this.verificationReport;
+    }
+
+    /**
+     * @return the signatures of the methods whose unit graphs were pruned as unreachable from the app's entry points,
+     * empty unless the graph was generated with pruning.
+     */
+    @NotNull
+    public List<String> getPrunedMethods() {
+        return this.prunedMethods != null ? this.prunedMethods : Collections.emptyList();
+    }
+
     @SuppressWarnings("unused")
     public void resetVisits() {
         this.getControlFlowGraph().vertexSet().forEach(vertex -> {
@@ -141,27 +266,13 @@ public class DroidGraph {
 
     @SuppressWarnings("unused")
     public Pair<Float, Float> calculateCoverage() {
-        float interfaceCoverage, interfaceTotal, methodCoverage, methodTotal;
-        interfaceCoverage = interfaceTotal = methodCoverage = methodTotal = 0;
-
-        for (Vertex vertex : this.getControlFlowGraph().vertexSet()) {
-            switch (vertex.getType()) {
-                case CONTROL:
-                    interfaceTotal += 1;
-                    if (vertex.hasVisit()) {
-                        interfaceCoverage += 1;
-                    }
-                    break;
-                case METHOD:
-                case LISTENER:
-                case LIFECYCLE:
-                    methodTotal += 1;
-                    if (vertex.hasVisit()) {
-                        methodCoverage += 1;
-                    }
-                    break;
-            }
-        }
+        // The index follows the graph as it changes, so coverage neither walks the unit vertices nor builds a snapshot.
+        float interfaceCoverage = this.vertexIndex.countVisited(Type.CONTROL);
+        float interfaceTotal = this.vertexIndex.countVertices(Type.CONTROL);
+        float methodCoverage = this.vertexIndex.countVisited(Type.METHOD) +
+                this.vertexIndex.countVisited(Type.LISTENER) + this.vertexIndex.countVisited(Type.LIFECYCLE);
+        float methodTotal = this.vertexIndex.countVertices(Type.METHOD) +
+                this.vertexIndex.countVertices(Type.LISTENER) + this.vertexIndex.countVertices(Type.LIFECYCLE);
 
         return new Pair<>((interfaceCoverage / interfaceTotal) * 100, (methodCoverage / methodTotal) * 100);
     }
@@ -169,7 +280,7 @@ public class DroidGraph {
     @SuppressWarnings("unused")     // Used in DroidDynaSearch.
     public void outputVertexVisitStatus() throws IOException {
         this.outputVertexVisitStatus(
-                new File(GraphSettings.v().getOutputDirectory() + File.separator + "vertex_visit_status.txt"));
+                new File(this.context.getSettings().getOutputDirectory() + File.separator + "vertex_visit_status.txt"));
     }
 
     public void outputVertexVisitStatus(File outputFile) throws IOException {
@@ -203,20 +314,20 @@ public class DroidGraph {
     }
 
     public void outputCGDetails() throws IOException {
-        Writer.writeString(GraphSettings.v().getOutputDirectory(), "call_graph_composition.txt",
+        Writer.writeString(this.context.getSettings().getOutputDirectory(), "call_graph_composition.txt",
                 new Composition(this.getCallGraph()).toTableString()
                           );
     }
 
     public void outputCFGDetails() throws IOException {
-        Writer.writeString(GraphSettings.v().getOutputDirectory(), "control_flow_graph_composition.txt",
+        Writer.writeString(this.context.getSettings().getOutputDirectory(), "control_flow_graph_composition.txt",
                 new Composition(this.getControlFlowGraph()).toTableString()
                           );
     }
 
     public void writeFlowDroidAnalysisToFile() throws IOException {
-        if (!FlowDroidAnalysis.v().isFlowDroidExecuted()) {
-            FlowDroidAnalysis.v().runFlowDroid();
+        if (!this.context.getFlowDroidAnalysis().isFlowDroidExecuted()) {
+            this.context.getFlowDroidAnalysis().runFlowDroid();
         }
 
         Collection<SootClass> filteredClasses = new HashSet<>();
@@ -224,7 +335,7 @@ public class DroidGraph {
                 new HashSet<>(), lifecycleCallbacks = new HashSet<>(), listenerCallbacks = new HashSet<>(),
                 possibleCallbacks = new HashSet<>(), otherCallback = new HashSet<>(), ignoredMethods = new HashSet<>();
 
-        Classifier classifier = new Classifier();
+        ClassificationTable classificationTable = this.context.getClassificationTable();
 
         for (SootClass clazz : Scene.v().getClasses()) {
             allMethods.addAll(clazz.getMethods());
@@ -237,7 +348,7 @@ public class DroidGraph {
                     if (Filter.isValidMethod(method)) {
                         filteredMethods.add(method);
 
-                        switch (classifier.getMethodType(method)) {
+                        switch (classificationTable.getMethodType(method)) {
                             case DUMMY:
                                 ignoredMethods.add(method);
                                 break;
@@ -245,7 +356,7 @@ public class DroidGraph {
                                 lifecycleCallbacks.add(method);
                                 break;
                             case LISTENER:
-                                if (classifier.isListenerMethod(method)) {
+                                if (classificationTable.isListenerMethod(method)) {
                                     listenerCallbacks.add(method);
                                 } else {
                                     possibleCallbacks.add(method);
@@ -264,63 +375,79 @@ public class DroidGraph {
             }
         }
 
-        Writer.writeCollection(GraphSettings.v().getOutputDirectory(), "all_classes.txt", Scene.v().getClasses());
-        Writer.writeCollection(GraphSettings.v().getOutputDirectory(), "filtered_classes.txt", filteredClasses);
-        Writer.writeCollection(GraphSettings.v().getOutputDirectory(), "entry_point_classes.txt",
-                FlowDroidAnalysis.v().getEntryPointClasses()
+        File outputDirectory = this.context.getSettings().getOutputDirectory();
+        Writer.writeCollection(outputDirectory, "all_classes.txt", Scene.v().getClasses());
+        Writer.writeCollection(outputDirectory, "filtered_classes.txt", filteredClasses);
+        Writer.writeCollection(outputDirectory, "entry_point_classes.txt",
+                this.context.getFlowDroidAnalysis().getEntryPointClasses()
                               );
 
-        Writer.writeCollection(GraphSettings.v().getOutputDirectory(), "all_methods.txt", allMethods);
-        Writer.writeCollection(GraphSettings.v().getOutputDirectory(), "filtered_methods.txt", filteredMethods);
-        Writer.writeCollection(GraphSettings.v().getOutputDirectory(), "standard_methods.txt", standardMethods);
-        Writer.writeCollection(GraphSettings.v().getOutputDirectory(), "lifecycle_methods.txt", lifecycleCallbacks);
-        Writer.writeCollection(GraphSettings.v().getOutputDirectory(), "listener_methods.txt", listenerCallbacks);
-        Writer.writeCollection(GraphSettings.v().getOutputDirectory(), "possible_callbacks.txt", possibleCallbacks);
-        Writer.writeCollection(GraphSettings.v().getOutputDirectory(), "other_callbacks.txt", otherCallback);
-        Writer.writeCollection(GraphSettings.v().getOutputDirectory(), "ignored_methods.txt", ignoredMethods);
-
-        Writer.writeCollection(GraphSettings.v().getOutputDirectory(), "launch_activities.txt",
-                FlowDroidAnalysis.v().getLaunchActivities()
+        Writer.writeCollection(outputDirectory, "all_methods.txt", allMethods);
+        Writer.writeCollection(outputDirectory, "filtered_methods.txt", filteredMethods);
+        Writer.writeCollection(outputDirectory, "standard_methods.txt", standardMethods);
+        Writer.writeCollection(outputDirectory, "lifecycle_methods.txt", lifecycleCallbacks);
+        Writer.writeCollection(outputDirectory, "listener_methods.txt", listenerCallbacks);
+        Writer.writeCollection(outputDirectory, "possible_callbacks.txt", possibleCallbacks);
+        Writer.writeCollection(outputDirectory, "other_callbacks.txt", otherCallback);
+        Writer.writeCollection(outputDirectory, "ignored_methods.txt", ignoredMethods);
+
+        Writer.writeCollection(outputDirectory, "launch_activities.txt",
+                this.context.getFlowDroidAnalysis().getLaunchActivities()
                               );
 
-        Map<SootClass, Set<SootClass>> fragments = classifier.getFragments();
-        Writer.writeMap(GraphSettings.v().getOutputDirectory(), "fragment_classes.txt", fragments);
+        Map<SootClass, Set<SootClass>> fragments = new Classifier().getFragments();
+        Writer.writeMap(outputDirectory, "fragment_classes.txt", fragments);
     }
 
     public void writeUnitGraphsToFile() throws IOException {
-        LOGGER.info("Exporting unit graphs in " + GraphSettings.v().getFormat().name() + " format(s).");
+        GraphSettings settings = this.context.getSettings();
+        LOGGER.info("Exporting unit graphs in " + settings.getFormat().name() + " format(s).");
+        // Only the methods in the graph have their bodies loaded, a body loaded here is released once its graph is
+        // written.
+        BodyManager bodies = this.context.getBodyManager();
         for (SootClass clazz : Scene.v().getClasses()) {
             for (SootMethod method : clazz.getMethods()) {
-                if (Filter.isValidMethod(method) && method.hasActiveBody()) {
-                    UnitGraph unitGraph = new UnitGraph(method.getActiveBody());
+                if (!Filter.isValidMethod(method) || this.getMethodVertex(method.getSignature()) == null) {
+                    continue;
+                }
+
+                Body body = bodies.retrieve(method);
+                if (body != null) {
+                    BodyGraph bodyGraph = BodyGraph.create(body, settings.isBasicBlockGraphs());
                     String fileName = clazz.getShortName() + "_" + method.getName();
-                    Writer.writeGraph(GraphSettings.v().getOutputDirectory(), fileName, GraphSettings.v().getFormat(),
-                            unitGraph.getGraph()
-                                     );
+                    try {
+                        Writer.writeGraph(settings.getOutputDirectory(), fileName, settings.getFormat(),
+                                bodyGraph.getGraph()
+                                         );
+                    } finally {
+                        bodies.release(method);
+                    }
                 }
             }
         }
+        LOGGER.info(bodies.getSummary());
     }
 
     public void writeCallGraphToFile() throws IOException {
-        LOGGER.info("Exporting call graph in " + GraphSettings.v().getFormat().name() + " format(s).");
-        Writer.writeGraph(GraphSettings.v().getOutputDirectory(), "app_call_graph", GraphSettings.v().getFormat(),
+        GraphSettings settings = this.context.getSettings();
+        LOGGER.info("Exporting call graph in " + settings.getFormat().name() + " format(s).");
+        Writer.writeGraph(settings.getOutputDirectory(), "app_call_graph", settings.getFormat(),
                 this.getCallGraph()
                          );
     }
 
     public void writeControlFlowGraphToFile() throws IOException {
-        LOGGER.info("Exporting control flow graph in " + GraphSettings.v().getFormat().name() + " format(s).");
-        Writer.writeGraph(GraphSettings.v().getOutputDirectory(), "app_control_flow_graph",
-                GraphSettings.v().getFormat(), this.getControlFlowGraph()
+        LOGGER.info("Exporting control flow graph in " + this.context.getSettings().getFormat().name() + " format(s).");
+        Writer.writeGraph(this.context.getSettings().getOutputDirectory(), "app_control_flow_graph",
+                this.context.getSettings().getFormat(), this.getControlFlowGraph()
                          );
     }
 
     public void writeControlsToFile() throws IOException {
-        Writer.writeCollection(GraphSettings.v().getOutputDirectory(), "interface_controls.txt",
+        Writer.writeCollection(this.context.getSettings().getOutputDirectory(), "interface_controls.txt",
                 this.getDroidControls().getControls()
                               );
-        Writer.writeString(GraphSettings.v().getOutputDirectory(), "control_callbacks.txt",
+        Writer.writeString(this.context.getSettings().getOutputDirectory(), "control_callbacks.txt",
                 this.getControlCallbackTableString()
                           );
     }
@@ -346,16 +473,16 @@ public class DroidGraph {
         return StringTable.tableWithLines(data, true);
     }
 
-    private Graph<Vertex, DefaultEdge> generateGraph() {
-        if (!FlowDroidAnalysis.v().isFlowDroidExecuted()) {
-            FlowDroidAnalysis.v().runFlowDroid();
+    private void generateGraph() {
+        if (!this.context.getFlowDroidAnalysis().isFlowDroidExecuted()) {
+            this.context.getFlowDroidAnalysis().runFlowDroid();
         }
 
         Timer timer = new Timer();
         LOGGER.info("Running graph generation... (" + timer.start(true) + ")");
 
         LOGGER.info("Adding call graph vertices and edges to the control flow graph.");
-        Graph<Vertex, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        Graph<Vertex, DefaultEdge> graph = this.controlFlowGraph;
         Graphs.addGraph(graph, this.getCallGraph());
         LOGGER.info(this.getCallGraph().vertexSet().size() + " vertices and " + this.getCallGraph().edgeSet().size() +
                 " edges added to the control flow graph.");
@@ -366,7 +493,7 @@ public class DroidGraph {
             graph.addVertex(controlVertex);
             control.getListeners().forEach(method -> {
                 SootMethod listener = Scene.v().grabMethod(method);
-                Vertex listenerVertex = DroidGraph.getMethodVertex(listener.getSignature(), graph.vertexSet());
+                Vertex listenerVertex = this.getMethodVertex(listener.getSignature());
                 if (listenerVertex != null) {
                     graph.addEdge(controlVertex, listenerVertex);
                 } else {
@@ -377,328 +504,212 @@ public class DroidGraph {
         LOGGER.info(this.getDroidControls().getControls().size() + " controls added to the control flow graph.");
 
         LOGGER.info("Adding unit graphs to the control flow graph.");
-        AtomicInteger numberOfUnitGraphs = new AtomicInteger();
-        JimpleBasedInterproceduralCFG jimpleCFG = new JimpleBasedInterproceduralCFG();
-        Set<Vertex> graphVertices = new HashSet<>(graph.vertexSet());
-        graphVertices.stream().filter(vertex -> vertex.getType() != Type.CONTROL).forEach(vertex -> {
-            SootMethod method = Scene.v().grabMethod(((MethodVertex) vertex).getMethodSignature());
-            if (method.hasActiveBody()) {
-                UnitGraph unitGraph = new UnitGraph(method.getActiveBody());
-                Graph<Vertex, DefaultEdge> methodSubGraph = unitGraph.getGraph();
-                Graphs.addGraph(graph, methodSubGraph);
-                unitGraph.getRoots().forEach(root -> graph.addEdge(vertex, root));
-                numberOfUnitGraphs.getAndIncrement();
-
-                //TODO: Fix - jimpleCFG.getCalleesOfCallAt(caller) produces error 'method is referenced but has no body'
-                jimpleCFG.getCallsFromWithin(method).forEach(
-                        caller -> jimpleCFG.getCalleesOfCallAt(caller).stream().filter(Filter::isValidMethod)
-                                .forEach(callee -> {
-                                    Vertex callerVertex = DroidGraph.getUnitVertex(caller, graph.vertexSet());
-                                    if (callerVertex == null) {
-                                        LOGGER.error(String.format("Caller %s not found in the graph.", caller));
-                                    }
-                                    Vertex calleeVertex =
-                                            DroidGraph.getMethodVertex(callee.getSignature(), graph.vertexSet());
-                                    if (calleeVertex == null) {
-                                        LOGGER.error(String.format("Callee %s not found in the graph.", callee));
-                                        if (!callee.getDeclaringClass().getPackageName()
-                                                .startsWith(FlowDroidAnalysis.v().getBasePackageName())) {
-                                            LOGGER.info(
-                                                    String.format("Callee %s is probably not a valid method.", callee));
-                                        }
-                                        if (GraphSettings.v().isAddMissingComponents()) {
-                                            LOGGER.info(String.format("Adding %s method into the graph.", callee));
-                                            graph.addVertex(new VertexFactory().createVertex(callee));
-                                        }
-                                    }
-                                    if (callerVertex != null && calleeVertex != null) {
-                                        graph.addEdge(callerVertex, calleeVertex);
-                                    }
-                                }));
-                //TODO: Link method return unit back to the calling unit.
-            }
-        });
+        int numberOfUnitGraphs = this.addUnitGraphs(graph);
         LOGGER.info(numberOfUnitGraphs + " unit graphs added to the control flow graph.");
+        LOGGER.info(this.context.getBodyManager().getSummary());
 
         LOGGER.info(graph.vertexSet().size() + " vertices and " + graph.edgeSet().size() + " edges added to the " +
                 "control flow graph.");
         LOGGER.info("(" + timer.end() + ") Graph generation took " + timer.secondsDuration() + " second(s).");
-        return graph;
     }
 
-    private void verifyControlFlowGraphContents() {
-        Timer timer = new Timer();
-        LOGGER.info("Verifying Control Flow Graph Content... (" + timer.start(true) + ")");
-        boolean problemFound = false;
-
-        LOGGER.info("Searching for missing controls.");
-        Collection<Control> missingControls = new HashSet<>();
-        for (Control control : this.getDroidControls().getControls()) {
-            boolean foundControl = false;
-            for (Vertex vertex : this.getControlFlowGraph().vertexSet()) {
-                if (vertex instanceof ControlVertex) {
-                    if (((ControlVertex) vertex).getControl().equals(control)) {
-                        foundControl = true;
+    // Unit graphs are built and merged a batch of methods at a time. A body loaded for its batch is released once its
+    // unit graph is in the control flow graph, so at most one batch of loaded bodies is held at once. Bodies the call
+    // graph was built over are kept (see BodyManager).
+    private int addUnitGraphs(Graph<Vertex, DefaultEdge> graph) {
+        // Soot methods are resolved up front so that the (possibly parallel) construction only reads method bodies.
+        List<Pair<MethodVertex, SootMethod>> methods = new ArrayList<>();
+        graph.vertexSet().stream().filter(vertex -> vertex.getType() != Type.CONTROL)
+                .sorted(Comparator.comparingInt(Vertex::getId)).forEach(vertex -> {
+                    SootMethod method = Scene.v().grabMethod(((MethodVertex) vertex).getMethodSignature());
+                    if (method != null) {
+                        methods.add(new Pair<>((MethodVertex) vertex, method));
                     }
+                });
+        if (this.context.getSettings().isPruneUnreachableMethods()) {
+            this.pruneUnreachableMethods(graph, methods);
+        }
+
+        BodyManager bodies = this.context.getBodyManager();
+        boolean basicBlocks = this.context.getSettings().isBasicBlockGraphs();
+        if (basicBlocks) {
+            LOGGER.info("Building basic block graphs, one vertex per block of straight-line units.");
+        }
+        ForkJoinPool pool = this.context.getSettings().isParallelUnitGraphs() ? this.context.newForkJoinPool() : null;
+        if (pool != null) {
+            LOGGER.info("Building " + methods.size() + " unit graphs on " + pool.getParallelism() + " thread(s).");
+        }
+
+        int numberOfUnitGraphs = 0;
+        try {
+            for (int start = 0; start < methods.size(); start += UNIT_GRAPH_BATCH_SIZE) {
+                List<Pair<MethodVertex, SootMethod>> batch =
+                        methods.subList(start, Math.min(start + UNIT_GRAPH_BATCH_SIZE, methods.size()));
+                List<MethodSubGraph> methodSubGraphs = this.buildMethodSubGraphs(batch, bodies, basicBlocks, pool);
+                for (MethodSubGraph methodSubGraph : methodSubGraphs) {
+                    this.addMethodSubGraph(graph, methodSubGraph);
+                    bodies.release(methodSubGraph.getMethod());
+                    numberOfUnitGraphs++;
                 }
             }
-
-            if (!foundControl) {
-                missingControls.add(control);
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
             }
         }
 
-        if (GraphSettings.v().isOutputMissingComponents()) {
-            try {
-                Writer.writeCollection(GraphSettings.v().getOutputDirectory(), "missing_controls.txt", missingControls);
-            } catch (IOException e) {
-                LOGGER.error("Error writing missing controls to output file." + e.getMessage());
-            }
-        }
+        return numberOfUnitGraphs;
+    }
 
-        if (!missingControls.isEmpty()) {
-            problemFound = true;
-            LOGGER.error(String.format("Found %s controls that are not in the graph.", missingControls.size()));
-            if (GraphSettings.v().isAddMissingComponents()) {
-                LOGGER.info(String.format("Adding %s controls into the graph.", missingControls.size()));
-                missingControls.forEach(control -> this.getControlFlowGraph().addVertex(new ControlVertex(control)));
+    // Unreachable methods keep their vertex, only their unit graph is skipped. They are reported rather than dropped.
+    private void pruneUnreachableMethods(Graph<Vertex, DefaultEdge> graph,
+            List<Pair<MethodVertex, SootMethod>> methods) {
+        FlowDroidAnalysis flowDroidAnalysis = this.context.getFlowDroidAnalysis();
+        Set<Vertex> entryPoints = Reachability.findEntryPoints(graph, flowDroidAnalysis.getLaunchActivities(),
+                flowDroidAnalysis.getEntryPointClasses()
+                                                              );
+        Set<Vertex> reachable = Reachability.findReachable(graph, entryPoints);
+
+        List<String> prunedMethods = new ArrayList<>();
+        methods.removeIf(method -> {
+            if (reachable.contains(method.getLeft())) {
+                return false;
             }
-        }
-
-        LOGGER.info("Searching for missing methods.");
-        Collection<SootMethod> missingMethods = new HashSet<>();
-        Scene.v().getClasses().stream().filter(Filter::isValidClass)
-                .forEach(clazz -> clazz.getMethods().stream().filter(Filter::isValidMethod).forEach(method -> {
-                    boolean foundMethod = false;
-                    for (Vertex vertex : this.getControlFlowGraph().vertexSet()) {
-                        if (vertex instanceof MethodVertex) {
-                            if (((MethodVertex) vertex).getMethodSignature().equals(method.getSignature())) {
-                                foundMethod = true;
-                                break;
-                            }
-                        }
-                    }
-
-                    if (!foundMethod) {
-                        SootClass currentClass = method.getDeclaringClass();
-                        boolean found = false;
-                        while (currentClass.hasSuperclass()) {
-                            currentClass = currentClass.getSuperclass();
-                            SootMethod superClassMethod = currentClass.getMethodUnsafe(method.getSubSignature());
-                            if (superClassMethod != null) {
-                                found = true;
-                                break;
-                            }
-                        }
-                        if (!found) {
-                            missingMethods.add(method);
-                        }
-                    }
-                }));
+            prunedMethods.add(method.getLeft().getMethodSignature());
+            return true;
+        });
+        this.prunedMethods = prunedMethods;
+        LOGGER.info(entryPoints.size() + " entry points reach " + methods.size() + " methods, the unit graphs of " +
+                prunedMethods.size() + " unreachable methods are pruned.");
 
-        if (GraphSettings.v().isOutputMissingComponents()) {
-            try {
-                Writer.writeCollection(GraphSettings.v().getOutputDirectory(), "missing_methods.txt", missingMethods);
-            } catch (IOException e) {
-                LOGGER.error("Error writing missing methods to output file." + e.getMessage());
-            }
+        try {
+            Writer.writeCollection(this.context.getSettings().getOutputDirectory(), "pruned_methods.txt",
+                    prunedMethods
+                                  );
+        } catch (IOException e) {
+            LOGGER.error("Error writing pruned methods to output file: " + e.getMessage());
         }
+    }
 
-        if (!missingMethods.isEmpty()) {
-            problemFound = true;
-            LOGGER.error(String.format("Found %s methods that are not in the graph.", missingMethods.size()));
-            if (GraphSettings.v().isAddMissingComponents()) {
-                LOGGER.info(String.format("Adding %s methods into the graph.", missingMethods.size()));
-                missingMethods.forEach(
-                        method -> this.getControlFlowGraph().addVertex(new VertexFactory().createVertex(method)));
-            }
-        }
+    // Bodies are loaded on the calling thread, building a body runs Soot's jb pack and can resolve classes, so the
+    // (possibly parallel) construction of the sub graphs only reads Soot state. The ICFG caches the call units of every
+    // method it is asked about, it is created per batch so those caches go with the batch's bodies.
+    private List<MethodSubGraph> buildMethodSubGraphs(List<Pair<MethodVertex, SootMethod>> methods,
+            BodyManager bodies, boolean basicBlocks, ForkJoinPool pool) {
+        List<Pair<MethodVertex, SootMethod>> loaded =
+                methods.stream().filter(p -> bodies.retrieve(p.getRight()) != null).collect(Collectors.toList());
+        // Callees are kept whether or not their bodies are loaded.
+        JimpleBasedInterproceduralCFG jimpleCFG = new JimpleBasedInterproceduralCFG();
+        jimpleCFG.setIncludePhantomCallees(true);
 
-        if (!FlowDroidAnalysis.v().isFlowDroidExecuted()) {
-            FlowDroidAnalysis.v().runFlowDroid();
+        if (pool == null) {
+            return loaded.stream().map(p -> new MethodSubGraph(p.getLeft(), p.getRight(), jimpleCFG, basicBlocks))
+                    .collect(Collectors.toList());
         }
 
-        LOGGER.info("Collecting class and method classifications.");
-        Collection<SootClass> filteredClasses = new HashSet<>();
-        Collection<SootMethod> allMethods = new HashSet<>(), filteredMethods = new HashSet<>(), standardMethods =
-                new HashSet<>(), lifecycleCallbacks = new HashSet<>(), listenerCallbacks = new HashSet<>(),
-                possibleCallbacks = new HashSet<>(), otherCallback = new HashSet<>(), ignoredMethods = new HashSet<>();
-
-        Classifier classifier = new Classifier();
-
-        for (SootClass clazz : Scene.v().getClasses()) {
-            allMethods.addAll(clazz.getMethods());
-
-            if (Filter.isValidClass(clazz)) {
-                filteredClasses.add(clazz);
-
-                List<SootMethod> methods = clazz.getMethods();
-                for (SootMethod method : methods) {
-                    if (Filter.isValidMethod(method)) {
-                        filteredMethods.add(method);
-
-                        switch (classifier.getMethodType(method)) {
-                            case DUMMY:
-                                ignoredMethods.add(method);
-                                break;
-                            case LIFECYCLE:
-                                lifecycleCallbacks.add(method);
-                                break;
-                            case LISTENER:
-                                if (classifier.isListenerMethod(method)) {
-                                    listenerCallbacks.add(method);
-                                } else {
-                                    possibleCallbacks.add(method);
-                                }
-                                break;
-                            case CALLBACK:
-                                otherCallback.add(method);
-                                break;
-                            case METHOD:
-                                standardMethods.add(method);
-                                break;
-
-                        }
-                    }
-                }
-            }
+        try {
+            // Parallel streams keep encounter order, so the merge into the control flow graph stays deterministic.
+            return pool.submit(() -> loaded.parallelStream()
+                    .map(p -> new MethodSubGraph(p.getLeft(), p.getRight(), jimpleCFG, basicBlocks))
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            throw new RuntimeException("Failed to build unit graphs in parallel: " + e.getMessage(), e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to build unit graphs in parallel: " + e.getCause().getMessage(),
+                    e.getCause());
         }
+    }
 
-        LOGGER.info("Verifying methods in FlowDroid match methods in control flow graph.");
-
-        Map<String, Collection<SootClass>> classEmptyCheckMap = new HashMap<>();
-        classEmptyCheckMap.put("all classes", Scene.v().getClasses());
-        classEmptyCheckMap.put("filtered classes", filteredClasses);
-        classEmptyCheckMap.put("entry point classes", FlowDroidAnalysis.v().getEntryPointClasses());
-        classEmptyCheckMap.put("launch activities", FlowDroidAnalysis.v().getLaunchActivities());
-        for (Map.Entry<String, Collection<SootClass>> entry : classEmptyCheckMap.entrySet()) {
-            if (entry.getValue().size() == 0) {
-                problemFound = true;
-                LOGGER.warn("No classes in " + entry.getKey() + ".");
+    private void addMethodSubGraph(Graph<Vertex, DefaultEdge> graph, MethodSubGraph methodSubGraph) {
+        Vertex vertex = methodSubGraph.getMethodVertex();
+        BodyGraph bodyGraph = methodSubGraph.getBodyGraph();
+        Graphs.addGraph(graph, bodyGraph.getGraph());
+        bodyGraph.getRoots().forEach(root -> graph.addEdge(vertex, root));
+
+        for (Pair<Unit, SootMethod> call : methodSubGraph.getCalls()) {
+            Unit caller = call.getLeft();
+            SootMethod callee = call.getRight();
+            Vertex callerVertex = bodyGraph.getVertex(caller);
+            if (callerVertex == null) {
+                LOGGER.error(String.format("Caller %s not found in the graph.", caller));
             }
-        }
-
-        Map<String, Collection<SootMethod>> methodEmptyCheckMap = new HashMap<>();
-        methodEmptyCheckMap.put("all methods", allMethods);
-        methodEmptyCheckMap.put("filtered classes", filteredMethods);
-        methodEmptyCheckMap.put("entry point classes", lifecycleCallbacks);
-        methodEmptyCheckMap.put("launch activities", standardMethods);
-        for (Map.Entry<String, Collection<SootMethod>> entry : methodEmptyCheckMap.entrySet()) {
-            if (entry.getValue().size() == 0) {
-                problemFound = true;
-                LOGGER.warn("No methods in " + entry.getKey() + ".");
+            Vertex calleeVertex = this.getMethodVertex(callee.getSignature());
+            if (calleeVertex == null) {
+                LOGGER.error(String.format("Callee %s not found in the graph.", callee));
+                if (!callee.getDeclaringClass().getPackageName()
+                        .startsWith(this.context.getFlowDroidAnalysis().getBasePackageName())) {
+                    LOGGER.info(String.format("Callee %s is probably not a valid method.", callee));
+                }
+                if (this.context.getSettings().isAddMissingComponents()) {
+                    LOGGER.info(String.format("Adding %s method into the graph.", callee));
+                    graph.addVertex(new VertexFactory().createVertex(callee));
+                }
             }
-        }
-
-        if (filteredMethods.size() !=
-                (standardMethods.size() + possibleCallbacks.size() + otherCallback.size() + listenerCallbacks.size() +
-                        lifecycleCallbacks.size() + ignoredMethods.size())) {
-            problemFound = true;
-            LOGGER.warn("Number of filtered methods does not equal number of classified methods.");
-        }
-
-        Composition cgComposition = new Composition(this.getCallGraph());
-        Map<String, Integer> callGraphEmptyCheckMap = new HashMap<>();
-        callGraphEmptyCheckMap.put("units", cgComposition.getUnit());
-        callGraphEmptyCheckMap.put("dummy methods", cgComposition.getDummy());
-        callGraphEmptyCheckMap.put("controls", cgComposition.getControl());
-        for (Map.Entry<String, Integer> entry : callGraphEmptyCheckMap.entrySet()) {
-            if (entry.getValue() != 0) {
-                problemFound = true;
-                LOGGER.warn("Call graph contains " + entry.getKey() + ".");
+            if (callerVertex != null && calleeVertex != null) {
+                graph.addEdge(callerVertex, calleeVertex);
             }
         }
+        //TODO: Link method return unit back to the calling unit.
+    }
 
-        if (cgComposition.getVertex() !=
-                (cgComposition.getMethod() + cgComposition.getCallback() + cgComposition.getListener() +
-                        cgComposition.getLifecycle())) {
-            problemFound = true;
-            LOGGER.warn("Call graph method type counts does not match vertex count.");
-        }
+    private VerificationReport verifyControlFlowGraphContents() {
+        Timer timer = new Timer();
+        LOGGER.info("Verifying Control Flow Graph Content... (" + timer.start(true) + ")");
 
-        Map<String, Pair<Integer, Integer>> callGraphCountCheckMap = new HashMap<>();
-        callGraphCountCheckMap.put("Filtered", new Pair<>(cgComposition.getVertex(), filteredMethods.size()));
-        callGraphCountCheckMap.put("Lifecycle", new Pair<>(cgComposition.getLifecycle(), lifecycleCallbacks.size()));
-        callGraphCountCheckMap.put("Callback", new Pair<>(cgComposition.getCallback(), otherCallback.size()));
-        callGraphCountCheckMap.put("Standard", new Pair<>(cgComposition.getMethod(), standardMethods.size()));
-        callGraphCountCheckMap.put("Listener",
-                new Pair<>(cgComposition.getListener(), (listenerCallbacks.size() + possibleCallbacks.size()))
-                                  );
-        for (Map.Entry<String, Pair<Integer, Integer>> entry : callGraphCountCheckMap.entrySet()) {
-            if (!entry.getValue().getLeft().equals(entry.getValue().getRight())) {
-                problemFound = true;
-                LOGGER.warn(entry.getKey() + " methods count does not match call graph composition count.");
-            }
+        if (!this.context.getFlowDroidAnalysis().isFlowDroidExecuted()) {
+            this.context.getFlowDroidAnalysis().runFlowDroid();
         }
 
-        Composition cfgComposition = new Composition(this.getControlFlowGraph());
-        if (cfgComposition.getDummy() != 0) {
-            problemFound = true;
-            LOGGER.warn("Control flow graph contains dummy methods.");
-        }
+        GraphVerifier verifier = new GraphVerifier(this.getControlFlowGraph(), this.getCallGraph(), this.vertexIndex,
+                this.getDroidControls().getControls()
+        );
+        FlowDroidAnalysis flowDroidAnalysis = this.context.getFlowDroidAnalysis();
+        VerificationReport report = verifier.verify(this.context.getClassificationTable(), Scene.v().getClasses(),
+                flowDroidAnalysis.getEntryPointClasses(), flowDroidAnalysis.getLaunchActivities()
+                                                   );
 
-        Map<String, Integer> controlFlowGraphEmptyCheckMap = new HashMap<>();
-        controlFlowGraphEmptyCheckMap.put("units", cfgComposition.getUnit());
-        controlFlowGraphEmptyCheckMap.put("standard methods", cfgComposition.getMethod());
-        controlFlowGraphEmptyCheckMap.put("lifecycle methods", cfgComposition.getLifecycle());
-        controlFlowGraphEmptyCheckMap.put("controls", cfgComposition.getControl());
-        for (Map.Entry<String, Integer> entry : controlFlowGraphEmptyCheckMap.entrySet()) {
-            if (entry.getValue() == 0) {
-                problemFound = true;
-                LOGGER.warn("Control flow graph contains no " + entry.getKey() + ".");
+        if (this.context.getSettings().isOutputMissingComponents()) {
+            try {
+                Writer.writeCollection(this.context.getSettings().getOutputDirectory(), "missing_controls.txt",
+                        report.getMissingControls()
+                                      );
+                Writer.writeCollection(this.context.getSettings().getOutputDirectory(), "missing_methods.txt",
+                        report.getMissingMethods()
+                                      );
+            } catch (IOException e) {
+                LOGGER.error("Error writing missing components to output file." + e.getMessage());
             }
         }
 
-        if (cfgComposition.getVertex() !=
-                (cfgComposition.getUnit() + cfgComposition.getMethod() + cgComposition.getCallback() +
-                        cgComposition.getListener() + cgComposition.getLifecycle() + cgComposition.getDummy() +
-                        cfgComposition.getControl())) {
-            problemFound = true;
-            LOGGER.warn("Control flow graph vertex type counts do not match total vertex count.");
-        }
-
-        if (this.getDroidControls().getControls().size() != cfgComposition.getControl()) {
-            problemFound = true;
-            LOGGER.warn("Control flow graph does not contain all the found controls.");
-        }
-
-        Map<String, Pair<Integer, Integer>> cfgCountCheckMap = new HashMap<>();
-        cfgCountCheckMap.put("Dummy", new Pair<>(cgComposition.getDummy(), cfgComposition.getDummy()));
-        cfgCountCheckMap.put("Lifecycle", new Pair<>(cgComposition.getLifecycle(), cfgComposition.getLifecycle()));
-        cfgCountCheckMap.put("Callback", new Pair<>(cgComposition.getCallback(), cfgComposition.getCallback()));
-        cfgCountCheckMap.put("Method", new Pair<>(cgComposition.getMethod(), cfgComposition.getMethod()));
-        cfgCountCheckMap.put("Listener", new Pair<>(cgComposition.getListener(), cfgComposition.getListener()));
-        for (Map.Entry<String, Pair<Integer, Integer>> entry : cfgCountCheckMap.entrySet()) {
-            if (!entry.getValue().getLeft().equals(entry.getValue().getRight())) {
-                problemFound = true;
-                LOGGER.warn(entry.getKey() + " count does not match between control flow graph and call graph count.");
+        if (!report.getMissingControls().isEmpty()) {
+            LOGGER.error(String.format("Found %s controls that are not in the graph.",
+                    report.getMissingControls().size()));
+            if (this.context.getSettings().isAddMissingComponents()) {
+                LOGGER.info(String.format("Adding %s controls into the graph.", report.getMissingControls().size()));
+                report.getMissingControls()
+                        .forEach(control -> this.getControlFlowGraph().addVertex(new ControlVertex(control)));
             }
         }
 
-        LOGGER.info("Looking for duplicate methods in control flow graph.");
-        List<String> duplicates = new ArrayList<>();
-        Set<String> set = new HashSet<>();
-        for (Vertex vertex : this.getControlFlowGraph().vertexSet()) {
-            if (vertex instanceof MethodVertex) {
-                String methodSignature = ((MethodVertex) vertex).getMethodSignature().replace("'", "");
-                if (set.contains(methodSignature)) {
-                    duplicates.add(methodSignature);
-                } else {
-                    set.add(methodSignature);
-                }
-            }
-        }
-        if (!duplicates.isEmpty()) {
-            problemFound = true;
-            for (String methodSignature : duplicates) {
-                LOGGER.warn("Method " + methodSignature + " is duplicated in the graph.");
+        if (!report.getMissingMethods().isEmpty()) {
+            LOGGER.error(
+                    String.format("Found %s methods that are not in the graph.", report.getMissingMethods().size()));
+            if (this.context.getSettings().isAddMissingComponents()) {
+                LOGGER.info(String.format("Adding %s methods into the graph.", report.getMissingMethods().size()));
+                report.getMissingMethods().forEach(
+                        method -> this.getControlFlowGraph().addVertex(new VertexFactory().createVertex(method)));
             }
         }
 
-        if (!problemFound) {
+        report.getCompositionProblems().forEach(LOGGER::warn);
+        report.getDuplicateSignatures()
+                .forEach(methodSignature -> LOGGER.warn("Method " + methodSignature + " is duplicated in the graph."));
+
+        if (!report.hasProblems()) {
             LOGGER.info("Content verification finished without any problems.");
         }
 
         LOGGER.info("(" + timer.end() + ") Content verification took " + timer.secondsDuration() + " second(s).");
+        return report;
     }
 }
\ No newline at end of file
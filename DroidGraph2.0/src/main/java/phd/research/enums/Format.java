@@ -5,5 +5,5 @@ package phd.research.enums;
  */
 
 public enum Format {
-    ALL, DOT, JSON, GML
+    ALL, DOT, JSON, GML, BINARY
 }
@@ -5,5 +5,5 @@ package phd.research.enums;
  */
 
 public enum Type {
-    CONTROL, UNIT, METHOD, CALLBACK, LISTENER, LIFECYCLE, DUMMY,
+    CONTROL, UNIT, METHOD, CALLBACK, LISTENER, LIFECYCLE, DUMMY, BLOCK,
 }
@@ -0,0 +1,95 @@
+package phd.research.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import phd.research.vertices.BlockVertex;
+import phd.research.vertices.Vertex;
+import soot.Body;
+import soot.Unit;
+import soot.toolkits.graph.Block;
+import soot.toolkits.graph.BriefBlockGraph;
+
+import java.util.*;
+
+/**
+ * The basic block counterpart of {@link UnitGraph}, one vertex per block of straight-line units. Like the unit graph
+ * it has no exceptional edges.
+ *
+ * @author Jordan Doyle
+ */
+
+public class BlockGraph extends BriefBlockGraph implements BodyGraph {
+
+    private Graph<Vertex, DefaultEdge> graph;
+    private Map<Unit, BlockVertex> unitVertices;
+    private Collection<Vertex> roots;
+
+    public BlockGraph(Body body) {
+        super(body);
+    }
+
+    public Graph<Vertex, DefaultEdge> getGraph() {
+        if (this.graph == null) {
+            this.generateGraph();
+        }
+
+        return this.graph;
+    }
+
+    public Collection<Vertex> getRoots() {
+        if (this.graph == null) {
+            this.generateGraph();
+        }
+
+        return this.roots;
+    }
+
+    @Override
+    public BlockVertex getVertex(Unit unit) {
+        if (this.graph == null) {
+            this.generateGraph();
+        }
+
+        return this.unitVertices.get(unit);
+    }
+
+    private void generateGraph() {
+        Graph<Vertex, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        int signatureId = SignatureTable.v().intern(super.getBody().getMethod().getSignature());
+        UnitTextPool textPool = UnitTextPool.v();
+
+        // Blocks are in chain order, so units are interned in the same order (and get the same indexes) as in the
+        // unit graph of the method.
+        List<Block> blocks = super.getBlocks();
+        Map<Unit, BlockVertex> unitVertices = new IdentityHashMap<>(super.getBody().getUnits().size());
+        BlockVertex[] blockVertices = new BlockVertex[blocks.size()];
+        for (Block block : blocks) {
+            List<Unit> units = new ArrayList<>();
+            block.forEach(units::add);
+            int[] unitIndices = new int[units.size()];
+            for (int i = 0; i < unitIndices.length; i++) {
+                unitIndices[i] = textPool.intern(signatureId, units.get(i).toString());
+            }
+
+            BlockVertex vertex = new BlockVertex(signatureId, block.getIndexInMethod(), unitIndices);
+            graph.addVertex(vertex);
+            units.forEach(unit -> unitVertices.put(unit, vertex));
+            blockVertices[block.getIndexInMethod()] = vertex;
+        }
+        textPool.seal(signatureId);
+
+        for (Block block : blocks) {
+            for (Block nextBlock : block.getSuccs()) {
+                graph.addEdge(blockVertices[block.getIndexInMethod()], blockVertices[nextBlock.getIndexInMethod()]);
+            }
+        }
+
+        Set<Vertex> roots = new LinkedHashSet<>();
+        graph.vertexSet().stream().filter(v -> graph.inDegreeOf(v) == 0).forEach(roots::add);
+
+        this.unitVertices = unitVertices;
+        this.roots = Collections.unmodifiableSet(roots);
+        this.graph = graph;
+    }
+}
@@ -0,0 +1,32 @@
+package phd.research.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import phd.research.vertices.Vertex;
+import soot.Body;
+import soot.Unit;
+
+import java.util.Collection;
+
+/**
+ * The graph of a method body as merged into the control flow graph, either a vertex per unit ({@link UnitGraph}) or a
+ * vertex per basic block ({@link BlockGraph}).
+ *
+ * @author Jordan Doyle
+ */
+
+public interface BodyGraph {
+
+    static BodyGraph create(Body body, boolean basicBlocks) {
+        return basicBlocks ? new BlockGraph(body) : new UnitGraph(body);
+    }
+
+    Graph<Vertex, DefaultEdge> getGraph();
+
+    Collection<Vertex> getRoots();
+
+    /**
+     * @return the vertex holding the unit, or null if the unit is not in the body.
+     */
+    Vertex getVertex(Unit unit);
+}
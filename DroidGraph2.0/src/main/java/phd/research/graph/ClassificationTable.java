@@ -0,0 +1,134 @@
+package phd.research.graph;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import phd.research.Timer;
+import phd.research.enums.Type;
+import phd.research.singletons.AnalysisContext;
+import phd.research.utility.Filter;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.jimple.infoflow.android.callbacks.AndroidCallbackDefinition;
+import soot.jimple.infoflow.android.callbacks.xml.CollectedCallbacks;
+import soot.jimple.infoflow.android.entryPointCreators.AndroidEntryPointUtils;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * The {@link Type} of every valid method in a Scene, classified once with the same rules as {@link Classifier}. The
+ * FlowDroid callbacks are indexed by target method up front, so each lookup is a single identity map access. Methods
+ * that were not in the Scene when the table was built are classified on demand.
+ *
+ * @author Jordan Doyle
+ */
+
+public class ClassificationTable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClassificationTable.class);
+
+    private final Scene scene;
+    private final Map<SootMethod, Boolean> callbacks;
+    private final ThreadLocal<AndroidEntryPointUtils> entryPointUtils;
+    private final Map<SootMethod, Type> methodTypes;
+
+    public ClassificationTable(Scene scene, CollectedCallbacks collectedCallbacks) {
+        this.scene = Objects.requireNonNull(scene);
+        this.callbacks = ClassificationTable.indexCallbacks(collectedCallbacks);
+        this.entryPointUtils = ThreadLocal.withInitial(AndroidEntryPointUtils::new);
+        this.methodTypes = Collections.unmodifiableMap(this.classifyMethods());
+    }
+
+    public static ClassificationTable v() {
+        return AnalysisContext.v().getClassificationTable();
+    }
+
+    public static void reset() {
+        AnalysisContext.v().resetClassificationTable();
+    }
+
+    // Maps each callback target to true if it is a widget listener. As in Classifier, a definition only counts for
+    // its target when it is registered under the target's parent class.
+    private static Map<SootMethod, Boolean> indexCallbacks(CollectedCallbacks collectedCallbacks) {
+        Map<SootMethod, Boolean> callbacks = new IdentityHashMap<>();
+        collectedCallbacks.getCallbackMethods().forEach(pair -> {
+            SootMethod target = pair.getO2().getTargetMethod();
+            if (target != null && Classifier.getParentClass(target) == pair.getO1()) {
+                boolean widget = pair.getO2().getCallbackType() == AndroidCallbackDefinition.CallbackType.Widget;
+                callbacks.merge(target, widget, Boolean::logicalOr);
+            }
+        });
+        return callbacks;
+    }
+
+    public Type getMethodType(SootMethod method) {
+        Type type = this.methodTypes.get(method);
+        return type != null ? type : this.classify(method);
+    }
+
+    public boolean isListenerMethod(SootMethod method) {
+        return this.callbacks.getOrDefault(method, false);
+    }
+
+    public Scene getScene() {
+        return this.scene;
+    }
+
+    public int size() {
+        return this.methodTypes.size();
+    }
+
+    public Map<Type, Integer> getTypeCounts() {
+        Map<Type, Integer> counts = new EnumMap<>(Type.class);
+        this.methodTypes.values().forEach(type -> counts.merge(type, 1, Integer::sum));
+        return counts;
+    }
+
+    private Map<SootMethod, Type> classifyMethods() {
+        Timer timer = new Timer();
+        LOGGER.info("Classifying methods... (" + timer.start(true) + ")");
+
+        // The workers must see this analysis' context, which the common pool used by parallel streams does not.
+        ForkJoinPool pool = AnalysisContext.v().newForkJoinPool();
+        Map<SootMethod, Type> types;
+        try {
+            types = pool.submit(() -> new ArrayList<>(this.scene.getClasses()).parallelStream()
+                    .filter(Filter::isValidClass)
+                    .flatMap(clazz -> clazz.getMethods().stream())
+                    .filter(Filter::isValidMethod)
+                    .collect(Collectors.toMap(method -> method, this::classify, (first, second) -> first,
+                            IdentityHashMap::new))).get();
+        } catch (InterruptedException e) {
+            throw new RuntimeException("Failed to classify methods: " + e.getMessage(), e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to classify methods: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        LOGGER.info("(" + timer.end() + ") Classifying " + types.size() + " methods took " +
+                timer.secondsDuration() + " second(s).");
+        return types;
+    }
+
+    private Type classify(SootMethod method) {
+        if (method.getDeclaringClass().getName().equals("dummyMainClass")) {
+            return Type.DUMMY;
+        }
+        if (this.entryPointUtils.get().isEntryPointMethod(method)) {
+            return Type.LIFECYCLE;
+        }
+
+        Boolean widget = this.callbacks.get(method);
+        if (widget != null) {
+            return widget ? Type.LISTENER : Type.CALLBACK;
+        }
+        if (method.getParameterTypes().stream().anyMatch(type -> type.toString().equals("android.view.View"))) {
+            return Type.LISTENER;
+        }
+        return Type.METHOD;
+    }
+}
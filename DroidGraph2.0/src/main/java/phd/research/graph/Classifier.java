@@ -3,6 +3,7 @@ package phd.research.graph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import phd.research.enums.Type;
+import phd.research.singletons.AnalysisContext;
 import phd.research.singletons.FlowDroidAnalysis;
 import phd.research.singletons.GraphSettings;
 import phd.research.utility.Filter;
@@ -27,8 +28,6 @@ public class Classifier {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Classifier.class);
 
-    private static final CollectedCallbacks COLLECTED_CALLBACKS = Classifier.deserializeCallbacks();
-
     private AndroidEntryPointUtils entryPointUtils;
 
     public Classifier() {
@@ -48,7 +47,15 @@ public class Classifier {
         }
     }
 
-    private static SootClass getParentClass(SootMethod method) {
+    static CollectedCallbacks getCollectedCallbacks() {
+        return AnalysisContext.v().getCollectedCallbacks();
+    }
+
+    public static void reset() {
+        AnalysisContext.v().resetCollectedCallbacks();
+    }
+
+    static SootClass getParentClass(SootMethod method) {
         SootClass clazz = method.getDeclaringClass();
         return clazz.hasOuterClass() ? clazz.getOuterClass() : clazz;
     }
@@ -63,7 +70,9 @@ public class Classifier {
 
     public boolean isListenerMethod(SootMethod method) {
         SootClass clazz = Classifier.getParentClass(method);
-        for (AndroidCallbackDefinition definition : Classifier.COLLECTED_CALLBACKS.getCallbackMethods().get(clazz)) {
+        Set<AndroidCallbackDefinition> definitions =
+                Classifier.getCollectedCallbacks().getCallbackMethods().get(clazz);
+        for (AndroidCallbackDefinition definition : definitions) {
             if (definition.getTargetMethod().equals(method) &&
                     definition.getCallbackType() == AndroidCallbackDefinition.CallbackType.Widget) {
                 return true;
@@ -79,7 +88,9 @@ public class Classifier {
         }
 
         SootClass clazz = Classifier.getParentClass(method);
-        for (AndroidCallbackDefinition definition : Classifier.COLLECTED_CALLBACKS.getCallbackMethods().get(clazz)) {
+        Set<AndroidCallbackDefinition> definitions =
+                Classifier.getCollectedCallbacks().getCallbackMethods().get(clazz);
+        for (AndroidCallbackDefinition definition : definitions) {
             if (definition.getTargetMethod().equals(method)) {
                 return true;
             }
@@ -115,7 +126,7 @@ public class Classifier {
     public Map<SootClass, Set<SootClass>> getFragments() {
         Map<SootClass, Set<SootClass>> fragmentsPairs = new HashMap<>();
 
-        Classifier.COLLECTED_CALLBACKS.getFragmentClasses().forEach(p -> {
+        Classifier.getCollectedCallbacks().getFragmentClasses().forEach(p -> {
             if (Filter.isValidClass(p.getO1()) && Filter.isValidClass(p.getO2())) {
                 Set<SootClass> fragments = fragmentsPairs.getOrDefault(p.getO1(), new HashSet<>());
                 fragments.add(p.getO2());
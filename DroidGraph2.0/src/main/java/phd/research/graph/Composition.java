@@ -1,7 +1,6 @@
 package phd.research.graph;
 
 import org.jgrapht.Graph;
-import org.jgrapht.graph.DefaultEdge;
 import phd.research.StringTable;
 import phd.research.vertices.Vertex;
 
@@ -13,10 +12,11 @@ import java.util.Set;
 
 public class Composition {
 
-    private int vertex, edge, control, method, dummy, lifecycle, listener, callback, unit;
+    private int vertex, edge, control, method, dummy, lifecycle, listener, callback, unit, block;
 
-    public Composition(Graph<Vertex, DefaultEdge> graph) {
-        this.control = this.method = this.dummy = this.lifecycle = this.listener = this.callback = this.unit = 0;
+    public Composition(Graph<Vertex, ?> graph) {
+        this.control = this.method = this.dummy = this.lifecycle = this.listener = this.callback = this.unit =
+                this.block = 0;
         readComposition(graph);
     }
 
@@ -28,6 +28,10 @@ public class Composition {
         return this.unit;
     }
 
+    public int getBlock() {
+        return this.block;
+    }
+
     public int getControl() {
         return this.control;
     }
@@ -58,7 +62,7 @@ public class Composition {
         return this.edge;
     }
 
-    public void readComposition(Graph<Vertex, DefaultEdge> graph) {
+    public void readComposition(Graph<Vertex, ?> graph) {
         Set<Vertex> vertices = graph.vertexSet();
         this.vertex = vertices.size();
         this.edge = graph.edgeSet().size();
@@ -86,6 +90,9 @@ public class Composition {
                 case METHOD:
                     this.method++;
                     break;
+                case BLOCK:
+                    this.block++;
+                    break;
             }
         }
     }
@@ -95,7 +102,8 @@ public class Composition {
                 {"Edge", String.valueOf(this.edge)}, {"Controls", String.valueOf(this.control)},
                 {"Dummy", String.valueOf(this.dummy)}, {"Lifecycle", String.valueOf(this.lifecycle)},
                 {"Listener", String.valueOf(this.listener)}, {"Callback", String.valueOf(this.callback)},
-                {"Method", String.valueOf(this.method)}, {"Unit", String.valueOf(this.unit)}};
+                {"Method", String.valueOf(this.method)}, {"Unit", String.valueOf(this.unit)},
+                {"Block", String.valueOf(this.block)}};
 
         return StringTable.tableWithLines(data, true);
     }
@@ -0,0 +1,236 @@
+package phd.research.graph;
+
+import org.jgrapht.Graph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import phd.research.Pair;
+import phd.research.Timer;
+import phd.research.enums.Type;
+import phd.research.singletons.AnalysisContext;
+import phd.research.utility.Filter;
+import phd.research.vertices.ControlVertex;
+import phd.research.vertices.MethodVertex;
+import phd.research.vertices.Vertex;
+import soot.SootClass;
+import soot.SootMethod;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Verifies the contents of a control flow graph with four independent checks: missing controls, missing methods,
+ * composition consistency and duplicate method signatures. Each check only reads the graph and its hash indices, so
+ * the checks run concurrently and are collected into a single {@link VerificationReport}.
+ *
+ * @author Jordan Doyle
+ */
+
+public class GraphVerifier {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GraphVerifier.class);
+
+    private final Graph<Vertex, ?> controlFlowGraph;
+    private final Graph<Vertex, ?> callGraph;
+    private final VertexIndex vertexIndex;
+    private final Collection<Control> controls;
+
+    public GraphVerifier(Graph<Vertex, ?> controlFlowGraph, Graph<Vertex, ?> callGraph, VertexIndex vertexIndex,
+            Collection<Control> controls) {
+        this.controlFlowGraph = Objects.requireNonNull(controlFlowGraph);
+        this.callGraph = Objects.requireNonNull(callGraph);
+        this.vertexIndex = Objects.requireNonNull(vertexIndex);
+        this.controls = Objects.requireNonNull(controls);
+    }
+
+    public static Collection<Control> findMissingControls(Graph<Vertex, ?> graph, Collection<Control> controls) {
+        Set<Control> graphControls = graph.vertexSet().stream().filter(vertex -> vertex instanceof ControlVertex)
+                .map(vertex -> ((ControlVertex) vertex).getControl()).collect(Collectors.toSet());
+        return controls.stream().filter(control -> !graphControls.contains(control)).collect(Collectors.toSet());
+    }
+
+    public static List<String> findDuplicateSignatures(Graph<Vertex, ?> graph) {
+        List<String> duplicates = new ArrayList<>();
+        Set<String> signatures = new HashSet<>();
+        for (Vertex vertex : graph.vertexSet()) {
+            if (vertex instanceof MethodVertex) {
+                String methodSignature = ((MethodVertex) vertex).getMethodSignature().replace("'", "");
+                if (!signatures.add(methodSignature)) {
+                    duplicates.add(methodSignature);
+                }
+            }
+        }
+        return duplicates;
+    }
+
+    public static List<String> checkComposition(Composition cgComposition, Composition cfgComposition,
+            Map<Type, Integer> classifiedMethods, int controlCount) {
+        List<String> problems = new ArrayList<>();
+        int classified = classifiedMethods.values().stream().mapToInt(Integer::intValue).sum();
+
+        Map<String, Integer> callGraphEmptyCheckMap = new LinkedHashMap<>();
+        callGraphEmptyCheckMap.put("units", cgComposition.getUnit());
+        callGraphEmptyCheckMap.put("blocks", cgComposition.getBlock());
+        callGraphEmptyCheckMap.put("dummy methods", cgComposition.getDummy());
+        callGraphEmptyCheckMap.put("controls", cgComposition.getControl());
+        callGraphEmptyCheckMap.forEach((key, value) -> {
+            if (value != 0) {
+                problems.add("Call graph contains " + key + ".");
+            }
+        });
+
+        if (cgComposition.getVertex() != (cgComposition.getMethod() + cgComposition.getCallback() +
+                cgComposition.getListener() + cgComposition.getLifecycle())) {
+            problems.add("Call graph method type counts does not match vertex count.");
+        }
+
+        Map<String, Pair<Integer, Integer>> callGraphCountCheckMap = new LinkedHashMap<>();
+        callGraphCountCheckMap.put("Filtered", new Pair<>(cgComposition.getVertex(), classified));
+        callGraphCountCheckMap.put("Lifecycle", new Pair<>(cgComposition.getLifecycle(),
+                classifiedMethods.getOrDefault(Type.LIFECYCLE, 0)));
+        callGraphCountCheckMap.put("Callback", new Pair<>(cgComposition.getCallback(),
+                classifiedMethods.getOrDefault(Type.CALLBACK, 0)));
+        callGraphCountCheckMap.put("Standard", new Pair<>(cgComposition.getMethod(),
+                classifiedMethods.getOrDefault(Type.METHOD, 0)));
+        callGraphCountCheckMap.put("Listener", new Pair<>(cgComposition.getListener(),
+                classifiedMethods.getOrDefault(Type.LISTENER, 0)));
+        callGraphCountCheckMap.forEach((key, value) -> {
+            if (!value.getLeft().equals(value.getRight())) {
+                problems.add(key + " methods count does not match call graph composition count.");
+            }
+        });
+
+        if (cfgComposition.getDummy() != 0) {
+            problems.add("Control flow graph contains dummy methods.");
+        }
+
+        Map<String, Integer> controlFlowGraphEmptyCheckMap = new LinkedHashMap<>();
+        // Graphs built at basic block granularity hold blocks in place of units.
+        controlFlowGraphEmptyCheckMap.put("units", cfgComposition.getUnit() + cfgComposition.getBlock());
+        controlFlowGraphEmptyCheckMap.put("standard methods", cfgComposition.getMethod());
+        controlFlowGraphEmptyCheckMap.put("lifecycle methods", cfgComposition.getLifecycle());
+        controlFlowGraphEmptyCheckMap.put("controls", cfgComposition.getControl());
+        controlFlowGraphEmptyCheckMap.forEach((key, value) -> {
+            if (value == 0) {
+                problems.add("Control flow graph contains no " + key + ".");
+            }
+        });
+
+        if (cfgComposition.getVertex() != (cfgComposition.getUnit() + cfgComposition.getBlock() +
+                cfgComposition.getMethod() + cfgComposition.getCallback() + cfgComposition.getListener() +
+                cfgComposition.getLifecycle() + cfgComposition.getDummy() + cfgComposition.getControl())) {
+            problems.add("Control flow graph vertex type counts do not match total vertex count.");
+        }
+
+        if (controlCount != cfgComposition.getControl()) {
+            problems.add("Control flow graph does not contain all the found controls.");
+        }
+
+        Map<String, Pair<Integer, Integer>> cfgCountCheckMap = new LinkedHashMap<>();
+        cfgCountCheckMap.put("Dummy", new Pair<>(cgComposition.getDummy(), cfgComposition.getDummy()));
+        cfgCountCheckMap.put("Lifecycle", new Pair<>(cgComposition.getLifecycle(), cfgComposition.getLifecycle()));
+        cfgCountCheckMap.put("Callback", new Pair<>(cgComposition.getCallback(), cfgComposition.getCallback()));
+        cfgCountCheckMap.put("Method", new Pair<>(cgComposition.getMethod(), cfgComposition.getMethod()));
+        cfgCountCheckMap.put("Listener", new Pair<>(cgComposition.getListener(), cfgComposition.getListener()));
+        cfgCountCheckMap.forEach((key, value) -> {
+            if (!value.getLeft().equals(value.getRight())) {
+                problems.add(key + " count does not match between control flow graph and call graph count.");
+            }
+        });
+
+        return problems;
+    }
+
+    private static boolean isInherited(SootMethod method) {
+        String subSignature = method.getSubSignature();
+        SootClass currentClass = method.getDeclaringClass();
+        while (currentClass.hasSuperclass()) {
+            currentClass = currentClass.getSuperclass();
+            if (currentClass.getMethodUnsafe(subSignature) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs every check. Scene state that may be resolved lazily (the classification table and FlowDroid's entry
+     * points) is read on the calling thread first, the checks themselves only read.
+     */
+    public VerificationReport verify(ClassificationTable classificationTable, Collection<SootClass> sceneClasses,
+            Collection<SootClass> entryPointClasses, Collection<SootClass> launchActivities) {
+        Timer timer = new Timer();
+        ForkJoinPool pool = AnalysisContext.v().newForkJoinPool();
+        LOGGER.info("Running verification checks on " + pool.getParallelism() + " thread(s)... (" +
+                timer.start(true) + ")");
+
+        List<SootClass> classes = new ArrayList<>(sceneClasses);
+        Map<Type, Integer> classifiedMethods = classificationTable.getTypeCounts();
+        try {
+            CompletableFuture<Collection<Control>> missingControls = CompletableFuture.supplyAsync(
+                    () -> GraphVerifier.findMissingControls(this.controlFlowGraph, this.controls), pool);
+            CompletableFuture<Collection<SootMethod>> missingMethods =
+                    CompletableFuture.supplyAsync(() -> this.findMissingMethods(classes), pool);
+            CompletableFuture<List<String>> compositionProblems = CompletableFuture.supplyAsync(() -> {
+                List<String> problems =
+                        GraphVerifier.checkScene(classes, classifiedMethods, entryPointClasses, launchActivities);
+                problems.addAll(GraphVerifier.checkComposition(new Composition(this.callGraph),
+                        new Composition(this.controlFlowGraph), classifiedMethods, this.controls.size()
+                                                              ));
+                return problems;
+            }, pool);
+            CompletableFuture<List<String>> duplicateSignatures = CompletableFuture.supplyAsync(
+                    () -> GraphVerifier.findDuplicateSignatures(this.controlFlowGraph), pool);
+
+            VerificationReport report = new VerificationReport(missingControls.join(), missingMethods.join(),
+                    compositionProblems.join(), duplicateSignatures.join()
+            );
+            LOGGER.info("(" + timer.end() + ") Verification checks took " + timer.secondsDuration() + " second(s).");
+            return report;
+        } catch (CompletionException e) {
+            throw new RuntimeException("Failed to verify control flow graph: " + e.getCause().getMessage(),
+                    e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static List<String> checkScene(List<SootClass> classes, Map<Type, Integer> classifiedMethods,
+            Collection<SootClass> entryPointClasses, Collection<SootClass> launchActivities) {
+        List<String> problems = new ArrayList<>();
+
+        Map<String, Boolean> classEmptyCheckMap = new LinkedHashMap<>();
+        classEmptyCheckMap.put("all classes", classes.isEmpty());
+        classEmptyCheckMap.put("filtered classes", classes.stream().noneMatch(Filter::isValidClass));
+        classEmptyCheckMap.put("entry point classes", entryPointClasses.isEmpty());
+        classEmptyCheckMap.put("launch activities", launchActivities.isEmpty());
+        classEmptyCheckMap.forEach((key, empty) -> {
+            if (empty) {
+                problems.add("No classes in " + key + ".");
+            }
+        });
+
+        Map<String, Boolean> methodEmptyCheckMap = new LinkedHashMap<>();
+        methodEmptyCheckMap.put("all methods", classes.stream().allMatch(clazz -> clazz.getMethods().isEmpty()));
+        methodEmptyCheckMap.put("filtered methods", classifiedMethods.isEmpty());
+        methodEmptyCheckMap.put("lifecycle methods", !classifiedMethods.containsKey(Type.LIFECYCLE));
+        methodEmptyCheckMap.put("standard methods", !classifiedMethods.containsKey(Type.METHOD));
+        methodEmptyCheckMap.forEach((key, empty) -> {
+            if (empty) {
+                problems.add("No methods in " + key + ".");
+            }
+        });
+
+        return problems;
+    }
+
+    private Collection<SootMethod> findMissingMethods(List<SootClass> classes) {
+        // Only methods without a vertex pay for the superclass walk, everything else is a single index lookup.
+        return classes.parallelStream().filter(Filter::isValidClass).flatMap(clazz -> clazz.getMethods().stream())
+                .filter(Filter::isValidMethod)
+                .filter(method -> this.vertexIndex.getMethodVertex(method.getSignature()) == null)
+                .filter(method -> !GraphVerifier.isInherited(method)).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,73 @@
+package phd.research.graph;
+
+import org.jetbrains.annotations.NotNull;
+import phd.research.Pair;
+import phd.research.utility.Filter;
+import phd.research.vertices.MethodVertex;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.toolkits.ide.icfg.JimpleBasedInterproceduralCFG;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The unit (or basic block) graph of a single method together with the valid callees of each of its call sites. The
+ * method's body must be loaded beforehand (loading a body changes Soot state), building an instance then only reads
+ * the body and the call graph, so instances can be built concurrently and merged into the control flow graph
+ * afterwards.
+ *
+ * @author Jordan Doyle
+ */
+
+public class MethodSubGraph {
+
+    @NotNull
+    private final MethodVertex methodVertex;
+    @NotNull
+    private final SootMethod method;
+    @NotNull
+    private final BodyGraph bodyGraph;
+    @NotNull
+    private final List<Pair<Unit, SootMethod>> calls;
+
+    public MethodSubGraph(MethodVertex methodVertex, SootMethod method, JimpleBasedInterproceduralCFG jimpleCFG,
+            boolean basicBlocks) {
+        this.methodVertex = Objects.requireNonNull(methodVertex);
+        this.method = Objects.requireNonNull(method);
+        this.bodyGraph = BodyGraph.create(method.getActiveBody(), basicBlocks);
+        this.bodyGraph.getGraph();
+
+        this.calls = new ArrayList<>();
+        //TODO: Fix - jimpleCFG.getCalleesOfCallAt(caller) produces error 'method is referenced but has no body'
+        for (Unit caller : jimpleCFG.getCallsFromWithin(method)) {
+            for (SootMethod callee : jimpleCFG.getCalleesOfCallAt(caller)) {
+                if (Filter.isValidMethod(callee)) {
+                    this.calls.add(new Pair<>(caller, callee));
+                }
+            }
+        }
+    }
+
+    @NotNull
+    public MethodVertex getMethodVertex() {
+        return this.methodVertex;
+    }
+
+    @NotNull
+    public SootMethod getMethod() {
+        return this.method;
+    }
+
+    @NotNull
+    public BodyGraph getBodyGraph() {
+        return this.bodyGraph;
+    }
+
+    @NotNull
+    public Collection<Pair<Unit, SootMethod>> getCalls() {
+        return this.calls;
+    }
+}
@@ -0,0 +1,53 @@
+package phd.research.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.traverse.BreadthFirstIterator;
+import phd.research.vertices.*;
+import soot.Scene;
+import soot.SootClass;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Reachability of method vertices from the entry points of an app, used to skip the unit graphs of methods the app
+ * can never run. The entry points are every control, the dummy methods, the lifecycle methods of the launch activities,
+ * every method of FlowDroid's entry point classes and every listener (listeners are invoked by the framework, so the
+ * call graph has no edges into them).
+ *
+ * @author Jordan Doyle
+ */
+
+public class Reachability {
+
+    public static Set<Vertex> findEntryPoints(Graph<Vertex, ?> graph, Collection<SootClass> launchActivities,
+            Collection<SootClass> entryPointClasses) {
+        Set<String> launchClassNames = launchActivities.stream().map(SootClass::getName).collect(Collectors.toSet());
+        Set<String> entryClassNames = entryPointClasses.stream().map(SootClass::getName).collect(Collectors.toSet());
+
+        Set<Vertex> entryPoints = new LinkedHashSet<>();
+        for (Vertex vertex : graph.vertexSet()) {
+            if (vertex instanceof ControlVertex || vertex instanceof DummyVertex || vertex instanceof ListenerVertex) {
+                entryPoints.add(vertex);
+            } else if (vertex instanceof MethodVertex) {
+                String className = Scene.signatureToClass(((MethodVertex) vertex).getMethodSignature());
+                if (entryClassNames.contains(className) ||
+                        (vertex instanceof LifecycleVertex && launchClassNames.contains(className))) {
+                    entryPoints.add(vertex);
+                }
+            }
+        }
+        return entryPoints;
+    }
+
+    /**
+     * @return the vertices reachable from the entry points along the edges of the graph, the entry points included.
+     */
+    public static Set<Vertex> findReachable(Graph<Vertex, ?> graph, Collection<Vertex> entryPoints) {
+        Set<Vertex> reachable = new HashSet<>();
+        if (!entryPoints.isEmpty()) {
+            new BreadthFirstIterator<>(graph, entryPoints).forEachRemaining(reachable::add);
+        }
+        return reachable;
+    }
+}
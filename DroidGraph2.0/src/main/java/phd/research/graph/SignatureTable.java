@@ -0,0 +1,83 @@
+package phd.research.graph;
+
+import phd.research.singletons.AnalysisContext;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interns method signatures to dense int ids. Method and unit vertices hold the id of their signature rather than the
+ * signature itself, so each signature is kept once however many vertices (e.g. the units of a method) refer to it.
+ * There is one table per analysis context, shared by every graph generated or imported in it. Each vertex keeps a
+ * reference to the table it was interned in, so ids are only meaningful together with their table; graphs are always
+ * written out with the signatures themselves.
+ * <p>
+ * Interning is safe from several threads (unit graphs are built in parallel), lookups by id do not lock.
+ *
+ * @author Jordan Doyle
+ */
+
+public class SignatureTable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ConcurrentMap<String, Integer> ids;
+
+    private volatile String[] signatures;
+    private int size;
+
+    public SignatureTable() {
+        this.ids = new ConcurrentHashMap<>();
+        this.signatures = new String[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    public static SignatureTable v() {
+        return AnalysisContext.v().getSignatureTable();
+    }
+
+    /**
+     * @return the id of the signature, which is added to the table if it is not already in it.
+     */
+    public int intern(String signature) {
+        Integer id = this.ids.get(Objects.requireNonNull(signature));
+        return id != null ? id : this.add(signature);
+    }
+
+    private synchronized int add(String signature) {
+        Integer id = this.ids.get(signature);
+        if (id != null) {
+            return id;
+        }
+
+        if (this.size == this.signatures.length) {
+            this.signatures = Arrays.copyOf(this.signatures, this.size * 2);
+        }
+        this.signatures[this.size] = signature;
+        // Published last, a thread that finds the id also sees the signature.
+        this.ids.put(signature, this.size);
+        return this.size++;
+    }
+
+    /**
+     * @return the id of the signature, or -1 if the signature is not in the table.
+     */
+    public int getId(String signature) {
+        Integer id = signature != null ? this.ids.get(signature) : null;
+        return id != null ? id : -1;
+    }
+
+    public String getSignature(int id) {
+        String[] signatures = this.signatures;
+        if (id < 0 || id >= signatures.length || signatures[id] == null) {
+            throw new IllegalArgumentException("Unknown signature id: " + id);
+        }
+        return signatures[id];
+    }
+
+    public int size() {
+        return this.ids.size();
+    }
+}
@@ -9,16 +9,17 @@ import soot.Body;
 import soot.Unit;
 import soot.toolkits.graph.BriefUnitGraph;
 
-import java.util.Collection;
-import java.util.stream.Collectors;
+import java.util.*;
 
 /**
  * @author Jordan Doyle
  */
 
-public class UnitGraph extends BriefUnitGraph {
+public class UnitGraph extends BriefUnitGraph implements BodyGraph {
 
     private Graph<Vertex, DefaultEdge> graph;
+    private Map<Unit, UnitVertex> unitVertices;
+    private Collection<Vertex> roots;
 
     public UnitGraph(Body body) {
         super(body);
@@ -26,7 +27,7 @@ public class UnitGraph extends BriefUnitGraph {
 
     public Graph<Vertex, DefaultEdge> getGraph() {
         if (this.graph == null) {
-            this.graph = generateGraph();
+            this.generateGraph();
         }
 
         return this.graph;
@@ -34,51 +35,56 @@ public class UnitGraph extends BriefUnitGraph {
 
     public Collection<Vertex> getRoots() {
         if (this.graph == null) {
-            this.graph = generateGraph();
+            this.generateGraph();
         }
 
-        return this.graph.vertexSet().stream().filter(v -> this.graph.inDegreeOf(v) == 0).collect(Collectors.toSet());
+        return this.roots;
     }
 
-    private Graph<Vertex, DefaultEdge> generateGraph() {
+    public UnitVertex getUnitVertex(Unit unit) {
+        if (this.graph == null) {
+            this.generateGraph();
+        }
+
+        return this.unitVertices.get(unit);
+    }
+
+    @Override
+    public UnitVertex getVertex(Unit unit) {
+        return this.getUnitVertex(unit);
+    }
+
+    private void generateGraph() {
         Graph<Vertex, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        int signatureId = SignatureTable.v().intern(super.method.getSignature());
+        UnitTextPool textPool = UnitTextPool.v();
 
+        // Units are interned in chain order. Units with the same Jimple text share an index, and so share a vertex.
+        Map<Unit, UnitVertex> unitVertices = new IdentityHashMap<>(super.unitChain.size());
+        Map<Integer, UnitVertex> indexVertices = new HashMap<>();
         for (Unit unit : super.unitChain) {
-            UnitVertex vertex = new UnitVertex(super.method.getSignature(), unit.toString());
-            boolean found = false;
-            for (Vertex v : graph.vertexSet()) {
-                UnitVertex unitVertex = (UnitVertex) v;
-                if (unitVertex.equals(vertex)) {
-                    vertex = unitVertex;
-                    found = true;
-                    break;
-                }
-            }
-
-            if (!found) {
-                graph.addVertex(vertex);
-            }
+            int unitIndex = textPool.intern(signatureId, unit.toString());
+            UnitVertex vertex = indexVertices.computeIfAbsent(unitIndex, index -> {
+                UnitVertex newVertex = new UnitVertex(signatureId, index);
+                graph.addVertex(newVertex);
+                return newVertex;
+            });
+            unitVertices.put(unit, vertex);
+        }
+        textPool.seal(signatureId);
 
+        for (Unit unit : super.unitChain) {
+            UnitVertex vertex = unitVertices.get(unit);
             for (Unit nextUnit : super.getSuccsOf(unit)) {
-                UnitVertex nextVertex = new UnitVertex(super.method.getSignature(), nextUnit.toString());
-                found = false;
-                for (Vertex v : graph.vertexSet()) {
-                    UnitVertex unitVertex = (UnitVertex) v;
-                    if (unitVertex.equals(nextVertex)) {
-                        nextVertex = unitVertex;
-                        found = true;
-                        break;
-                    }
-                }
-
-                if (!found) {
-                    graph.addVertex(nextVertex);
-                }
-
-                graph.addEdge(vertex, nextVertex);
+                graph.addEdge(vertex, unitVertices.get(nextUnit));
             }
         }
 
-        return graph;
+        Set<Vertex> roots = new LinkedHashSet<>();
+        graph.vertexSet().stream().filter(v -> graph.inDegreeOf(v) == 0).forEach(roots::add);
+
+        this.unitVertices = unitVertices;
+        this.roots = Collections.unmodifiableSet(roots);
+        this.graph = graph;
     }
 }
\ No newline at end of file
@@ -0,0 +1,323 @@
+package phd.research.graph;
+
+import phd.research.singletons.AnalysisContext;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The Jimple text of every unit vertex, pooled per method. A unit is identified by the id of its method's signature
+ * (see {@link SignatureTable}) and its index within the method: the position of its text among the method's distinct
+ * unit texts, in the order they were interned. Unit graphs intern their units in {@code PatchingChain} order, so the
+ * index is the unit's ordinal in the body with units sharing a text (which share a vertex) counted once.
+ * <p>
+ * While a method's units are being interned its texts are held as UTF-8 bytes with a hash table over them. Once the
+ * method is {@link #seal(int) sealed} (when its unit graph is built, or when a graph has been imported) the texts are
+ * deflated into one block per method and only their hashes and end offsets are kept. The units of a method share
+ * their locals, types and signatures, so a block is several times smaller than its texts. A text is decoded into a
+ * new {@link String} each time it is asked for (for export, {@code getAttributes()} or {@code toString()}). The most
+ * recently inflated block is kept, so reading the texts of a method one after another inflates its block once.
+ * Interning a new text into a sealed method opens it again.
+ * <p>
+ * Like the signature table, there is one pool per analysis context and indexes are only meaningful within it.
+ *
+ * @author Jordan Doyle
+ */
+
+public class UnitTextPool {
+
+    private final ConcurrentMap<Integer, MethodTexts> methods;
+    private volatile Inflated lastInflated;
+
+    public UnitTextPool() {
+        this.methods = new ConcurrentHashMap<>();
+    }
+
+    public static UnitTextPool v() {
+        return AnalysisContext.v().getUnitTextPool();
+    }
+
+    /**
+     * @return the index of the text within the method, which is added to the pool if it is not already in it.
+     */
+    public int intern(int signatureId, String text) {
+        byte[] bytes = Objects.requireNonNull(text).getBytes(StandardCharsets.UTF_8);
+        return this.methods.computeIfAbsent(signatureId, id -> new MethodTexts()).intern(bytes);
+    }
+
+    /**
+     * @return the index of the text within the method, or -1 if the text is not in the pool.
+     */
+    public int getIndex(int signatureId, String text) {
+        MethodTexts texts = this.methods.get(signatureId);
+        return texts != null && text != null ? texts.getIndex(text.getBytes(StandardCharsets.UTF_8)) : -1;
+    }
+
+    public String getText(int signatureId, int index) {
+        MethodTexts texts = this.methods.get(signatureId);
+        String text = texts != null ? texts.get(index) : null;
+        if (text == null) {
+            throw new IllegalArgumentException("Unknown unit " + index + " of signature id " + signatureId + ".");
+        }
+        return text;
+    }
+
+    /**
+     * Compresses the texts of the method, called once all of its units have been interned.
+     */
+    public void seal(int signatureId) {
+        MethodTexts texts = this.methods.get(signatureId);
+        if (texts != null) {
+            texts.seal();
+        }
+    }
+
+    public void sealAll() {
+        this.methods.values().forEach(MethodTexts::seal);
+    }
+
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) * 0x9E3779B9;
+    }
+
+    private static boolean regionEquals(byte[] data, int start, int end, byte[] bytes) {
+        if (end - start != bytes.length) {
+            return false;
+        }
+
+        for (int i = 0; i < bytes.length; i++) {
+            if (data[start + i] != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] deflate(byte[] data, int length) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(16, length / 4));
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // The block is the inflated texts of the method, the last one inflated is kept for the next lookup.
+    private byte[] inflate(byte[] compressed, int length) {
+        Inflated inflated = this.lastInflated;
+        if (inflated != null && inflated.compressed == compressed) {
+            return inflated.data;
+        }
+
+        Inflater inflater = new Inflater();
+        byte[] data = new byte[length];
+        try {
+            inflater.setInput(compressed);
+            int offset = 0;
+            while (offset < length) {
+                int read = inflater.inflate(data, offset, length - offset);
+                if (read == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IllegalStateException("Unit text block ended after " + offset + " of " + length +
+                            " bytes.");
+                }
+                offset += read;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt unit text block: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+
+        this.lastInflated = new Inflated(compressed, data);
+        return data;
+    }
+
+    private static class Inflated {
+
+        private final byte[] compressed;
+        private final byte[] data;
+
+        private Inflated(byte[] compressed, byte[] data) {
+            this.compressed = compressed;
+            this.data = data;
+        }
+    }
+
+    // A method's units are interned by the one thread building its unit graph, so these locks are rarely contended.
+    // While open, the texts are found through an open addressing table of their indexes (plus one, zero being an empty
+    // slot) with linear probing. Once sealed, the texts are one deflated block, the end offset of each text in the
+    // inflated block and the hashes of the texts, which are scanned for lookups.
+    private class MethodTexts {
+
+        private int size;
+        private int[] hashes;
+
+        private byte[][] texts;
+        private int[] slots;
+
+        private byte[] compressed;
+        private int[] ends;
+
+        private MethodTexts() {
+            this.hashes = new int[4];
+            this.texts = new byte[4][];
+            this.slots = new int[8];
+        }
+
+        private boolean isSealed() {
+            return this.compressed != null;
+        }
+
+        private synchronized int intern(byte[] bytes) {
+            int hash = Arrays.hashCode(bytes);
+            if (this.isSealed()) {
+                int index = this.findSealed(bytes, hash);
+                if (index != -1) {
+                    return index;
+                }
+                this.open();
+            }
+
+            int slot = this.find(bytes, hash);
+            if (this.slots[slot] != 0) {
+                return this.slots[slot] - 1;
+            }
+
+            int index = this.size++;
+            if (index == this.texts.length) {
+                this.texts = Arrays.copyOf(this.texts, index * 2);
+                this.hashes = Arrays.copyOf(this.hashes, index * 2);
+            }
+            this.texts[index] = bytes;
+            this.hashes[index] = hash;
+            this.slots[slot] = index + 1;
+
+            // Keep the table at most half full so probe runs stay short.
+            if (this.size * 2 > this.slots.length) {
+                this.resize();
+            }
+            return index;
+        }
+
+        private synchronized int getIndex(byte[] bytes) {
+            int hash = Arrays.hashCode(bytes);
+            return this.isSealed() ? this.findSealed(bytes, hash) : this.slots[this.find(bytes, hash)] - 1;
+        }
+
+        private synchronized String get(int index) {
+            if (index < 0 || index >= this.size) {
+                return null;
+            }
+
+            if (!this.isSealed()) {
+                return new String(this.texts[index], StandardCharsets.UTF_8);
+            }
+
+            int start = index == 0 ? 0 : this.ends[index - 1];
+            return new String(this.inflateTexts(), start, this.ends[index] - start, StandardCharsets.UTF_8);
+        }
+
+        private synchronized void seal() {
+            if (this.isSealed() || this.size == 0) {
+                return;
+            }
+
+            int[] ends = new int[this.size];
+            int length = 0;
+            for (int index = 0; index < this.size; index++) {
+                length += this.texts[index].length;
+                ends[index] = length;
+            }
+            byte[] data = new byte[length];
+            for (int index = 0; index < this.size; index++) {
+                byte[] text = this.texts[index];
+                System.arraycopy(text, 0, data, ends[index] - text.length, text.length);
+            }
+
+            this.compressed = UnitTextPool.deflate(data, length);
+            this.ends = ends;
+            this.hashes = Arrays.copyOf(this.hashes, this.size);
+            this.texts = null;
+            this.slots = null;
+        }
+
+        // Back to the open form, so new texts can be interned.
+        private void open() {
+            byte[] data = this.inflateTexts();
+            int capacity = Integer.highestOneBit(Math.max(4, this.size)) * 2;
+            this.texts = new byte[capacity][];
+            for (int index = 0; index < this.size; index++) {
+                int start = index == 0 ? 0 : this.ends[index - 1];
+                this.texts[index] = Arrays.copyOfRange(data, start, this.ends[index]);
+            }
+            this.hashes = Arrays.copyOf(this.hashes, capacity);
+            this.slots = new int[capacity * 2];
+            this.compressed = null;
+            this.ends = null;
+            this.rehash();
+        }
+
+        private byte[] inflateTexts() {
+            return UnitTextPool.this.inflate(this.compressed, this.ends[this.size - 1]);
+        }
+
+        private int findSealed(byte[] bytes, int hash) {
+            byte[] data = null;
+            for (int index = 0; index < this.size; index++) {
+                if (this.hashes[index] != hash) {
+                    continue;
+                }
+
+                data = data != null ? data : this.inflateTexts();
+                int start = index == 0 ? 0 : this.ends[index - 1];
+                if (UnitTextPool.regionEquals(data, start, this.ends[index], bytes)) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        // The slot holding the text, or the empty slot it would be put in.
+        private int find(byte[] bytes, int hash) {
+            int mask = this.slots.length - 1;
+            int slot = UnitTextPool.spread(hash) & mask;
+            while (this.slots[slot] != 0) {
+                int index = this.slots[slot] - 1;
+                if (this.hashes[index] == hash && Arrays.equals(this.texts[index], bytes)) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void resize() {
+            this.slots = new int[this.slots.length * 2];
+            this.rehash();
+        }
+
+        private void rehash() {
+            int mask = this.slots.length - 1;
+            for (int index = 0; index < this.size; index++) {
+                int slot = UnitTextPool.spread(this.hashes[index]) & mask;
+                while (this.slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                this.slots[slot] = index + 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package phd.research.graph;
+
+import phd.research.StringTable;
+import soot.SootMethod;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of verifying a control flow graph. Each collection holds the findings of one independent check in
+ * {@link GraphVerifier}, an empty collection means that check passed.
+ *
+ * @author Jordan Doyle
+ */
+
+public class VerificationReport {
+
+    private final Collection<Control> missingControls;
+    private final Collection<SootMethod> missingMethods;
+    private final List<String> compositionProblems;
+    private final List<String> duplicateSignatures;
+
+    public VerificationReport(Collection<Control> missingControls, Collection<SootMethod> missingMethods,
+            List<String> compositionProblems, List<String> duplicateSignatures) {
+        this.missingControls = Collections.unmodifiableCollection(missingControls);
+        this.missingMethods = Collections.unmodifiableCollection(missingMethods);
+        this.compositionProblems = Collections.unmodifiableList(compositionProblems);
+        this.duplicateSignatures = Collections.unmodifiableList(duplicateSignatures);
+    }
+
+    public Collection<Control> getMissingControls() {
+        return this.missingControls;
+    }
+
+    public Collection<SootMethod> getMissingMethods() {
+        return this.missingMethods;
+    }
+
+    public List<String> getCompositionProblems() {
+        return this.compositionProblems;
+    }
+
+    public List<String> getDuplicateSignatures() {
+        return this.duplicateSignatures;
+    }
+
+    public int getProblemCount() {
+        return this.missingControls.size() + this.missingMethods.size() + this.compositionProblems.size() +
+                this.duplicateSignatures.size();
+    }
+
+    public boolean hasProblems() {
+        return this.getProblemCount() != 0;
+    }
+
+    public String toTableString() {
+        String[][] data = new String[][]{{"CHECK", "PROBLEMS"},
+                {"Missing Controls", String.valueOf(this.missingControls.size())},
+                {"Missing Methods", String.valueOf(this.missingMethods.size())},
+                {"Composition", String.valueOf(this.compositionProblems.size())},
+                {"Duplicate Signatures", String.valueOf(this.duplicateSignatures.size())}};
+
+        return StringTable.tableWithLines(data, true);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{missingControls=" + this.missingControls.size() + ", missingMethods=" +
+                this.missingMethods.size() + ", compositionProblems=" + this.compositionProblems.size() +
+                ", duplicateSignatures=" + this.duplicateSignatures.size() + "}";
+    }
+}
@@ -0,0 +1,199 @@
+package phd.research.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.ListenableGraph;
+import org.jgrapht.event.GraphVertexChangeEvent;
+import org.jgrapht.event.VertexSetListener;
+import phd.research.enums.Type;
+import phd.research.vertices.BlockVertex;
+import phd.research.vertices.ControlVertex;
+import phd.research.vertices.MethodVertex;
+import phd.research.vertices.UnitVertex;
+import phd.research.vertices.Vertex;
+
+import java.util.*;
+
+/**
+ * Hash index over the vertices of a control flow graph. Lookups are keyed by method signature, by (method signature,
+ * unit), for both unit vertices and the block vertices holding the unit, and by (activity, control id/name),
+ * signatures and units being keyed by their ids in the {@link SignatureTable} and {@link UnitTextPool} of the context
+ * the index was created in. Vertices only hold these ids, so every vertex indexed must have been created in the same
+ * context as the index (as the vertices of a {@code DroidGraph} are). When registered on a
+ * {@link ListenableGraph} the index follows every vertex added to or removed from the graph. Where several vertices
+ * share a key, the first one added is returned.
+ * <p>
+ * The index also counts the vertices of each type and keeps the vertices of every type but units and blocks, the
+ * bulk of the graph, so visits to controls and methods can be counted without walking the whole graph.
+ *
+ * @author Jordan Doyle
+ */
+
+public class VertexIndex implements VertexSetListener<Vertex> {
+
+    private final SignatureTable signatureTable;
+    private final UnitTextPool unitTextPool;
+    private final Map<Integer, MethodVertex> methodVertices;
+    private final Map<Long, UnitVertex> unitVertices;
+    private final Map<Long, BlockVertex> blockVertices;
+    private final Map<String, Map<Integer, ControlVertex>> controlVerticesById;
+    private final Map<String, Map<String, ControlVertex>> controlVerticesByName;
+    private final int[] typeCounts;
+    private final Map<Type, Set<Vertex>> verticesByType;
+
+    public VertexIndex() {
+        this.signatureTable = SignatureTable.v();
+        this.unitTextPool = UnitTextPool.v();
+        this.methodVertices = new HashMap<>();
+        this.unitVertices = new HashMap<>();
+        this.blockVertices = new HashMap<>();
+        this.controlVerticesById = new HashMap<>();
+        this.controlVerticesByName = new HashMap<>();
+        this.typeCounts = new int[Type.values().length];
+        this.verticesByType = new EnumMap<>(Type.class);
+    }
+
+    public VertexIndex(Graph<Vertex, ?> graph) {
+        this();
+        graph.vertexSet().forEach(this::add);
+    }
+
+    public static <E> VertexIndex attach(ListenableGraph<Vertex, E> graph) {
+        VertexIndex index = new VertexIndex(graph);
+        graph.addVertexSetListener(index);
+        return index;
+    }
+
+    private static long unitKey(int signatureId, int unitIndex) {
+        return ((long) signatureId << 32) | (unitIndex & 0xFFFFFFFFL);
+    }
+
+    private static long unitKey(UnitVertex vertex) {
+        return VertexIndex.unitKey(vertex.getSignatureId(), vertex.getUnitIndex());
+    }
+
+    private static boolean isTypeIndexed(Type type) {
+        return type != Type.UNIT && type != Type.BLOCK;
+    }
+
+    private static <K, V> void removeIfMapped(Map<K, V> map, K key, V value) {
+        if (map != null && map.get(key) == value) {
+            map.remove(key);
+        }
+    }
+
+    public MethodVertex getMethodVertex(String methodSignature) {
+        return this.methodVertices.get(this.signatureTable.getId(methodSignature));
+    }
+
+    public UnitVertex getUnitVertex(String methodSignature, String unit) {
+        long key = this.getUnitKey(methodSignature, unit);
+        return key != -1 ? this.unitVertices.get(key) : null;
+    }
+
+    public BlockVertex getBlockVertex(String methodSignature, String unit) {
+        long key = this.getUnitKey(methodSignature, unit);
+        return key != -1 ? this.blockVertices.get(key) : null;
+    }
+
+    private long getUnitKey(String methodSignature, String unit) {
+        int signatureId = this.signatureTable.getId(methodSignature);
+        int unitIndex = signatureId != -1 ? this.unitTextPool.getIndex(signatureId, unit) : -1;
+        return unitIndex != -1 ? VertexIndex.unitKey(signatureId, unitIndex) : -1;
+    }
+
+    public ControlVertex getControlVertex(String activity, int controlId) {
+        Map<Integer, ControlVertex> controls = this.controlVerticesById.get(activity);
+        return controls != null ? controls.get(controlId) : null;
+    }
+
+    public ControlVertex getControlVertex(String activity, String controlName) {
+        Map<String, ControlVertex> controls = this.controlVerticesByName.get(activity);
+        return controls != null ? controls.get(controlName) : null;
+    }
+
+    public int countVertices(Type type) {
+        return this.typeCounts[type.ordinal()];
+    }
+
+    /**
+     * @return the number of vertices of the type that have been visited, for any type but units and blocks.
+     */
+    public int countVisited(Type type) {
+        if (!VertexIndex.isTypeIndexed(type)) {
+            throw new IllegalArgumentException("Visits are not indexed for " + type + " vertices.");
+        }
+
+        Set<Vertex> vertices = this.verticesByType.get(type);
+        return vertices != null ? (int) vertices.stream().filter(Vertex::hasVisit).count() : 0;
+    }
+
+    public void add(Vertex vertex) {
+        this.typeCounts[vertex.getType().ordinal()]++;
+        if (VertexIndex.isTypeIndexed(vertex.getType())) {
+            this.verticesByType.computeIfAbsent(vertex.getType(), k -> new HashSet<>()).add(vertex);
+        }
+
+        if (vertex instanceof MethodVertex) {
+            MethodVertex methodVertex = (MethodVertex) vertex;
+            this.methodVertices.putIfAbsent(methodVertex.getSignatureId(), methodVertex);
+        } else if (vertex instanceof UnitVertex) {
+            UnitVertex unitVertex = (UnitVertex) vertex;
+            this.unitVertices.putIfAbsent(VertexIndex.unitKey(unitVertex), unitVertex);
+        } else if (vertex instanceof BlockVertex) {
+            BlockVertex blockVertex = (BlockVertex) vertex;
+            int signatureId = blockVertex.getSignatureId();
+            for (int unitIndex : blockVertex.getUnitIndices()) {
+                this.blockVertices.putIfAbsent(VertexIndex.unitKey(signatureId, unitIndex), blockVertex);
+            }
+        } else if (vertex instanceof ControlVertex) {
+            ControlVertex controlVertex = (ControlVertex) vertex;
+            Control control = controlVertex.getControl();
+            this.controlVerticesById.computeIfAbsent(control.getActivity(), k -> new HashMap<>())
+                    .putIfAbsent(control.getControlId(), controlVertex);
+            this.controlVerticesByName.computeIfAbsent(control.getActivity(), k -> new HashMap<>())
+                    .putIfAbsent(control.getControlName(), controlVertex);
+        }
+    }
+
+    public void remove(Vertex vertex) {
+        this.typeCounts[vertex.getType().ordinal()]--;
+        Set<Vertex> vertices = this.verticesByType.get(vertex.getType());
+        if (vertices != null) {
+            vertices.remove(vertex);
+        }
+
+        if (vertex instanceof MethodVertex) {
+            MethodVertex methodVertex = (MethodVertex) vertex;
+            VertexIndex.removeIfMapped(this.methodVertices, methodVertex.getSignatureId(), methodVertex);
+        } else if (vertex instanceof UnitVertex) {
+            UnitVertex unitVertex = (UnitVertex) vertex;
+            VertexIndex.removeIfMapped(this.unitVertices, VertexIndex.unitKey(unitVertex), unitVertex);
+        } else if (vertex instanceof BlockVertex) {
+            BlockVertex blockVertex = (BlockVertex) vertex;
+            int signatureId = blockVertex.getSignatureId();
+            for (int unitIndex : blockVertex.getUnitIndices()) {
+                long key = VertexIndex.unitKey(signatureId, unitIndex);
+                VertexIndex.removeIfMapped(this.blockVertices, key, blockVertex);
+            }
+        } else if (vertex instanceof ControlVertex) {
+            ControlVertex controlVertex = (ControlVertex) vertex;
+            Control control = controlVertex.getControl();
+            VertexIndex.removeIfMapped(this.controlVerticesById.get(control.getActivity()), control.getControlId(),
+                    controlVertex
+                                      );
+            VertexIndex.removeIfMapped(this.controlVerticesByName.get(control.getActivity()),
+                    control.getControlName(), controlVertex
+                                      );
+        }
+    }
+
+    @Override
+    public void vertexAdded(GraphVertexChangeEvent<Vertex> event) {
+        this.add(event.getVertex());
+    }
+
+    @Override
+    public void vertexRemoved(GraphVertexChangeEvent<Vertex> event) {
+        this.remove(event.getVertex());
+    }
+}
@@ -0,0 +1,210 @@
+package phd.research.helper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xmlpull.v1.XmlPullParserException;
+import phd.research.Timer;
+import phd.research.singletons.AnalysisContext;
+import soot.jimple.infoflow.android.manifest.ProcessManifest;
+import soot.jimple.infoflow.android.resources.ARSCFileParser;
+import soot.jimple.infoflow.android.resources.IResourceHandler;
+import soot.jimple.infoflow.android.resources.LayoutFileParser;
+import soot.jimple.infoflow.android.resources.controls.LayoutControlFactory;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * All the resources of an APK read in a single pass over the archive: the manifest and the ARSC table are parsed
+ * once (the manifest shares the ARSC table rather than parsing its own), and the layout and menu XML files are
+ * decompressed in parallel and kept in memory. The layout and menu parsers are built from the kept files the first
+ * time they are requested and then cached, so the APK is never reopened.
+ *
+ * @author Jordan Doyle
+ */
+
+public class ApkResourceIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ApkResourceIndex.class);
+
+    private static final String MANIFEST_FILE_NAME = "AndroidManifest.xml";
+    private static final String RESOURCES_FILE_NAME = "resources.arsc";
+
+    private final File apkFile;
+    private final ProcessManifest manifest;
+    private final ARSCFileParser resources;
+    private final Map<String, byte[]> resourceFiles;
+
+    private LayoutFileParser layoutParser;
+    private MenuFileParser menuParser;
+
+    public ApkResourceIndex(File apkFile) throws IOException, XmlPullParserException {
+        Timer timer = new Timer();
+        LOGGER.info("Indexing APK resources... (" + timer.start(true) + ")");
+
+        this.apkFile = apkFile;
+        // ZipFile reads the central directory once (memory mapped by the JDK), entries are then read independently.
+        try (ZipFile archive = new ZipFile(apkFile)) {
+            this.resources = new ARSCFileParser();
+            try (InputStream stream = ApkResourceIndex.getEntryStream(archive, RESOURCES_FILE_NAME)) {
+                this.resources.parse(stream);
+            }
+
+            try (InputStream stream = ApkResourceIndex.getEntryStream(archive, MANIFEST_FILE_NAME)) {
+                this.manifest = new ProcessManifest(stream, this.resources);
+            }
+
+            this.resourceFiles = ApkResourceIndex.readResourceFiles(archive);
+        }
+
+        LOGGER.info("(" + timer.end() + ") Indexing " + this.resourceFiles.size() + " layout and menu file(s) took " +
+                timer.secondsDuration() + " second(s).");
+    }
+
+    public static boolean isIndexedResourceFile(String fileName) {
+        return (fileName.startsWith("res/layout") || fileName.startsWith("res/menu")) && fileName.endsWith(".xml");
+    }
+
+    private static InputStream getEntryStream(ZipFile archive, String name) throws IOException {
+        ZipEntry entry = archive.getEntry(name);
+        if (entry == null) {
+            throw new FileNotFoundException("APK does not contain " + name + ".");
+        }
+        return archive.getInputStream(entry);
+    }
+
+    // Entries keep their archive order, so the parsers see the files in the same order as when reading the APK.
+    private static Map<String, byte[]> readResourceFiles(ZipFile archive) throws IOException {
+        List<ZipEntry> entries = archive.stream().filter(entry -> !entry.isDirectory())
+                .filter(entry -> ApkResourceIndex.isIndexedResourceFile(entry.getName()))
+                .collect(Collectors.toList());
+
+        Map<String, byte[]> contents;
+        try {
+            contents = entries.parallelStream().collect(Collectors.toConcurrentMap(ZipEntry::getName, entry -> {
+                try (InputStream stream = archive.getInputStream(entry)) {
+                    return ApkResourceIndex.readFully(stream);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        Map<String, byte[]> resourceFiles = new LinkedHashMap<>();
+        entries.forEach(entry -> resourceFiles.put(entry.getName(), contents.get(entry.getName())));
+        return resourceFiles;
+    }
+
+    private static byte[] readFully(InputStream stream) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+
+    private static LayoutControlFactory createControlFactory() {
+        LayoutControlFactory controlFactory = new DroidControlFactory();
+        controlFactory.setLoadAdditionalAttributes(true);
+        return controlFactory;
+    }
+
+    public ProcessManifest getManifest() {
+        return this.manifest;
+    }
+
+    public ARSCFileParser getResources() {
+        return this.resources;
+    }
+
+    public Set<String> getResourceFileNames() {
+        return Collections.unmodifiableSet(this.resourceFiles.keySet());
+    }
+
+    /**
+     * @return the layout parser for the APK, parsed on the first call. The parser resolves view classes in the Scene,
+     * so Soot must be initialised first.
+     */
+    public synchronized LayoutFileParser getLayoutFileParser() {
+        if (this.layoutParser == null) {
+            LayoutFileParser layoutParser = new IndexedLayoutFileParser(this.manifest.getPackageName(), this.resources);
+            layoutParser.setControlFactory(ApkResourceIndex.createControlFactory());
+            layoutParser.parseLayoutFileDirect(this.apkFile.getAbsolutePath());
+            this.layoutParser = layoutParser;
+        }
+        return this.layoutParser;
+    }
+
+    /**
+     * @return the menu parser for the APK, parsed on the first call. Menu files are decoded in parallel, on threads
+     * bound to the calling thread's analysis context.
+     */
+    public synchronized MenuFileParser getMenuFileParser() {
+        if (this.menuParser == null) {
+            MenuFileParser menuParser = new IndexedMenuFileParser();
+            menuParser.setControlFactory(ApkResourceIndex.createControlFactory());
+            menuParser.parseLayoutFileDirect(this.manifest.getPackageName(), this.apkFile.getAbsolutePath());
+            this.menuParser = menuParser;
+        }
+        return this.menuParser;
+    }
+
+    /**
+     * Drops the cached parsers, which hold classes of the Scene they were built in.
+     */
+    public synchronized void clearParsers() {
+        this.layoutParser = null;
+        this.menuParser = null;
+    }
+
+    private void handleResourceFiles(Set<String> fileNameFilter, IResourceHandler handler) {
+        this.resourceFiles.forEach((fileName, content) ->
+                handler.handleResourceFile(fileName, fileNameFilter, new ByteArrayInputStream(content)));
+    }
+
+    private void handleResourceFilesInParallel(Set<String> fileNameFilter, IResourceHandler handler) {
+        ForkJoinPool pool = AnalysisContext.v().newForkJoinPool();
+        try {
+            pool.submit(() -> this.resourceFiles.entrySet().parallelStream().forEach(entry ->
+                    handler.handleResourceFile(entry.getKey(), fileNameFilter,
+                            new ByteArrayInputStream(entry.getValue())
+                                              ))).get();
+        } catch (InterruptedException e) {
+            throw new RuntimeException("Failed to parse menu files: " + e.getMessage(), e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to parse menu files: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // FlowDroid's layout handler is not thread safe, so layouts are decoded one at a time from memory.
+    private class IndexedLayoutFileParser extends LayoutFileParser {
+
+        private IndexedLayoutFileParser(String packageName, ARSCFileParser resources) {
+            super(packageName, resources);
+        }
+
+        @Override
+        protected void handleAndroidResourceFiles(String apk, Set<String> fileNameFilter, IResourceHandler handler) {
+            ApkResourceIndex.this.handleResourceFiles(fileNameFilter, handler);
+        }
+    }
+
+    private class IndexedMenuFileParser extends MenuFileParser {
+
+        @Override
+        protected void handleAndroidResourceFiles(String apk, Set<String> fileNameFilter, IResourceHandler handler) {
+            ApkResourceIndex.this.handleResourceFilesInParallel(fileNameFilter, handler);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package phd.research.helper;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import phd.research.StringTable;
+import phd.research.Timer;
+import phd.research.enums.Outcome;
+import phd.research.graph.Composition;
+import phd.research.main.FrameworkMain;
+import phd.research.singletons.AnalysisContext;
+import phd.research.utility.Importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Runs {@link FrameworkMain} for a batch of APKs, each either in its own child JVM or, in process, on its own thread
+ * with its own {@link AnalysisContext}. Child JVMs isolate crashes and can always be stopped at the time limit, the in
+ * process mode shares one heap and one JIT across the batch. The inputs and outputs follow the layout used by the test
+ * scripts: the call graph of an app is read from {@code <output>/<app>/AndroGuard/<app>.gml} and its results are
+ * written to {@code <output>/<app>/Droid_Graph}.
+ *
+ * @author Jordan Doyle
+ */
+
+public class BatchRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchRunner.class);
+
+    private static final String CONTROL_FLOW_GRAPH_NAME = "app_control_flow_graph";
+    private static final long GIGABYTE = 1024L * 1024L * 1024L;
+
+    private final File outputDirectory;
+    private final List<String> arguments;
+    private final int jobs;
+    private final int heapGigabytes;
+    private final long timeoutMinutes;
+    private final int retries;
+    private final boolean inProcess;
+
+    public BatchRunner(File outputDirectory, List<String> arguments, int jobs, int heapGigabytes, long timeoutMinutes,
+            int retries, boolean inProcess) {
+        this.outputDirectory = outputDirectory;
+        this.arguments = new ArrayList<>(arguments);
+        this.jobs = Math.max(1, jobs);
+        this.heapGigabytes = heapGigabytes;
+        this.timeoutMinutes = timeoutMinutes;
+        this.retries = Math.max(0, retries);
+        this.inProcess = inProcess;
+    }
+
+    /**
+     * @return the number of child JVMs that fit on this machine, one per processor as long as each can be given the
+     * requested heap.
+     */
+    public static int defaultPoolSize(int heapGigabytes) {
+        long physicalMemory = Long.MAX_VALUE;
+        OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+            physicalMemory = ((com.sun.management.OperatingSystemMXBean) bean).getTotalPhysicalMemorySize();
+        }
+        return BatchRunner.poolSize(Runtime.getRuntime().availableProcessors(), physicalMemory,
+                heapGigabytes * GIGABYTE
+                                   );
+    }
+
+    /**
+     * @return the number of apps that fit in this JVM, one per processor as long as each can be given the requested
+     * share of the maximum heap.
+     */
+    public static int inProcessPoolSize(int heapGigabytes) {
+        return BatchRunner.poolSize(Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().maxMemory(),
+                heapGigabytes * GIGABYTE
+                                   );
+    }
+
+    public static int poolSize(int processors, long physicalMemory, long heapPerJob) {
+        long memoryBound = heapPerJob > 0 ? physicalMemory / heapPerJob : processors;
+        return (int) Math.max(1, Math.min(processors, memoryBound));
+    }
+
+    public static String getAppName(File apkFile) {
+        String name = apkFile.getName();
+        return name.endsWith(".apk") ? name.substring(0, name.length() - ".apk".length()) : name;
+    }
+
+    public static String toTableString(List<Result> results) {
+        String[][] data = new String[results.size() + 1][];
+        data[0] = new String[]{"APP", "OUTCOME", "ATTEMPTS", "SECONDS", "VERTEX", "EDGE", "CONTROL", "LIFECYCLE",
+                "LISTENER", "CALLBACK", "METHOD", "UNIT"};
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            Composition c = result.getComposition();
+            data[i + 1] = c == null ? new String[]{result.getApp(), result.getOutcome().name(),
+                    String.valueOf(result.getAttempts()), String.valueOf(result.getSeconds()), "-", "-", "-", "-", "-",
+                    "-", "-", "-"} : new String[]{result.getApp(), result.getOutcome().name(),
+                    String.valueOf(result.getAttempts()), String.valueOf(result.getSeconds()),
+                    String.valueOf(c.getVertex()), String.valueOf(c.getEdge()), String.valueOf(c.getControl()),
+                    String.valueOf(c.getLifecycle()), String.valueOf(c.getListener()),
+                    String.valueOf(c.getCallback()), String.valueOf(c.getMethod()), String.valueOf(c.getUnit())};
+        }
+        return StringTable.tableWithLines(data, true);
+    }
+
+    public List<Result> run(List<File> apkFiles) {
+        Timer timer = new Timer();
+        ExecutorService pool = Executors.newFixedThreadPool(this.jobs);
+        LOGGER.info("Analysing " + apkFiles.size() + " app(s) in " + this.jobs +
+                (this.inProcess ? " thread(s)" : " child JVM(s)") + "... (" + timer.start(true) + ")");
+
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (File apkFile : apkFiles) {
+                futures.add(pool.submit(() -> this.analyse(apkFile)));
+            }
+
+            List<Result> results = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(BatchRunner.getResult(apkFiles.get(i), futures.get(i)));
+            }
+
+            LOGGER.info("(" + timer.end() + ") Batch analysis took " + timer.secondsDuration() + " second(s).");
+            return results;
+        } catch (InterruptedException e) {
+            throw new RuntimeException("Failed to run batch analysis: " + e.getMessage(), e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // An exception analysing one app (e.g. its output directory cannot be created) fails that app, not the batch.
+    private static Result getResult(File apkFile, Future<Result> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            String app = BatchRunner.getAppName(apkFile);
+            LOGGER.error("Analysis of " + app + " threw an exception: " + e.getCause().getMessage(), e.getCause());
+            return new Result(app, Outcome.FAILED, 0, 0, null);
+        }
+    }
+
+    private Result analyse(File apkFile) throws IOException, InterruptedException {
+        String app = BatchRunner.getAppName(apkFile);
+        File appDirectory = new File(this.outputDirectory + File.separator + app);
+        File callGraphFile = new File(appDirectory + File.separator + "AndroGuard" + File.separator + app + ".gml");
+        File graphDirectory = new File(appDirectory + File.separator + "Droid_Graph");
+
+        if (!callGraphFile.isFile()) {
+            LOGGER.error("AndroGuard call graph for " + app + " does not exist (" + callGraphFile + "). Skipping.");
+            return new Result(app, Outcome.SKIPPED, 0, 0, null);
+        }
+
+        if (graphDirectory.isDirectory()) {
+            FileUtils.cleanDirectory(graphDirectory);
+        } else if (!graphDirectory.mkdirs()) {
+            throw new IOException("Failed to create directory: " + graphDirectory);
+        }
+
+        Timer timer = new Timer();
+        timer.start();
+        Outcome outcome = Outcome.FAILED;
+        int attempts = 0;
+        while (attempts <= this.retries) {
+            attempts++;
+            LOGGER.info("Analysing " + app + " (attempt " + attempts + ").");
+            List<String> arguments = this.buildArguments(apkFile, callGraphFile, graphDirectory);
+            outcome = this.inProcess ? this.runInContext(app, arguments) :
+                    this.runChild(this.buildCommand(arguments), graphDirectory);
+            // A timeout is not retried, the same analysis will run out of time again.
+            if (outcome != Outcome.FAILED) {
+                break;
+            }
+        }
+        timer.end();
+
+        if (outcome == Outcome.SUCCEEDED) {
+            LOGGER.info("Analysis of " + app + " finished in " + timer.secondsDuration() + " second(s).");
+        } else {
+            LOGGER.error("Analysis of " + app + " " + (outcome == Outcome.TIMED_OUT ?
+                    "timed out (" + this.timeoutMinutes + "m)." : "failed. See " + graphDirectory + "."));
+        }
+
+        Composition composition = outcome == Outcome.SUCCEEDED ? BatchRunner.readComposition(graphDirectory) : null;
+        return new Result(app, outcome, attempts, timer.secondsDuration(), composition);
+    }
+
+    private List<String> buildArguments(File apkFile, File callGraphFile, File graphDirectory) {
+        List<String> arguments = new ArrayList<>();
+        arguments.add("-a");
+        arguments.add(apkFile.getAbsolutePath());
+        arguments.add("-i");
+        arguments.add(callGraphFile.getAbsolutePath());
+        arguments.add("-o");
+        arguments.add(graphDirectory.getAbsolutePath());
+        arguments.addAll(this.arguments);
+        return arguments;
+    }
+
+    private List<String> buildCommand(List<String> arguments) {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-Xmx" + this.heapGigabytes + "g");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(FrameworkMain.class.getName());
+        command.addAll(arguments);
+        return command;
+    }
+
+    // The analysis gets its own thread so that it can be abandoned at the time limit. A thread cannot be stopped, an
+    // abandoned analysis is interrupted but keeps its share of the heap until it finishes.
+    private Outcome runInContext(String app, List<String> arguments) throws InterruptedException {
+        AnalysisContext context = new AnalysisContext();
+        FutureTask<Integer> task =
+                new FutureTask<>(() -> context.call(() -> FrameworkMain.run(arguments.toArray(new String[0]))));
+        Thread thread = new Thread(task, "analysis-" + app);
+        thread.setDaemon(true);
+        thread.start();
+
+        try {
+            return task.get(this.timeoutMinutes, TimeUnit.MINUTES) == 0 ? Outcome.SUCCEEDED : Outcome.FAILED;
+        } catch (ExecutionException e) {
+            LOGGER.error("Analysis of " + app + " threw an exception: " + e.getCause().getMessage(), e.getCause());
+            return Outcome.FAILED;
+        } catch (TimeoutException e) {
+            thread.interrupt();
+            return Outcome.TIMED_OUT;
+        } catch (InterruptedException e) {
+            thread.interrupt();
+            throw e;
+        }
+    }
+
+    private Outcome runChild(List<String> command, File graphDirectory) throws IOException, InterruptedException {
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.redirectErrorStream(true);
+        processBuilder.redirectOutput(
+                ProcessBuilder.Redirect.appendTo(new File(graphDirectory + File.separator + "cmd.log")));
+
+        Process process = processBuilder.start();
+        try {
+            if (!process.waitFor(this.timeoutMinutes, TimeUnit.MINUTES)) {
+                process.destroyForcibly().waitFor();
+                return Outcome.TIMED_OUT;
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            throw e;
+        }
+        return process.exitValue() == 0 ? Outcome.SUCCEEDED : Outcome.FAILED;
+    }
+
+    private static Composition readComposition(File graphDirectory) {
+        // Only the binary and JSON formats can be imported, other formats leave the counts out of the summary.
+        for (String extension : new String[]{".bin", ".json"}) {
+            File graphFile = new File(graphDirectory + File.separator + CONTROL_FLOW_GRAPH_NAME + extension);
+            if (graphFile.isFile()) {
+                try {
+                    // Imported in a context of its own, so the app's signatures and unit texts are not kept in the
+                    // context of the (unbound) worker thread once its composition is read.
+                    return new AnalysisContext().call(() -> new Composition(Importer.importDroidGraph(graphFile)));
+                } catch (RuntimeException e) {
+                    LOGGER.error("Failed to read control flow graph " + graphFile + ": " + e.getMessage());
+                }
+            }
+        }
+        return null;
+    }
+
+    public static class Result {
+
+        private final String app;
+        private final Outcome outcome;
+        private final int attempts;
+        private final long seconds;
+        private final Composition composition;
+
+        public Result(String app, Outcome outcome, int attempts, long seconds, Composition composition) {
+            this.app = app;
+            this.outcome = outcome;
+            this.attempts = attempts;
+            this.seconds = seconds;
+            this.composition = composition;
+        }
+
+        public String getApp() {
+            return this.app;
+        }
+
+        public Outcome getOutcome() {
+            return this.outcome;
+        }
+
+        public int getAttempts() {
+            return this.attempts;
+        }
+
+        public long getSeconds() {
+            return this.seconds;
+        }
+
+        public Composition getComposition() {
+            return this.composition;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package phd.research.helper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import phd.research.Pair;
+import phd.research.Timer;
+import phd.research.singletons.AnalysisContext;
+import soot.Body;
+import soot.SootMethod;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Loads Jimple bodies on demand and releases them once they have been used, so the analysis only holds the bodies of
+ * the methods it is currently working on. Bodies that are already loaded (e.g. by FlowDroid's call graph
+ * construction) are reused rather than loaded again. Every body loaded and released here is counted, so a run can
+ * report how many bodies it materialised. Bodies can also be built up front, in parallel, with
+ * {@link #preload(Collection)}.
+ * <p>
+ * A released body can only be loaded again if Soot keeps the method source after loading a body, which is why Soot
+ * is initialised with {@code drop_bodies_after_load} turned off.
+ * <p>
+ * Only bodies loaded here are released. Soot's call graph is keyed by the units of the bodies it was built over, a
+ * body loaded again has new units the call graph knows nothing about, so bodies built elsewhere (e.g. by FlowDroid)
+ * are kept, as are the bodies loaded here before the call graph was built (see {@link #retainLoadedBodies()}).
+ *
+ * @author Jordan Doyle
+ */
+
+public class BodyManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BodyManager.class);
+
+    private final Set<SootMethod> releasableMethods;
+    private final Set<SootMethod> keptMethods;
+    private final AtomicInteger loadedBodies;
+    private final AtomicInteger releasedBodies;
+    private final AtomicInteger failedBodies;
+
+    public BodyManager() {
+        this.releasableMethods = ConcurrentHashMap.newKeySet();
+        this.keptMethods = ConcurrentHashMap.newKeySet();
+        this.loadedBodies = new AtomicInteger(0);
+        this.releasedBodies = new AtomicInteger(0);
+        this.failedBodies = new AtomicInteger(0);
+    }
+
+    /**
+     * @return the active body of the method, loaded if it is not already, or null if the method has no body.
+     */
+    public Body retrieve(SootMethod method) {
+        if (method.hasActiveBody()) {
+            return method.getActiveBody();
+        }
+
+        if (!method.isConcrete()) {
+            return null;
+        }
+
+        try {
+            Body body = method.retrieveActiveBody();
+            this.releasableMethods.add(method);
+            this.loadedBodies.incrementAndGet();
+            return body;
+        } catch (RuntimeException | StackOverflowError e) {
+            // Soot's body builder recurses deeply on some methods, a failure only loses the body of that method.
+            // A StackOverflowError has no message, its class name is logged instead.
+            LOGGER.warn("Failed to build body of " + method.getSignature() + ": " +
+                    (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
+            this.failedBodies.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Builds the bodies of the methods in parallel, on threads bound to the calling thread's analysis context. Each
+     * method is retrieved on its own (as Soot's own parallel body retrieval does) so a method whose body fails to
+     * build is skipped without affecting the others. Soot must have loaded the classes of the methods beforehand.
+     *
+     * @return the number of bodies built.
+     */
+    public int preload(Collection<SootMethod> methods) {
+        Timer timer = new Timer();
+        ForkJoinPool pool = AnalysisContext.v().newForkJoinPool();
+        LOGGER.info("Constructing " + methods.size() + " method bodies on " + pool.getParallelism() +
+                " thread(s)... (" + timer.start(true) + ")");
+
+        int failed = this.failedBodies.get();
+        List<Pair<SootMethod, Long>> durations;
+        try {
+            durations = pool.submit(() -> methods.parallelStream().filter(method -> !method.hasActiveBody())
+                    .map(this::timedRetrieve).filter(Objects::nonNull).collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            throw new RuntimeException("Failed to construct method bodies: " + e.getMessage(), e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to construct method bodies: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        LOGGER.info("(" + timer.end() + ") Constructing " + durations.size() + " method bodies took " +
+                timer.secondsDuration() + " second(s).");
+        long totalNanos = durations.stream().mapToLong(Pair::getRight).sum();
+        LOGGER.info(String.format("Body construction used %.2f thread second(s), %d bodies failed to build.",
+                totalNanos / 1e9, this.failedBodies.get() - failed));
+        durations.stream().max(Comparator.comparingLong(Pair::getRight)).ifPresent(slowest -> LOGGER.info(
+                String.format("Slowest body was %s (%.3f second(s)).", slowest.getLeft(), slowest.getRight() / 1e9)));
+
+        return durations.size();
+    }
+
+    // The method paired with the nanoseconds its body took to build, or null if it failed to build.
+    private Pair<SootMethod, Long> timedRetrieve(SootMethod method) {
+        long start = System.nanoTime();
+        if (this.retrieve(method) == null) {
+            return null;
+        }
+        return new Pair<>(method, System.nanoTime() - start);
+    }
+
+    /**
+     * Releases the body of the method if it was loaded here and has not been retained, any other body is kept.
+     */
+    public void release(SootMethod method) {
+        if (!method.hasActiveBody()) {
+            return;
+        }
+
+        if (this.releasableMethods.remove(method)) {
+            method.releaseActiveBody();
+            this.releasedBodies.incrementAndGet();
+        } else {
+            this.keptMethods.add(method);
+        }
+    }
+
+    /**
+     * Keeps every body loaded so far from being released, called once Soot's call graph has been built over them.
+     */
+    public void retainLoadedBodies() {
+        this.releasableMethods.clear();
+    }
+
+    /**
+     * Applies the function to the body of the method. A body loaded for the call is released afterwards, a body that
+     * was already loaded is left in place.
+     *
+     * @return the result of the function, or {@code absent} if the method has no body.
+     */
+    public <T> T withBody(SootMethod method, Function<Body, T> function, T absent) {
+        boolean loaded = method.hasActiveBody();
+        Body body = this.retrieve(method);
+        if (body == null) {
+            return absent;
+        }
+
+        try {
+            return function.apply(body);
+        } finally {
+            if (!loaded) {
+                this.release(method);
+            }
+        }
+    }
+
+    public int getLoadedBodies() {
+        return this.loadedBodies.get();
+    }
+
+    public int getReleasedBodies() {
+        return this.releasedBodies.get();
+    }
+
+    /**
+     * @return the number of methods whose bodies were asked to be released but kept, as they were not loaded here or
+     * were retained.
+     */
+    public int getKeptBodies() {
+        return this.keptMethods.size();
+    }
+
+    public int getFailedBodies() {
+        return this.failedBodies.get();
+    }
+
+    public String getSummary() {
+        return this.getLoadedBodies() + " method bodies loaded, " + this.getReleasedBodies() + " released, " +
+                this.getKeptBodies() + " kept for the call graph and " + this.getFailedBodies() + " failed to build.";
+    }
+}
@@ -0,0 +1,75 @@
+package phd.research.helper;
+
+import soot.Body;
+import soot.Local;
+import soot.Unit;
+import soot.Value;
+import soot.jimple.AssignStmt;
+import soot.jimple.CastExpr;
+import soot.jimple.IntConstant;
+import soot.toolkits.graph.ExceptionalUnitGraph;
+import soot.toolkits.graph.UnitGraph;
+import soot.toolkits.scalar.LocalDefs;
+import soot.toolkits.scalar.SimpleLocalDefs;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Intraprocedural constant propagation for the int arguments of a method body, e.g. the resource ids passed to
+ * {@code setContentView}. A value resolves to every int constant that can reach it through copies and casts. The
+ * local definitions are only computed the first time a local is resolved and are then shared by every query on the
+ * body; values that are not constant (parameters, fields, arithmetic) resolve to nothing.
+ *
+ * @author Jordan Doyle
+ */
+
+public class ConstantResolver {
+
+    private final Supplier<UnitGraph> graphSupplier;
+
+    private LocalDefs localDefs;
+
+    public ConstantResolver(Body body) {
+        this(() -> new ExceptionalUnitGraph(body));
+    }
+
+    public ConstantResolver(Supplier<UnitGraph> graphSupplier) {
+        this.graphSupplier = Objects.requireNonNull(graphSupplier);
+    }
+
+    /**
+     * @return the int constants that can reach the value where it is used by the unit.
+     */
+    public Set<Integer> resolve(Value value, Unit unit) {
+        if (value instanceof IntConstant) {
+            return Collections.singleton(((IntConstant) value).value);
+        }
+
+        Set<Integer> constants = new HashSet<>();
+        this.resolve(value, unit, constants, new HashSet<>());
+        return constants;
+    }
+
+    private void resolve(Value value, Unit unit, Set<Integer> constants, Set<Unit> visited) {
+        if (value instanceof IntConstant) {
+            constants.add(((IntConstant) value).value);
+        } else if (value instanceof CastExpr) {
+            this.resolve(((CastExpr) value).getOp(), unit, constants, visited);
+        } else if (value instanceof Local) {
+            for (Unit definition : this.getLocalDefs().getDefsOfAt((Local) value, unit)) {
+                // Copies around a loop would otherwise be followed forever.
+                if (visited.add(definition) && definition instanceof AssignStmt) {
+                    this.resolve(((AssignStmt) definition).getRightOp(), definition, constants, visited);
+                }
+            }
+        }
+    }
+
+    private LocalDefs getLocalDefs() {
+        if (this.localDefs == null) {
+            this.localDefs = new SimpleLocalDefs(this.graphSupplier.get());
+        }
+        return this.localDefs;
+    }
+}
@@ -8,7 +8,7 @@ import soot.jimple.infoflow.android.axml.parsers.AXML20Parser;
 import soot.jimple.infoflow.android.resources.AbstractResourceParser;
 import soot.jimple.infoflow.android.resources.controls.AndroidLayoutControl;
 import soot.jimple.infoflow.android.resources.controls.LayoutControlFactory;
-import soot.util.HashMultiMap;
+import soot.util.ConcurrentHashMultiMap;
 import soot.util.MultiMap;
 
 /**
@@ -20,7 +20,8 @@ import soot.util.MultiMap;
 
 public class MenuFileParser extends AbstractResourceParser {
 
-    private final MultiMap<String, AndroidLayoutControl> userControls = new HashMultiMap<>();
+    // Concurrent so that menu files can be parsed in parallel (see ApkResourceIndex).
+    private final MultiMap<String, AndroidLayoutControl> userControls = new ConcurrentHashMultiMap<>();
 
     private LayoutControlFactory controlFactory = new DroidControlFactory();
 
@@ -0,0 +1,151 @@
+package phd.research.main;
+
+import org.apache.commons.cli.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import phd.research.Timer;
+import phd.research.enums.Format;
+import phd.research.enums.Outcome;
+import phd.research.helper.BatchRunner;
+import phd.research.utility.Writer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.*;
+
+/**
+ * @author Jordan Doyle
+ */
+
+public class BatchMain {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchMain.class);
+
+    public static void main(String[] args) {
+
+        Timer timer = new Timer();
+        LOGGER.info("Start time: " + timer.start());
+
+        Options options = new Options();
+        options.addOption(Option.builder("d").longOpt("apk-directory").required().hasArg().numberOfArgs(1)
+                .argName("DIRECTORY").desc("The directory containing the APK files to analyse.").build());
+        options.addOption(Option.builder("o").longOpt("output-directory").required().hasArg().numberOfArgs(1)
+                .argName("DIRECTORY").desc("The directory containing each app's AndroGuard call graph and output.")
+                .build());
+        options.addOption(Option.builder("p").longOpt("android-platform").hasArg().numberOfArgs(1).argName("DIRECTORY")
+                .desc("The Android SDK platform directory.").build());
+        options.addOption(Option.builder("f").longOpt("output-format").hasArg().numberOfArgs(1).argName("FORMAT")
+                .desc("The graph output format ('DOT', 'JSON', 'GML', 'BINARY', 'ALL').").build());
+        options.addOption(Option.builder("k").longOpt("cache-directory").hasArg().numberOfArgs(1).argName("DIRECTORY")
+                .desc("The directory for caching analysis results between runs.").build());
+        options.addOption(Option.builder("j").longOpt("jobs").hasArg().numberOfArgs(1).argName("NUMBER")
+                .desc("The number of apps to analyse at once (default: fit to cores and memory).").build());
+        options.addOption(Option.builder("x").longOpt("heap").hasArg().numberOfArgs(1).argName("GIGABYTES")
+                .desc("The maximum heap of each app (default: 4).").build());
+        options.addOption(Option.builder("t").longOpt("timeout").hasArg().numberOfArgs(1).argName("MINUTES")
+                .desc("The time limit for each app (default: 60).").build());
+        options.addOption(Option.builder("ip").longOpt("in-process")
+                .desc("Analyse the apps on threads of this JVM rather than in child JVMs.").build());
+        options.addOption(Option.builder("r").longOpt("retries").hasArg().numberOfArgs(1).argName("NUMBER")
+                .desc("The number of times a failed app is retried (default: 1).").build());
+
+        options.addOption(Option.builder("ug").longOpt("output-UG").desc("Output all method Unit graphs.").build());
+        options.addOption(Option.builder("cg").longOpt("output-CG").desc("Output the call graph.").build());
+        options.addOption(Option.builder("pu").longOpt("parallel-UG")
+                .desc("Build method unit graphs in parallel.").build());
+        options.addOption(Option.builder("pb").longOpt("preload-bodies")
+                .desc("Build the bodies of all valid methods in parallel before the analysis.").build());
+        options.addOption(Option.builder("bb").longOpt("basic-blocks")
+                .desc("Build method graphs with one vertex per basic block rather than per unit.").build());
+        options.addOption(Option.builder("pr").longOpt("prune-unreachable")
+                .desc("Only build unit graphs for methods reachable from the app's entry points.").build());
+        options.addOption(Option.builder("m").longOpt("missing-components").desc("Output missing components.").build());
+        options.addOption(Option.builder("s").longOpt("output-analysis").desc("Output soot content files.").build());
+        options.addOption(Option.builder("h").longOpt("help").desc("Display help.").build());
+
+        CommandLine cmd = null;
+        try {
+            CommandLineParser parser = new DefaultParser();
+            cmd = parser.parse(options, args);
+        } catch (ParseException e) {
+            HelpFormatter formatter = new HelpFormatter();
+            final PrintWriter writer = new PrintWriter(System.out);
+            formatter.printUsage(writer, 80, "DroidGraph2.0 Batch", options);
+            writer.flush();
+            System.exit(10);
+        }
+
+        if (cmd.hasOption("h")) {
+            HelpFormatter formatter = new HelpFormatter();
+            formatter.printHelp("DroidGraph2.0 Batch", options);
+            System.exit(0);
+        }
+
+        File apkDirectory = new File(cmd.getOptionValue("d"));
+        File outputDirectory = new File(cmd.getOptionValue("o"));
+        if (!apkDirectory.isDirectory() || !outputDirectory.isDirectory()) {
+            LOGGER.error("Files missing: APK or output directory does not exist or is not a directory.");
+            System.exit(20);
+        }
+
+        // The control flow graph is always written, the summary reads its composition back.
+        Format format = cmd.hasOption("f") ? Format.valueOf(cmd.getOptionValue("f")) : Format.BINARY;
+        List<String> arguments = new ArrayList<>(Arrays.asList("-cf", "-f", format.name()));
+        for (String option : new String[]{"p", "k"}) {
+            if (cmd.hasOption(option)) {
+                arguments.add("-" + option);
+                arguments.add(new File(cmd.getOptionValue(option)).getAbsolutePath());
+            }
+        }
+        for (String flag : new String[]{"ug", "cg", "pu", "pb", "bb", "pr", "m", "s"}) {
+            if (cmd.hasOption(flag)) {
+                arguments.add("-" + flag);
+            }
+        }
+
+        boolean inProcess = cmd.hasOption("ip");
+        int heap = 4, jobs = 0, retries = 1;
+        long timeout = 60;
+        try {
+            heap = cmd.hasOption("x") ? Integer.parseInt(cmd.getOptionValue("x")) : heap;
+            jobs = cmd.hasOption("j") ? Integer.parseInt(cmd.getOptionValue("j")) :
+                    inProcess ? BatchRunner.inProcessPoolSize(heap) : BatchRunner.defaultPoolSize(heap);
+            timeout = cmd.hasOption("t") ? Long.parseLong(cmd.getOptionValue("t")) : timeout;
+            retries = cmd.hasOption("r") ? Integer.parseInt(cmd.getOptionValue("r")) : retries;
+        } catch (NumberFormatException e) {
+            LOGGER.error("Invalid number: " + e.getMessage());
+            System.exit(30);
+        }
+
+        File[] apkFiles = apkDirectory.listFiles((directory, name) -> name.endsWith(".apk"));
+        if (apkFiles == null || apkFiles.length == 0) {
+            LOGGER.error("No APK files found in " + apkDirectory + ".");
+            System.exit(40);
+        }
+        Arrays.sort(apkFiles);
+
+        BatchRunner runner = new BatchRunner(outputDirectory, arguments, jobs, heap, timeout, retries, inProcess);
+        List<BatchRunner.Result> results = runner.run(Arrays.asList(apkFiles));
+
+        String summary = BatchRunner.toTableString(results);
+        LOGGER.info("Batch summary:\n" + summary);
+        try {
+            Writer.writeString(outputDirectory, "batch_summary.txt", summary);
+        } catch (IOException e) {
+            LOGGER.error("Failed to write batch summary to output file: " + e.getMessage());
+        }
+
+        Map<Outcome, Integer> outcomes = new EnumMap<>(Outcome.class);
+        results.forEach(result -> outcomes.merge(result.getOutcome(), 1, Integer::sum));
+        LOGGER.info("Outcomes: " + outcomes);
+
+        LOGGER.info("End time: " + timer.end());
+        LOGGER.info("Execution time: " + timer.secondsDuration() + " second(s).");
+
+        if (outcomes.getOrDefault(Outcome.SUCCEEDED, 0) + outcomes.getOrDefault(Outcome.SKIPPED, 0) !=
+                results.size()) {
+            System.exit(60);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package phd.research.main;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+
+/**
+ * Command line client for {@link DroidGraphServer}. Usage: {@code [-P PORT] COMMAND [OPTIONS...]}, where the options
+ * are exactly those of the command's own main class, e.g. {@code graph -a app.apk -i app.gml -cf} for
+ * {@link FrameworkMain}. The server does not share the client's working directory, so every argument that names an
+ * existing file or directory is sent as an absolute path. Each request carries the token the server wrote to
+ * {@link DroidGraphServer#getTokenFile(int)} when it started, so the client must run as the server's user.
+ *
+ * @author Jordan Doyle
+ */
+
+public class DroidGraphClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DroidGraphClient.class);
+
+    public static void main(String[] args) {
+        int port = DroidGraphServer.DEFAULT_PORT;
+        int first = 0;
+        if (args.length >= 2 && (args[0].equals("-P") || args[0].equals("--port"))) {
+            try {
+                port = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                LOGGER.error("Invalid port: " + args[1]);
+                System.exit(10);
+            }
+            first = 2;
+        }
+
+        if (args.length <= first) {
+            LOGGER.error("Usage: [-P PORT] COMMAND [OPTIONS...], where COMMAND is 'graph', 'coverage', '" +
+                    DroidGraphServer.PING + "' or '" + DroidGraphServer.SHUTDOWN + "'.");
+            System.exit(10);
+        }
+
+        File tokenFile = DroidGraphServer.getTokenFile(port);
+        String token = null;
+        try {
+            token = DroidGraphServer.readToken(tokenFile);
+        } catch (IOException e) {
+            LOGGER.error("Failed to read DroidGraph server token from " + tokenFile + ", is the server running on " +
+                    "port " + port + "? " + e.getMessage());
+            System.exit(20);
+        }
+
+        int exitCode;
+        try {
+            exitCode = DroidGraphClient.send(port, token, args[first],
+                    DroidGraphClient.resolvePaths(Arrays.copyOfRange(args, first + 1, args.length))
+                                            );
+        } catch (IOException e) {
+            LOGGER.error("Failed to reach DroidGraph server on port " + port + ": " + e.getMessage());
+            exitCode = 20;
+        }
+
+        if (exitCode == DroidGraphServer.UNAUTHORISED) {
+            LOGGER.error("DroidGraph server refused the request, the token in " + tokenFile + " is out of date.");
+        }
+
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+
+    public static int send(int port, String token, String command, String[] arguments) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            output.writeUTF(token);
+            output.writeUTF(command);
+            output.writeInt(arguments.length);
+            for (String argument : arguments) {
+                output.writeUTF(argument);
+            }
+            output.flush();
+
+            return new DataInputStream(socket.getInputStream()).readInt();
+        }
+    }
+
+    public static String[] resolvePaths(String[] arguments) {
+        String[] resolved = new String[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            File file = new File(arguments[i]);
+            resolved[i] = !arguments[i].startsWith("-") && file.exists() ? file.getAbsolutePath() : arguments[i];
+        }
+        return resolved;
+    }
+}
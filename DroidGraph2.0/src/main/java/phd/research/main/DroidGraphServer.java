@@ -0,0 +1,237 @@
+package phd.research.main;
+
+import org.apache.commons.cli.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import phd.research.Timer;
+import phd.research.singletons.AnalysisContext;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Long-running analysis server. Requests are read from a loopback TCP socket and run one at a time in this JVM, so
+ * class loading, the blacklists and JIT compiled code are shared by every request. All app specific state (the
+ * settings, FlowDroid, Soot's globals, the filter caches and the vertex ids) is reset before each request, a request
+ * therefore produces exactly the output of the equivalent command line run.
+ * <p>
+ * A request is the server's token, a command name and the command's arguments, written with
+ * {@link DataOutputStream#writeUTF(String)}, the arguments after an argument count. The reply is the exit code the
+ * command line run would have returned, or {@link #UNAUTHORISED} if the token is wrong.
+ * <p>
+ * The socket only accepts connections from this machine, but any local user or process can connect to it, and a
+ * command runs with the server's file system access (it reads and writes whatever paths its arguments name). A random
+ * token is therefore generated each time the server starts and written to a file only the server's user can read
+ * ({@link #getTokenFile(int)} unless another file is given), the client reads it from there. Requests without the
+ * token are refused before their command is read. The token file is deleted when the server shuts down. Anyone able
+ * to read the server user's files can still send requests, and requests are not encrypted, which is only safe on the
+ * loopback interface.
+ *
+ * @author Jordan Doyle
+ */
+
+public class DroidGraphServer {
+
+    public static final int DEFAULT_PORT = 7420;
+    public static final String PING = "ping";
+    public static final String SHUTDOWN = "shutdown";
+    public static final int UNAUTHORISED = 30;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DroidGraphServer.class);
+
+    // Long enough for a slow client, short enough that an idle connection cannot hold the server for long.
+    private static final int REQUEST_TIMEOUT_MILLIS = 10000;
+    private static final int TOKEN_BYTES = 32;
+
+    private final int port;
+    private final File tokenFile;
+    private final Map<String, Function<String[], Integer>> commands;
+
+    public DroidGraphServer(int port) {
+        this(port, DroidGraphServer.getTokenFile(port));
+    }
+
+    public DroidGraphServer(int port, File tokenFile) {
+        this.port = port;
+        this.tokenFile = tokenFile;
+        this.commands = new HashMap<>();
+        this.register("graph", FrameworkMain::run);
+    }
+
+    public static void main(String[] args) {
+        int exitCode = DroidGraphServer.start(new DroidGraphServer(DroidGraphServer.parsePort(args)));
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+
+    /**
+     * @return the port given with -P/--port, the default port if there is none, or -1 if the arguments are invalid.
+     */
+    public static int parsePort(String[] args) {
+        Options options = new Options();
+        options.addOption(Option.builder("P").longOpt("port").hasArg().numberOfArgs(1).argName("PORT")
+                .desc("The local port to listen on (default: " + DEFAULT_PORT + ").").build());
+
+        try {
+            CommandLine cmd = new DefaultParser().parse(options, args);
+            return cmd.hasOption("P") ? Integer.parseInt(cmd.getOptionValue("P")) : DEFAULT_PORT;
+        } catch (ParseException | NumberFormatException e) {
+            LOGGER.error("Invalid server arguments: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    public static int start(DroidGraphServer server) {
+        if (server.port < 0) {
+            return 10;
+        }
+
+        try {
+            server.serve();
+            return 0;
+        } catch (IOException e) {
+            LOGGER.error("Server failed: " + e.getMessage());
+            return 20;
+        }
+    }
+
+    /**
+     * @return the file the token of the server listening on the port is written to, in the user's home directory.
+     */
+    public static File getTokenFile(int port) {
+        return new File(System.getProperty("user.home") + File.separator + ".droidgraph" + File.separator + "server-" +
+                port + ".token");
+    }
+
+    public static String readToken(File tokenFile) throws IOException {
+        return new String(Files.readAllBytes(tokenFile.toPath()), StandardCharsets.UTF_8).trim();
+    }
+
+    private static String generateToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+
+    private static void writeToken(File tokenFile, String token) throws IOException {
+        Path path = tokenFile.getAbsoluteFile().toPath();
+        Files.deleteIfExists(path);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            if (!Files.isDirectory(path.getParent())) {
+                Files.createDirectories(path.getParent(),
+                        PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------"))
+                                       );
+            }
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createDirectories(path.getParent());
+            Files.createFile(path);
+            File file = path.toFile();
+            if (!file.setReadable(false, false) || !file.setReadable(true, true) || !file.setWritable(false, false) ||
+                    !file.setWritable(true, true)) {
+                throw new IOException("Failed to restrict access to token file " + path);
+            }
+        }
+        Files.write(path, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void resetAnalysisState() {
+        AnalysisContext.v().reset();
+    }
+
+    public void register(String command, Function<String[], Integer> handler) {
+        this.commands.put(command, handler);
+    }
+
+    public void serve() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(this.port, 50, InetAddress.getLoopbackAddress())) {
+            // Written once the port is bound, so a server failing to start never replaces a running server's token.
+            String token = DroidGraphServer.generateToken();
+            DroidGraphServer.writeToken(this.tokenFile, token);
+            LOGGER.info("DroidGraph server listening on " + serverSocket.getLocalSocketAddress() + " for " +
+                    this.commands.keySet() + ", token written to " + this.tokenFile + ".");
+
+            try {
+                this.acceptRequests(serverSocket, token.getBytes(StandardCharsets.UTF_8));
+            } finally {
+                Files.deleteIfExists(this.tokenFile.toPath());
+            }
+            LOGGER.info("DroidGraph server shut down.");
+        }
+    }
+
+    private void acceptRequests(ServerSocket serverSocket, byte[] token) {
+        boolean running = true;
+        while (running) {
+            try (Socket socket = serverSocket.accept()) {
+                socket.setSoTimeout(REQUEST_TIMEOUT_MILLIS);
+                DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+
+                if (!MessageDigest.isEqual(token, input.readUTF().getBytes(StandardCharsets.UTF_8))) {
+                    LOGGER.warn("Refused request with a wrong token from " + socket.getRemoteSocketAddress() + ".");
+                    output.writeInt(UNAUTHORISED);
+                    output.flush();
+                    continue;
+                }
+
+                String command = input.readUTF();
+                String[] arguments = new String[input.readInt()];
+                for (int i = 0; i < arguments.length; i++) {
+                    arguments[i] = input.readUTF();
+                }
+
+                running = !command.equals(SHUTDOWN);
+                output.writeInt(this.handle(command, arguments));
+                output.flush();
+            } catch (IOException e) {
+                LOGGER.error("Failed to handle request: " + e.getMessage());
+            }
+        }
+    }
+
+    private int handle(String command, String[] arguments) {
+        if (command.equals(PING) || command.equals(SHUTDOWN)) {
+            return 0;
+        }
+
+        Function<String[], Integer> handler = this.commands.get(command);
+        if (handler == null) {
+            LOGGER.error("Unknown command '" + command + "'.");
+            return 1;
+        }
+
+        Timer timer = new Timer();
+        LOGGER.info("Running '" + command + "' " + Arrays.toString(arguments) + "... (" + timer.start(true) + ")");
+        DroidGraphServer.resetAnalysisState();
+        int exitCode;
+        try {
+            exitCode = handler.apply(arguments);
+        } catch (RuntimeException e) {
+            LOGGER.error("Command '" + command + "' failed: " + e.getMessage());
+            exitCode = 1;
+        } finally {
+            // Release the app's Scene now rather than holding it until the next request.
+            DroidGraphServer.resetAnalysisState();
+        }
+        LOGGER.info("(" + timer.end() + ") '" + command + "' exited with " + exitCode + " after " +
+                timer.secondsDuration() + " second(s).");
+        return exitCode;
+    }
+}
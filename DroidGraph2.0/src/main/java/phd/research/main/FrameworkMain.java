@@ -22,6 +22,13 @@ public class FrameworkMain {
     private static final Logger LOGGER = LoggerFactory.getLogger(FrameworkMain.class);
 
     public static void main(String[] args) {
+        int exitCode = run(args);
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+
+    public static int run(String[] args) {
 
         Timer timer = new Timer();
         LOGGER.info("Start time: " + timer.start());
@@ -36,16 +43,26 @@ public class FrameworkMain {
         options.addOption(Option.builder("p").longOpt("android-platform").hasArg().numberOfArgs(1).argName("DIRECTORY")
                 .desc("The Android SDK platform directory.").build());
         options.addOption(Option.builder("f").longOpt("output-format").hasArg().numberOfArgs(1).argName("FORMAT")
-                .desc("The graph output format ('DOT','JSON', GML, 'ALL').").build());
+                .desc("The graph output format ('DOT', 'JSON', 'GML', 'BINARY', 'ALL').").build());
         options.addOption(Option.builder("v").longOpt("venv").hasArg().numberOfArgs(1).argName("DIRECTORY")
                 .desc("The directory containing Python virtual environment.").build());
         options.addOption(Option.builder("o").longOpt("output-directory").hasArg().numberOfArgs(1).argName("DIRECTORY")
                 .desc("The directory for storing output files.").build());
+        options.addOption(Option.builder("k").longOpt("cache-directory").hasArg().numberOfArgs(1).argName("DIRECTORY")
+                .desc("The directory for caching analysis results between runs.").build());
 
         options.addOption(Option.builder("ug").longOpt("output-UG").desc("Output all method Unit graphs.").build());
         options.addOption(Option.builder("cg").longOpt("output-CG").desc("Output the call graph.").build());
         options.addOption(Option.builder("cf").longOpt("output-CFG").desc("Output control flow graph.").build());
 
+        options.addOption(Option.builder("pu").longOpt("parallel-UG")
+                .desc("Build method unit graphs in parallel.").build());
+        options.addOption(Option.builder("pb").longOpt("preload-bodies")
+                .desc("Build the bodies of all valid methods in parallel before the analysis.").build());
+        options.addOption(Option.builder("bb").longOpt("basic-blocks")
+                .desc("Build method graphs with one vertex per basic block rather than per unit.").build());
+        options.addOption(Option.builder("pr").longOpt("prune-unreachable")
+                .desc("Only build unit graphs for methods reachable from the app's entry points.").build());
         options.addOption(Option.builder("m").longOpt("missing-components").desc("Output missing components.").build());
         options.addOption(Option.builder("s").longOpt("output-analysis").desc("Output soot content files.").build());
         options.addOption(Option.builder("c").longOpt("clean-directory").desc("Clean the output directory.").build());
@@ -60,13 +77,13 @@ public class FrameworkMain {
             final PrintWriter writer = new PrintWriter(System.out);
             formatter.printUsage(writer, 80, "DroidGraph2.0", options);
             writer.flush();
-            System.exit(10);
+            return 10;
         }
 
         if (cmd.hasOption("h")) {
             HelpFormatter formatter = new HelpFormatter();
             formatter.printHelp("DroidGraph2.0", options);
-            System.exit(0);
+            return 0;
         }
 
         GraphSettings settings = GraphSettings.v();
@@ -75,7 +92,7 @@ public class FrameworkMain {
             settings.setCallGraphFile(new File(cmd.getOptionValue("i")));
         } catch (IOException e) {
             LOGGER.error("Files missing: " + e.getMessage());
-            System.exit(20);
+            return 20;
         }
 
         if (cmd.hasOption("p")) {
@@ -83,7 +100,7 @@ public class FrameworkMain {
                 settings.setPlatformDirectory(new File(cmd.getOptionValue("p")));
             } catch (IOException e) {
                 LOGGER.error("Files missing: " + e.getMessage());
-                System.exit(30);
+                return 30;
             }
         }
 
@@ -95,12 +112,46 @@ public class FrameworkMain {
             settings.setOutputMissingComponents(true);
         }
 
+        if (cmd.hasOption("pu")) {
+            settings.setParallelUnitGraphs(true);
+        }
+
+        if (cmd.hasOption("pb")) {
+            settings.setPreloadBodies(true);
+        }
+
+        if (cmd.hasOption("bb")) {
+            settings.setBasicBlockGraphs(true);
+        }
+
+        if (cmd.hasOption("pr")) {
+            settings.setPruneUnreachableMethods(true);
+        }
+
         if (cmd.hasOption("o")) {
             try {
                 settings.setOutputDirectory(new File(cmd.getOptionValue("o")));
             } catch (IOException e) {
                 LOGGER.error("Files missing: " + e.getMessage());
-                System.exit(40);
+                return 40;
+            }
+        }
+
+        if (cmd.hasOption("k")) {
+            try {
+                settings.setCacheDirectory(new File(cmd.getOptionValue("k")));
+            } catch (IOException e) {
+                LOGGER.error("Files missing: " + e.getMessage());
+                return 80;
+            }
+        }
+
+        if (cmd.hasOption("l")) {
+            try {
+                settings.setImportControlFlowGraph(new File(cmd.getOptionValue("l")));
+            } catch (IOException e) {
+                LOGGER.error("Files missing: " + e.getMessage());
+                return 70;
             }
         }
 
@@ -108,7 +159,7 @@ public class FrameworkMain {
             settings.validate();
         } catch (IOException e) {
             LOGGER.error("Files missing: " + e.getMessage());
-            System.exit(50);
+            return 50;
         }
 
         if (cmd.hasOption("c")) {
@@ -171,5 +222,6 @@ public class FrameworkMain {
 
         LOGGER.info("End time: " + timer.end());
         LOGGER.info("Execution time: " + timer.secondsDuration() + " second(s).");
+        return 0;
     }
 }
\ No newline at end of file
@@ -0,0 +1,277 @@
+package phd.research.singletons;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import phd.research.graph.ClassificationTable;
+import phd.research.graph.Classifier;
+import phd.research.graph.SignatureTable;
+import phd.research.graph.UnitTextPool;
+import phd.research.helper.BodyManager;
+import phd.research.utility.Filter;
+import soot.G;
+import soot.Scene;
+import soot.jimple.infoflow.android.callbacks.xml.CollectedCallbacks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Everything that belongs to the analysis of one app: the settings, FlowDroid, Soot's globals ({@link G}), the
+ * collected callbacks, the classification table, the filter tables, the body manager, the signature table, the unit
+ * text pool and the vertex id sequence. {@link #v()} returns the context bound to the calling thread, or the default
+ * context if there is none, and the existing singletons ({@link GraphSettings#v()}, {@link FlowDroidAnalysis#v()},
+ * {@link Scene#v()}, ...) all resolve through it. A single app per JVM therefore works exactly as before, while several
+ * apps can be analysed at once by running each one with {@link #call(Supplier)} on its own context.
+ * <p>
+ * Threads started by a bound thread inherit its context. Pools shared between apps (such as the common pool used by
+ * parallel streams) do not, parallel work must run in a pool from {@link #newForkJoinPool()}.
+ *
+ * @author Jordan Doyle
+ */
+
+public class AnalysisContext {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AnalysisContext.class);
+
+    private static final AnalysisContext DEFAULT = new AnalysisContext(false);
+    private static final ThreadLocal<AnalysisContext> BOUND = new InheritableThreadLocal<>();
+
+    private static volatile boolean sootGlobalsInstalled = false;
+
+    private final AtomicInteger vertexIdSequence;
+    // Each lazily loaded part has its own lock. Building one part may run parallel work that reads another part
+    // (e.g. the classification table reads the filter tables and the settings), which must not wait on the builder.
+    private final Object flowDroidLock;
+    private final Object callbacksLock;
+    private final Object classificationLock;
+
+    private volatile G soot;
+    private volatile GraphSettings settings;
+    private volatile Filter.Tables filterTables;
+    private volatile BodyManager bodyManager;
+    private volatile SignatureTable signatureTable;
+    private volatile UnitTextPool unitTextPool;
+
+    private FlowDroidAnalysis flowDroidAnalysis;
+    private CollectedCallbacks collectedCallbacks;
+    private ClassificationTable classificationTable;
+
+    public AnalysisContext() {
+        this(true);
+    }
+
+    private AnalysisContext(boolean bindable) {
+        this.vertexIdSequence = new AtomicInteger(0);
+        this.flowDroidLock = new Object();
+        this.callbacksLock = new Object();
+        this.classificationLock = new Object();
+        this.settings = new GraphSettings();
+        this.filterTables = new Filter.Tables();
+        this.bodyManager = new BodyManager();
+        this.signatureTable = new SignatureTable();
+        this.unitTextPool = new UnitTextPool();
+
+        if (bindable) {
+            AnalysisContext.installSootGlobals();
+            this.soot = new G();
+        }
+    }
+
+    public static AnalysisContext v() {
+        AnalysisContext context = BOUND.get();
+        return context != null ? context : DEFAULT;
+    }
+
+    // Once installed, every G.v() (and so every Soot singleton) resolves to the calling thread's context. The default
+    // context takes over the globals that existed before, so nothing already loaded is lost.
+    private static synchronized void installSootGlobals() {
+        if (AnalysisContext.sootGlobalsInstalled) {
+            return;
+        }
+
+        DEFAULT.soot = G.v();
+        G.setGlobalObjectGetter(new G.GlobalObjectGetter() {
+            @Override
+            public G getG() {
+                return AnalysisContext.v().getSoot();
+            }
+
+            @Override
+            public void reset() {
+                AnalysisContext.v().resetSoot();
+            }
+        });
+        AnalysisContext.sootGlobalsInstalled = true;
+        LOGGER.info("Soot globals are now resolved per analysis context.");
+    }
+
+    /**
+     * Runs the task on the calling thread with this context bound, restoring the previous binding afterwards.
+     */
+    public <T> T call(Supplier<T> task) {
+        AnalysisContext previous = BOUND.get();
+        BOUND.set(this);
+        try {
+            return task.get();
+        } finally {
+            if (previous != null) {
+                BOUND.set(previous);
+            } else {
+                BOUND.remove();
+            }
+        }
+    }
+
+    public void run(Runnable task) {
+        this.call(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return a pool whose worker threads are bound to this context, for parallel work within the analysis.
+     */
+    public ForkJoinPool newForkJoinPool() {
+        return new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+                pool -> new ContextWorkerThread(pool, this), null, false
+        );
+    }
+
+    public G getSoot() {
+        // Until another context exists, the default context uses Soot's own globals.
+        return this == DEFAULT && !AnalysisContext.sootGlobalsInstalled ? G.v() : this.soot;
+    }
+
+    public void resetSoot() {
+        if (this == DEFAULT && !AnalysisContext.sootGlobalsInstalled) {
+            G.reset();
+        } else {
+            this.soot = new G();
+        }
+    }
+
+    public GraphSettings getSettings() {
+        return this.settings;
+    }
+
+    public void resetSettings() {
+        this.settings = new GraphSettings();
+    }
+
+    public FlowDroidAnalysis getFlowDroidAnalysis() {
+        synchronized (this.flowDroidLock) {
+            if (this.flowDroidAnalysis == null) {
+                this.flowDroidAnalysis = new FlowDroidAnalysis();
+            }
+            return this.flowDroidAnalysis;
+        }
+    }
+
+    public void resetFlowDroidAnalysis() {
+        synchronized (this.flowDroidLock) {
+            this.flowDroidAnalysis = null;
+        }
+    }
+
+    public CollectedCallbacks getCollectedCallbacks() {
+        synchronized (this.callbacksLock) {
+            if (this.collectedCallbacks == null) {
+                this.collectedCallbacks = Classifier.deserializeCallbacks();
+            }
+            return this.collectedCallbacks;
+        }
+    }
+
+    public void resetCollectedCallbacks() {
+        synchronized (this.callbacksLock) {
+            this.collectedCallbacks = null;
+        }
+    }
+
+    // The table is rebuilt whenever Soot has been reset since it was built.
+    public ClassificationTable getClassificationTable() {
+        synchronized (this.classificationLock) {
+            if (this.classificationTable == null || this.classificationTable.getScene() != Scene.v()) {
+                this.classificationTable = new ClassificationTable(Scene.v(), this.getCollectedCallbacks());
+            }
+            return this.classificationTable;
+        }
+    }
+
+    public void resetClassificationTable() {
+        synchronized (this.classificationLock) {
+            this.classificationTable = null;
+        }
+    }
+
+    public Filter.Tables getFilterTables() {
+        return this.filterTables;
+    }
+
+    public void resetFilterTables() {
+        this.filterTables = new Filter.Tables();
+    }
+
+    public BodyManager getBodyManager() {
+        return this.bodyManager;
+    }
+
+    public void resetBodyManager() {
+        this.bodyManager = new BodyManager();
+    }
+
+    public SignatureTable getSignatureTable() {
+        return this.signatureTable;
+    }
+
+    public void resetSignatureTable() {
+        this.signatureTable = new SignatureTable();
+    }
+
+    public UnitTextPool getUnitTextPool() {
+        return this.unitTextPool;
+    }
+
+    public void resetUnitTextPool() {
+        this.unitTextPool = new UnitTextPool();
+    }
+
+    public AtomicInteger getVertexIdSequence() {
+        return this.vertexIdSequence;
+    }
+
+    /**
+     * Drops everything loaded for the current app, the next use starts again from the default settings.
+     */
+    public void reset() {
+        this.resetSettings();
+        this.resetFlowDroidAnalysis();
+        this.resetCollectedCallbacks();
+        this.resetClassificationTable();
+        this.resetFilterTables();
+        this.resetBodyManager();
+        this.resetSignatureTable();
+        this.resetUnitTextPool();
+        this.vertexIdSequence.set(0);
+        this.resetSoot();
+    }
+
+    private static class ContextWorkerThread extends ForkJoinWorkerThread {
+
+        private final AnalysisContext context;
+
+        private ContextWorkerThread(ForkJoinPool pool, AnalysisContext context) {
+            super(pool);
+            this.context = context;
+        }
+
+        @Override
+        protected void onStart() {
+            super.onStart();
+            BOUND.set(this.context);
+        }
+    }
+}
@@ -7,18 +7,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xmlpull.v1.XmlPullParserException;
 import phd.research.Timer;
-import phd.research.helper.DroidControlFactory;
+import phd.research.helper.ApkResourceIndex;
 import phd.research.helper.MenuFileParser;
+import phd.research.utility.Filter;
 import soot.*;
 import soot.jimple.DefinitionStmt;
 import soot.jimple.infoflow.InfoflowConfiguration;
 import soot.jimple.infoflow.android.InfoflowAndroidConfiguration;
 import soot.jimple.infoflow.android.SetupApplication;
 import soot.jimple.infoflow.android.axml.AXmlNode;
-import soot.jimple.infoflow.android.manifest.ProcessManifest;
 import soot.jimple.infoflow.android.resources.ARSCFileParser;
 import soot.jimple.infoflow.android.resources.LayoutFileParser;
-import soot.jimple.infoflow.android.resources.controls.LayoutControlFactory;
 import soot.jimple.infoflow.cfg.LibraryClassPatcher;
 import soot.jimple.toolkits.ide.exampleproblems.IFDSReachingDefinitions;
 import soot.jimple.toolkits.ide.icfg.JimpleBasedInterproceduralCFG;
@@ -28,6 +27,7 @@ import soot.toolkits.scalar.Pair;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * @author Jordan Doyle
@@ -37,50 +37,41 @@ public class FlowDroidAnalysis {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FlowDroidAnalysis.class);
 
-    private static FlowDroidAnalysis instance = null;
-
-    @NotNull
-    private final ProcessManifest manifest;
     @NotNull
-    private final ARSCFileParser resources;
+    private final ApkResourceIndex resourceIndex;
 
     private boolean sootInitialised;
     private boolean flowDroidExecuted;
 
     private SetupApplication application;
 
-    private FlowDroidAnalysis() {
+    FlowDroidAnalysis() {
         this.flowDroidExecuted = false;
         this.sootInitialised = false;
 
         try {
-            this.manifest = new ProcessManifest(GraphSettings.v().getApkFile());
+            this.resourceIndex = new ApkResourceIndex(GraphSettings.v().getApkFile());
         } catch (IOException | XmlPullParserException e) {
-            throw new RuntimeException("Failed to process APK manifest file." + e.getMessage());
-        }
-
-        this.resources = new ARSCFileParser();
-        try {
-            this.resources.parse(GraphSettings.v().getApkFile().getAbsolutePath());
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to parse APK resources." + e.getMessage());
+            throw new RuntimeException("Failed to process APK manifest and resources: " + e.getMessage(), e);
         }
     }
 
     public static FlowDroidAnalysis v() {
-        if (instance == null) {
-            instance = new FlowDroidAnalysis();
-        }
-        return instance;
+        return AnalysisContext.v().getFlowDroidAnalysis();
+    }
+
+    public static void reset() {
+        AnalysisContext.v().resetFlowDroidAnalysis();
+        LOGGER.info("FlowDroidAnalysis has been reset.");
     }
 
     public String getBasePackageName() {
-        return this.manifest.getPackageName();
+        return this.resourceIndex.getManifest().getPackageName();
     }
 
     @NotNull
     public ARSCFileParser getResources() {
-        return this.resources;
+        return this.resourceIndex.getResources();
     }
 
     public Set<SootClass> getLaunchActivities() {
@@ -89,7 +80,7 @@ public class FlowDroidAnalysis {
         }
 
         Set<SootClass> launchActivities = new HashSet<>();
-        for (AXmlNode activity : this.manifest.getLaunchableActivityNodes()) {
+        for (AXmlNode activity : this.resourceIndex.getManifest().getLaunchableActivityNodes()) {
             if (activity.hasAttribute("name")) {
                 // WARNING: Excluding valid launch activities if the developer doesn't provide the name attribute.
                 String activityName = activity.getAttribute("name").getValue().toString();
@@ -113,7 +104,7 @@ public class FlowDroidAnalysis {
         }
 
         Set<SootClass> entryPoints = new HashSet<>();
-        for (String entryPoint : this.manifest.getEntryPointClasses()) {
+        for (String entryPoint : this.resourceIndex.getManifest().getEntryPointClasses()) {
             SootClass entryPointClass = Scene.v().getSootClassUnsafe(entryPoint);
             if (entryPointClass != null) {
                 entryPoints.add(entryPointClass);
@@ -128,12 +119,7 @@ public class FlowDroidAnalysis {
             this.initializeSoot();
         }
 
-        LayoutControlFactory controlFactory = new DroidControlFactory();
-        controlFactory.setLoadAdditionalAttributes(true);
-        MenuFileParser menuParser = new MenuFileParser();
-        menuParser.setControlFactory(controlFactory);
-        menuParser.parseLayoutFileDirect(this.getBasePackageName(), GraphSettings.v().getApkFile().getAbsolutePath());
-        return menuParser;
+        return this.resourceIndex.getMenuFileParser();
     }
 
     public LayoutFileParser getLayoutFileParser() {
@@ -141,12 +127,7 @@ public class FlowDroidAnalysis {
             this.initializeSoot();
         }
 
-        LayoutControlFactory controlFactory = new DroidControlFactory();
-        controlFactory.setLoadAdditionalAttributes(true);
-        LayoutFileParser layoutParser = new LayoutFileParser(this.getBasePackageName(), this.resources);
-        layoutParser.setControlFactory(controlFactory);
-        layoutParser.parseLayoutFileDirect(GraphSettings.v().getApkFile().getAbsolutePath());
-        return layoutParser;
+        return this.resourceIndex.getLayoutFileParser();
     }
 
     @SuppressWarnings("BooleanMethodIsAlwaysInverted")
@@ -163,6 +144,8 @@ public class FlowDroidAnalysis {
         LOGGER.info("Initializing Soot... (" + timer.start(true) + ")");
 
         G.reset();
+        Filter.clearCache();
+        this.resourceIndex.clearParsers();
 
         Options.v().set_no_bodies_for_excluded(true);
         Options.v().set_allow_phantom_refs(true);
@@ -175,6 +158,8 @@ public class FlowDroidAnalysis {
         Options.v().set_process_multiple_dex(true);
         Options.v().set_ignore_resolution_errors(true);
         Options.v().set_output_dir(GraphSettings.v().getOutputDirectory().getAbsolutePath());
+        // Bodies are released once used (see BodyManager), the method sources are kept so they can be loaded again.
+        Options.v().set_drop_bodies_after_load(false);
 
         List<String> excludeList = new LinkedList<>(
                 Arrays.asList("java.*", "javax.*", "sun.*", "org.apache.*", "org.eclipse.*", "soot.*"));
@@ -197,6 +182,19 @@ public class FlowDroidAnalysis {
         this.sootInitialised = true;
 
         LOGGER.info("(" + timer.end() + ") Soot initialization took " + timer.secondsDuration() + " second(s).");
+
+        if (GraphSettings.v().isPreloadBodies()) {
+            this.preloadBodies();
+        }
+    }
+
+    // FlowDroid, the layout index and the graph generation would otherwise build each body on first use, one at a time.
+    // Built up front they are reused by all of them, and kept as FlowDroid's call graph is built over them.
+    private void preloadBodies() {
+        List<SootMethod> methods = new ArrayList<>(Scene.v().getClasses()).stream().filter(Filter::isValidClass)
+                .flatMap(clazz -> clazz.getMethods().stream()).filter(Filter::isValidMethod)
+                .collect(Collectors.toList());
+        AnalysisContext.v().getBodyManager().preload(methods);
     }
 
     public void runFlowDroid() {
@@ -210,6 +208,8 @@ public class FlowDroidAnalysis {
         InfoflowAndroidConfiguration configuration = this.getFlowDroidConfiguration();
         this.application = new SetupApplication(configuration);
         this.application.constructCallgraph();
+        // The call graph is keyed by the units of the bodies it was built over, reloading one would orphan its edges.
+        AnalysisContext.v().getBodyManager().retainLoadedBodies();
 
         this.flowDroidExecuted = true;
 
@@ -17,8 +17,6 @@ public class GraphSettings {
 
     private static final String FLOWDROID_CALLBACKS_FILE_NAME = "flow_droid_callbacks";
 
-    private static GraphSettings instance = null;
-
     private Format format;
 
     private File androidPlatformDirectory;
@@ -27,14 +25,19 @@ public class GraphSettings {
     private File callGraphFile;
     private File controlFlowGraphFile;
     private File flowDroidCallbacksFile;
+    private File cacheDirectory;
 
     private boolean importControlFlowGraph;
     private boolean defaultCallbacksFile;
     private boolean addMissingComponents;
     private boolean outputMissingComponents;
+    private boolean parallelUnitGraphs;
+    private boolean preloadBodies;
+    private boolean basicBlockGraphs;
+    private boolean pruneUnreachableMethods;
     private boolean loggerActive;
 
-    private GraphSettings() {
+    GraphSettings() {
         this.format = Format.JSON;
         this.androidPlatformDirectory = new File(System.getenv("ANDROID_HOME") + File.separator + "platforms");
         this.outputDirectory = new File(System.getProperty("user.dir") + File.separator + "output");
@@ -44,18 +47,19 @@ public class GraphSettings {
                 new File(this.outputDirectory + File.separator + GraphSettings.FLOWDROID_CALLBACKS_FILE_NAME);
         this.addMissingComponents = false;
         this.outputMissingComponents = false;
+        this.parallelUnitGraphs = false;
+        this.preloadBodies = false;
+        this.basicBlockGraphs = false;
+        this.pruneUnreachableMethods = false;
         this.loggerActive = true;
     }
 
     public static GraphSettings v() {
-        if (instance == null) {
-            instance = new GraphSettings();
-        }
-        return instance;
+        return AnalysisContext.v().getSettings();
     }
 
     public static void resetDefaults() {
-        instance = null;
+        AnalysisContext.v().resetSettings();
         LOGGER.info("GraphSettings have been reset to default.");
     }
 
@@ -69,6 +73,10 @@ public class GraphSettings {
         if (this.isImportControlFlowGraph()) {
             setImportControlFlowGraph(this.controlFlowGraphFile);
         }
+
+        if (this.isCacheAnalysis()) {
+            setCacheDirectory(this.cacheDirectory);
+        }
         this.loggerActive = true;
     }
 
@@ -199,4 +207,60 @@ public class GraphSettings {
         this.outputMissingComponents = outputMissingComponents;
         LOGGER.info("Output missing components set as " + outputMissingComponents);
     }
+
+    public boolean isParallelUnitGraphs() {
+        return this.parallelUnitGraphs;
+    }
+
+    public void setParallelUnitGraphs(boolean parallelUnitGraphs) {
+        this.parallelUnitGraphs = parallelUnitGraphs;
+        LOGGER.info("Parallel unit graph construction set as " + parallelUnitGraphs);
+    }
+
+    public boolean isPreloadBodies() {
+        return this.preloadBodies;
+    }
+
+    public void setPreloadBodies(boolean preloadBodies) {
+        this.preloadBodies = preloadBodies;
+        LOGGER.info("Parallel body pre-construction set as " + preloadBodies);
+    }
+
+    public boolean isBasicBlockGraphs() {
+        return this.basicBlockGraphs;
+    }
+
+    public void setBasicBlockGraphs(boolean basicBlockGraphs) {
+        this.basicBlockGraphs = basicBlockGraphs;
+        LOGGER.info("Basic block graphs set as " + basicBlockGraphs);
+    }
+
+    public boolean isPruneUnreachableMethods() {
+        return this.pruneUnreachableMethods;
+    }
+
+    public void setPruneUnreachableMethods(boolean pruneUnreachableMethods) {
+        this.pruneUnreachableMethods = pruneUnreachableMethods;
+        LOGGER.info("Prune unreachable methods set as " + pruneUnreachableMethods);
+    }
+
+    public boolean isCacheAnalysis() {
+        return this.cacheDirectory != null;
+    }
+
+    public File getCacheDirectory() {
+        return this.cacheDirectory;
+    }
+
+    public void setCacheDirectory(File cacheDirectory) throws IOException {
+        if (cacheDirectory == null || !cacheDirectory.isDirectory()) {
+            throw new IOException("Cache directory does not exist or is not a directory (" + cacheDirectory + ").");
+        }
+
+        this.cacheDirectory = cacheDirectory;
+
+        if (this.loggerActive) {
+            LOGGER.info("Analysis cache directory set as '" + cacheDirectory.getAbsolutePath() + "'.");
+        }
+    }
 }
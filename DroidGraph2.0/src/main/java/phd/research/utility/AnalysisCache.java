@@ -0,0 +1,253 @@
+package phd.research.utility;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import phd.research.enums.Format;
+import phd.research.graph.Control;
+import phd.research.singletons.GraphSettings;
+import phd.research.vertices.Vertex;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Properties;
+
+/**
+ * On disk cache of the static analysis of an APK. Each entry lives in a directory named after the SHA-256 digest of
+ * the APK, the AndroGuard call graph, the blacklists, the build of DroidGraph and the settings that change the
+ * analysis, so an entry can only ever be read for identical inputs. An entry holds the FlowDroid callbacks file, the
+ * parsed controls, the filtered call graph and the generated control flow graph. Entries are written to a temporary
+ * directory and moved into place once complete.
+ *
+ * @author Jordan Doyle
+ */
+
+public class AnalysisCache {
+
+    // Increment whenever the analysis or the format of a cached artifact changes.
+    private static final int CACHE_VERSION = 1;
+
+    private static final String CALLBACKS_FILE_NAME = "flow_droid_callbacks";
+    private static final String CONTROLS_FILE_NAME = "controls.ser";
+    private static final String CALL_GRAPH_NAME = "call_graph";
+    private static final String CONTROL_FLOW_GRAPH_NAME = "control_flow_graph";
+    private static final String KEY_FILE_NAME = "key.txt";
+    private static final String[] BLACKLIST_RESOURCES = {"package_blacklist", "class_blacklist", "layout_blacklist"};
+    private static final String BUILD_RESOURCE = "droidgraph.properties";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AnalysisCache.class);
+
+    private final File cacheDirectory;
+    private final String key;
+    private final File entryDirectory;
+
+    private int hits;
+    private int misses;
+
+    public AnalysisCache(File cacheDirectory, String key) {
+        this.cacheDirectory = cacheDirectory;
+        this.key = key;
+        this.entryDirectory = new File(cacheDirectory + File.separator + key);
+        this.hits = this.misses = 0;
+    }
+
+    public static AnalysisCache forSettings(GraphSettings settings) {
+        try {
+            return new AnalysisCache(settings.getCacheDirectory(), AnalysisCache.computeKey(settings));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to compute analysis cache key: " + e.getMessage(), e);
+        }
+    }
+
+    public static String computeKey(GraphSettings settings) throws IOException {
+        return AnalysisCache.computeKey(settings, AnalysisCache.class.getClassLoader());
+    }
+
+    // The blacklists and build properties are read from the class loader's resources, as Filter reads them.
+    static String computeKey(GraphSettings settings, ClassLoader resources) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not available: " + e.getMessage(), e);
+        }
+
+        AnalysisCache.updateDigest(digest, settings.getApkFile());
+        AnalysisCache.updateDigest(digest, settings.getCallGraphFile());
+        for (String blacklist : BLACKLIST_RESOURCES) {
+            AnalysisCache.updateDigest(digest, blacklist, resources);
+        }
+        String description = "version=" + CACHE_VERSION + "\nbuild=" + AnalysisCache.readBuild(resources) +
+                "\nplatform=" + settings.getPlatformDirectory().getAbsolutePath() + "\naddMissingComponents=" +
+                settings.isAddMissingComponents() + "\nbasicBlockGraphs=" + settings.isBasicBlockGraphs() +
+                "\npruneUnreachableMethods=" + settings.isPruneUnreachableMethods() + "\n";
+        digest.update(description.getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder builder = new StringBuilder();
+        for (byte b : digest.digest()) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+
+    private static void updateDigest(MessageDigest digest, File file) throws IOException {
+        // The length separates the files, so moving bytes from one file to the other changes the key.
+        digest.update(String.valueOf(file.length()).getBytes(StandardCharsets.UTF_8));
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream input = new FileInputStream(file)) {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    private static void updateDigest(MessageDigest digest, String resource, ClassLoader resources) throws IOException {
+        // A missing blacklist is read by Filter as an empty one, so it is digested as empty.
+        byte[] content = new byte[0];
+        try (InputStream input = resources.getResourceAsStream(resource)) {
+            if (input != null) {
+                content = IOUtils.toByteArray(input);
+            }
+        }
+        digest.update((resource + "=" + content.length + "\n").getBytes(StandardCharsets.UTF_8));
+        digest.update(content);
+    }
+
+    // The version and build time Maven writes into the build resource, so every build of DroidGraph has its own keys.
+    private static String readBuild(ClassLoader resources) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream input = resources.getResourceAsStream(BUILD_RESOURCE)) {
+            if (input != null) {
+                properties.load(input);
+            }
+        }
+        return properties.getProperty("version", "unknown") + " " + properties.getProperty("build", "unknown");
+    }
+
+    public String getKey() {
+        return this.key;
+    }
+
+    public int getHits() {
+        return this.hits;
+    }
+
+    public int getMisses() {
+        return this.misses;
+    }
+
+    public boolean isComplete() {
+        File keyFile = new File(this.entryDirectory + File.separator + KEY_FILE_NAME);
+        try {
+            return keyFile.isFile() &&
+                    new String(Files.readAllBytes(keyFile.toPath()), StandardCharsets.UTF_8).trim().equals(this.key);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to read analysis cache key: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public File loadCallbacksFile() {
+        File file = new File(this.entryDirectory + File.separator + CALLBACKS_FILE_NAME);
+        return this.record("FlowDroid callbacks", this.isComplete() && file.isFile() ? file : null);
+    }
+
+    public Collection<Control> loadControls() {
+        File file = new File(this.entryDirectory + File.separator + CONTROLS_FILE_NAME);
+        Collection<Control> controls = null;
+        if (this.isComplete() && file.isFile()) {
+            try (ObjectInputStream input = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                @SuppressWarnings("unchecked") Collection<Control> read = (Collection<Control>) input.readObject();
+                controls = read;
+            } catch (IOException | ClassNotFoundException | ClassCastException e) {
+                LOGGER.warn("Failed to read cached controls: " + e.getMessage());
+            }
+        }
+        return this.record("controls", controls);
+    }
+
+    public Graph<Vertex, DefaultEdge> loadCallGraph() {
+        return this.record("call graph", this.loadGraph(CALL_GRAPH_NAME));
+    }
+
+    public Graph<Vertex, DefaultEdge> loadControlFlowGraph() {
+        return this.record("control flow graph", this.loadGraph(CONTROL_FLOW_GRAPH_NAME));
+    }
+
+    public void store(File callbacksFile, Collection<Control> controls, Graph<Vertex, DefaultEdge> callGraph,
+            Graph<Vertex, DefaultEdge> controlFlowGraph) throws IOException {
+        File temporaryDirectory = Files.createTempDirectory(this.cacheDirectory.toPath(), this.key + ".").toFile();
+        try {
+            if (callbacksFile != null && callbacksFile.isFile()) {
+                Files.copy(callbacksFile.toPath(), new File(temporaryDirectory, CALLBACKS_FILE_NAME).toPath());
+            }
+
+            try (ObjectOutputStream output = new ObjectOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(new File(temporaryDirectory, CONTROLS_FILE_NAME))))) {
+                output.writeObject(new ArrayList<>(controls));
+            }
+
+            Writer.writeGraph(temporaryDirectory, CALL_GRAPH_NAME, Format.BINARY, callGraph);
+            Writer.writeGraph(temporaryDirectory, CONTROL_FLOW_GRAPH_NAME, Format.BINARY, controlFlowGraph);
+            // The key is written last, an entry without it is incomplete and never read.
+            Writer.writeString(temporaryDirectory, KEY_FILE_NAME, this.key);
+
+            try {
+                Files.move(temporaryDirectory.toPath(), this.entryDirectory.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                LOGGER.info("Stored analysis in cache entry '" + this.entryDirectory.getAbsolutePath() + "'.");
+            } catch (AtomicMoveNotSupportedException e) {
+                throw new IOException("Cache directory does not support atomic moves: " + e.getMessage(), e);
+            } catch (IOException e) {
+                // Another run stored the same entry first, its artifacts are identical.
+                if (!this.isComplete()) {
+                    throw e;
+                }
+            }
+        } finally {
+            if (temporaryDirectory.exists()) {
+                FileUtils.deleteDirectory(temporaryDirectory);
+            }
+        }
+    }
+
+    public String getSummary() {
+        return "Analysis cache " + this.key.substring(0, 12) + ": " + this.hits + " hit(s), " + this.misses +
+                " miss(es).";
+    }
+
+    private Graph<Vertex, DefaultEdge> loadGraph(String name) {
+        File file = new File(this.entryDirectory + File.separator + name + ".bin");
+        if (!this.isComplete() || !file.isFile()) {
+            return null;
+        }
+
+        try {
+            return Importer.importDroidGraph(file);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to read cached " + name + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private <T> T record(String artifact, T value) {
+        if (value != null) {
+            this.hits++;
+            LOGGER.info("Analysis cache hit: " + artifact + ".");
+        } else {
+            this.misses++;
+            LOGGER.info("Analysis cache miss: " + artifact + ".");
+        }
+        return value;
+    }
+}
@@ -1,6 +1,8 @@
 package phd.research.utility;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -10,9 +12,206 @@ import java.util.regex.Pattern;
 
 public class Bytecode {
 
+    private static final int CACHE_LIMIT = 1 << 16;
+    private static final ConcurrentMap<String, String> CACHE = new ConcurrentHashMap<>();
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(StringBuilder::new);
+
+    private static final Pattern SIGNATURE_PATTERN =
+            Pattern.compile("(\\[.|L.+;)->(.+)\\((.*)\\)(.+;|\\[?\\[?.) ?(\\[.+])?");
+
     public static String signatureToJimple(String signature) throws RuntimeException {
-        Pattern pattern = Pattern.compile("(\\[.|L.+;)->(.+)\\((.*)\\)(.+;|\\[?\\[?.) ?(\\[.+])?");
-        Matcher matcher = pattern.matcher(signature);
+        String jimpleSignature = Bytecode.CACHE.get(signature);
+        if (jimpleSignature == null) {
+            jimpleSignature = Bytecode.parseSignature(signature);
+            if (jimpleSignature == null) {
+                jimpleSignature = Bytecode.matchSignature(signature);
+            }
+
+            if (Bytecode.CACHE.size() < Bytecode.CACHE_LIMIT) {
+                Bytecode.CACHE.putIfAbsent(signature, jimpleSignature);
+            }
+        }
+        return jimpleSignature;
+    }
+
+    public static void clearCache() {
+        Bytecode.CACHE.clear();
+    }
+
+    /**
+     * Translates a signature of the form 'Lclass;->name(params)return [flags] @ offset' in one pass over its
+     * characters. Returns null for anything outside that form, which is then left to {@link #matchSignature(String)}
+     * so that unusual signatures translate (or fail) exactly as they always have.
+     */
+    private static String parseSignature(String signature) {
+        int length = signature.length();
+        int arrow = -1, open = -1, close = -1, lastSemicolon = -1;
+        for (int i = 0; i < length; i++) {
+            char c = signature.charAt(i);
+            switch (c) {
+                case '-':
+                    if (i + 1 < length && signature.charAt(i + 1) == '>') {
+                        if (arrow != -1) {
+                            return null;
+                        }
+                        arrow = i;
+                    }
+                    break;
+                case '(':
+                    if (open != -1 || arrow == -1) {
+                        return null;
+                    }
+                    open = i;
+                    break;
+                case ')':
+                    if (close != -1 || open == -1) {
+                        return null;
+                    }
+                    close = i;
+                    break;
+                case ';':
+                    lastSemicolon = i;
+                    break;
+                case '\n':
+                case '\r':
+                case '\u0085':
+                case '\u2028':
+                case '\u2029':
+                    return null;
+            }
+        }
+
+        if (arrow < 2 || signature.charAt(0) != 'L' || signature.charAt(arrow - 1) != ';' || close == -1) {
+            return null;
+        }
+
+        int nameStart = Bytecode.skipSpaces(signature, arrow + 2, open);
+        int nameEnd = Bytecode.trimSpaces(signature, nameStart, open);
+        if (nameStart == nameEnd) {
+            return null;
+        }
+
+        int returnStart = close + 1;
+        int returnEnd;
+        if (lastSemicolon > returnStart) {
+            returnEnd = lastSemicolon + 1;
+        } else if (lastSemicolon == returnStart) {
+            return null;
+        } else {
+            returnEnd = returnStart;
+            while (returnEnd < returnStart + 2 && returnEnd < length && signature.charAt(returnEnd) == '[') {
+                returnEnd++;
+            }
+            returnEnd++;
+        }
+        if (returnEnd > length) {
+            return null;
+        }
+
+        StringBuilder builder = Bytecode.BUILDER.get();
+        builder.setLength(0);
+        builder.append('<');
+        if (!Bytecode.appendType(builder, signature, 0, arrow)) {
+            return null;
+        }
+        builder.append(": ");
+        if (!Bytecode.appendType(builder, signature, returnStart, returnEnd)) {
+            return null;
+        }
+        builder.append(' ').append(signature, nameStart, nameEnd).append('(');
+
+        int parametersStart = Bytecode.skipSpaces(signature, open + 1, close);
+        int parametersEnd = Bytecode.trimSpaces(signature, parametersStart, close);
+        int parameterStart = parametersStart;
+        while (parameterStart < parametersEnd) {
+            int parameterEnd = signature.indexOf(' ', parameterStart);
+            if (parameterEnd == -1 || parameterEnd > parametersEnd) {
+                parameterEnd = parametersEnd;
+            }
+            if (parameterStart != parametersStart) {
+                builder.append(',');
+            }
+            if (!Bytecode.appendType(builder, signature, parameterStart, parameterEnd)) {
+                return null;
+            }
+            parameterStart = parameterEnd + 1;
+        }
+
+        return builder.append(")>").toString();
+    }
+
+    private static boolean appendType(StringBuilder builder, String signature, int start, int end) {
+        int dimensions = 0;
+        while (start < end && signature.charAt(start) == '[') {
+            dimensions++;
+            start++;
+        }
+
+        if (end - start == 1) {
+            String primitive = Bytecode.primitiveName(signature.charAt(start));
+            if (primitive == null) {
+                return false;
+            }
+            builder.append(primitive);
+        } else if (end - start > 2 && signature.charAt(start) == 'L' && signature.charAt(end - 1) == ';') {
+            for (int i = start + 1; i < end - 1; i++) {
+                char c = signature.charAt(i);
+                if (c <= ' ') {
+                    return false;
+                }
+                builder.append(c == '/' ? '.' : c);
+            }
+        } else {
+            return false;
+        }
+
+        for (int i = 0; i < dimensions; i++) {
+            builder.append("[]");
+        }
+        return true;
+    }
+
+    private static int skipSpaces(String signature, int start, int end) {
+        while (start < end && signature.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimSpaces(String signature, int start, int end) {
+        while (end > start && signature.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static String primitiveName(char primitiveType) {
+        switch (primitiveType) {
+            case 'V':
+                return "void";
+            case 'Z':
+                return "boolean";
+            case 'B':
+                return "byte";
+            case 'C':
+                return "char";
+            case 'S':
+                return "short";
+            case 'I':
+                return "int";
+            case 'J':
+                return "long";
+            case 'F':
+                return "float";
+            case 'D':
+                return "double";
+            default:
+                return null;
+        }
+    }
+
+    private static String matchSignature(String signature) throws RuntimeException {
+        Matcher matcher = Bytecode.SIGNATURE_PATTERN.matcher(signature);
 
         if (matcher.find()) {
             String className = Bytecode.typeToJimple(matcher.group(1).trim());
@@ -41,28 +240,11 @@ public class Bytecode {
     }
 
     private static String primitiveToJimple(String primitiveType) throws RuntimeException {
-        switch (primitiveType) {
-            case "V":
-                return "void";
-            case "Z":
-                return "boolean";
-            case "B":
-                return "byte";
-            case "C":
-                return "char";
-            case "S":
-                return "short";
-            case "I":
-                return "int";
-            case "J":
-                return "long";
-            case "F":
-                return "float";
-            case "D":
-                return "double";
-            default:
-                throw new RuntimeException("Primitive type \"" + primitiveType + "\" not recognised.");
+        String primitive = primitiveType.length() == 1 ? Bytecode.primitiveName(primitiveType.charAt(0)) : null;
+        if (primitive == null) {
+            throw new RuntimeException("Primitive type \"" + primitiveType + "\" not recognised.");
         }
+        return primitive;
     }
 
     private static String buildJimpleSignature(String className, String methodName, String returnType,
@@ -4,6 +4,9 @@ import org.jgrapht.Graph;
 import org.jgrapht.graph.DefaultEdge;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import phd.research.BlacklistMatcher;
+import phd.research.ValidityCache;
+import phd.research.singletons.AnalysisContext;
 import phd.research.singletons.GraphSettings;
 import phd.research.vertices.AndroGuardVertex;
 import soot.Scene;
@@ -12,15 +15,18 @@ import soot.SootMethod;
 import soot.jimple.infoflow.util.SystemClassHandler;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.stream.Collectors;
 
 /**
+ * Decides which classes, methods and layouts belong to the app under analysis. The checks on names (the system
+ * packages, the blacklists and the AndroGuard call graph) are cached per class and method, as they never change for a
+ * given app. Whether a class is a library or phantom class or excluded depends on the state of the Scene, which
+ * changes as classes are resolved and as FlowDroid builds its call graph, so it is checked on every call.
+ *
  * @author Jordan Doyle
  */
 
@@ -28,31 +34,57 @@ public class Filter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Filter.class);
 
-    private static final List<String> PACKAGE_BLACKLIST = Filter.loadBlacklist("package_blacklist");
-    private static final List<String> CLASS_BLACKLIST = Filter.loadBlacklist("class_blacklist");
-    private static final List<String> LAYOUT_BLACKLIST = Filter.loadBlacklist("layout_blacklist");
-
-    private static final Graph<AndroGuardVertex, DefaultEdge> ANDRO_GUARD_GRAPH =
-            Importer.importAndroGuardGraph(GraphSettings.v().getCallGraphFile());
-    private static final Map<String, Boolean> METHOD_EXTERNAL_STATUS = Filter.getExternalStatusMap();
+    private static final BlacklistMatcher PACKAGE_BLACKLIST =
+            Filter.compilePackageBlacklist(Filter.loadBlacklist("package_blacklist"));
+    private static final BlacklistMatcher CLASS_BLACKLIST =
+            BlacklistMatcher.ofSubstrings(Filter.loadBlacklist("class_blacklist"));
+    private static final Set<String> LAYOUT_BLACKLIST = new HashSet<>(Filter.loadBlacklist("layout_blacklist"));
 
     public static boolean isValidMethod(SootMethod method) {
-        if (Filter.isValidClass(method.getDeclaringClass())) {
-            if (method.getName().startsWith("access$")) {
-                return false;
-            }
+        return Filter.isValidClass(method.getDeclaringClass()) &&
+                AnalysisContext.v().getFilterTables().methodValidity.isValid(method);
+    }
 
-            String methodSignature = method.getSignature().replace("'", "");
-            if (Filter.METHOD_EXTERNAL_STATUS.containsKey(methodSignature)) {
-                return !Filter.METHOD_EXTERNAL_STATUS.get(methodSignature);
-            }
+    public static boolean isValidClass(SootClass clazz) {
+        return !clazz.isLibraryClass() && !clazz.isPhantomClass() && !Scene.v().isExcluded(clazz) &&
+                AnalysisContext.v().getFilterTables().classValidity.isValid(clazz);
+    }
+
+    public static boolean isValidLayout(String layout) {
+        return !Filter.LAYOUT_BLACKLIST.contains(layout);
+    }
+
+    public static Graph<AndroGuardVertex, DefaultEdge> getAndroGuardCallGraph() {
+        return Filter.getAndroGuard().graph;
+    }
+
+    public static void clearCache() {
+        AnalysisContext.v().getFilterTables().clearCache();
+    }
+
+    // Drops everything loaded for the current app, the next check imports the call graph from the current settings.
+    public static void reset() {
+        AnalysisContext.v().resetFilterTables();
+    }
+
+    private static AndroGuard getAndroGuard() {
+        return AnalysisContext.v().getFilterTables().getAndroGuard();
+    }
+
+    // The checks of a method that do not depend on its class, which isValidMethod checks first.
+    private static boolean checkMethod(SootMethod method) {
+        if (method.getName().startsWith("access$")) {
+            return false;
         }
-        return false;
+
+        String methodSignature = method.getSignature().replace("'", "");
+        Boolean external = Filter.getAndroGuard().methodExternalStatus.get(methodSignature);
+        return external != null && !external;
     }
 
-    public static boolean isValidClass(SootClass clazz) {
+    // The checks of a class on its name only, the Scene's flags are checked by isValidClass.
+    private static boolean checkClass(SootClass clazz) {
         if (SystemClassHandler.v().isClassInSystemPackage(clazz) || clazz.isJavaLibraryClass() ||
-                clazz.isLibraryClass() || clazz.isPhantomClass() || Scene.v().isExcluded(clazz) ||
                 !Filter.isValidPackage(clazz.getPackageName())) {
             return false;
         }
@@ -61,22 +93,18 @@ public class Filter {
             return false;
         }
 
-        return Filter.CLASS_BLACKLIST.stream()
-                .noneMatch(blacklistedClass -> clazz.getShortName().contains(blacklistedClass));
-    }
-
-    public static boolean isValidLayout(String layout) {
-        return !Filter.LAYOUT_BLACKLIST.contains(layout);
+        return !Filter.CLASS_BLACKLIST.matches(clazz.getShortName());
     }
 
-    public static Graph<AndroGuardVertex, DefaultEdge> getAndroGuardCallGraph() {
-        return Filter.ANDRO_GUARD_GRAPH;
+    private static boolean isValidPackage(String packageName) {
+        return !Filter.PACKAGE_BLACKLIST.matches(packageName);
     }
 
-    private static boolean isValidPackage(String packageName) {
-        return Filter.PACKAGE_BLACKLIST.stream().noneMatch(
-                blacklistedPackage -> blacklistedPackage.startsWith(".") ? packageName.contains(blacklistedPackage) :
-                        packageName.startsWith(blacklistedPackage));
+    // Rules starting with '.' match anywhere in a package name, all other rules match the start of the name.
+    private static BlacklistMatcher compilePackageBlacklist(List<String> rules) {
+        Map<Boolean, List<String>> partitioned =
+                rules.stream().collect(Collectors.partitioningBy(rule -> rule.startsWith(".")));
+        return new BlacklistMatcher(partitioned.get(false), partitioned.get(true));
     }
 
     private static List<String> loadBlacklist(String fileName) {
@@ -87,11 +115,50 @@ public class Filter {
                 new ArrayList<>();
     }
 
-    private static Map<String, Boolean> getExternalStatusMap() {
-        LOGGER.info("Loading AndroGuard external status map.");
-        Map<String, Boolean> statusMap = new HashMap<>();
-        Filter.ANDRO_GUARD_GRAPH.vertexSet()
-                .forEach(vertex -> statusMap.put(vertex.getJimpleSignature(), vertex.isExternal()));
-        return statusMap;
+    /**
+     * The validity caches and the AndroGuard call graph of one app, held by its {@link AnalysisContext}.
+     */
+    public static class Tables {
+
+        private final ValidityCache<SootClass> classValidity;
+        private final ValidityCache<SootMethod> methodValidity;
+
+        private volatile AndroGuard androGuard;
+
+        public Tables() {
+            this.classValidity = new ValidityCache<>(Filter::checkClass);
+            this.methodValidity = new ValidityCache<>(Filter::checkMethod);
+        }
+
+        private void clearCache() {
+            this.classValidity.clear();
+            this.methodValidity.clear();
+        }
+
+        // The AndroGuard call graph is only imported the first time a method is checked or the graph is used.
+        private AndroGuard getAndroGuard() {
+            AndroGuard current = this.androGuard;
+            if (current == null) {
+                synchronized (this) {
+                    current = this.androGuard;
+                    if (current == null) {
+                        current = new AndroGuard(GraphSettings.v().getCallGraphFile());
+                        this.androGuard = current;
+                    }
+                }
+            }
+            return current;
+        }
+    }
+
+    private static class AndroGuard {
+
+        private final Map<String, Boolean> methodExternalStatus;
+        private final Graph<AndroGuardVertex, DefaultEdge> graph;
+
+        private AndroGuard(File callGraphFile) {
+            this.methodExternalStatus = new HashMap<>();
+            this.graph = Importer.importAndroGuardGraph(callGraphFile, false, this.methodExternalStatus);
+        }
     }
 }
@@ -0,0 +1,154 @@
+package phd.research.utility;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Minimal pull parser for GML documents such as the call graphs written by AndroGuard's 'cg' command. A document is a
+ * sequence of key-value pairs where each value is a number, a quoted string or a bracketed list of further pairs.
+ * Strings are returned exactly as they appear between the quotes.
+ *
+ * @author Jordan Doyle
+ */
+
+public class GMLPullParser implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer;
+    private final StringBuilder builder;
+
+    private int position;
+    private int limit;
+
+    public GMLPullParser(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[BUFFER_SIZE];
+        this.builder = new StringBuilder();
+        this.position = 0;
+        this.limit = 0;
+    }
+
+    private static boolean isDelimiter(int c) {
+        return c == -1 || c == '[' || c == ']' || c == '"' || Character.isWhitespace(c);
+    }
+
+    public boolean hasNext() throws IOException {
+        int c = this.peekSignificant();
+        return c != ']' && c != -1;
+    }
+
+    public boolean isNextList() throws IOException {
+        return this.peekSignificant() == '[';
+    }
+
+    public void beginList() throws IOException {
+        this.expect('[');
+    }
+
+    public void endList() throws IOException {
+        this.expect(']');
+    }
+
+    public String nextKey() throws IOException {
+        int c = this.peekSignificant();
+        if (!Character.isLetter(c) && c != '_') {
+            throw this.syntaxError("Expected a key");
+        }
+        return this.readToken();
+    }
+
+    public String nextValue() throws IOException {
+        int c = this.peekSignificant();
+        if (c == '"') {
+            this.position++;
+            return this.readString();
+        } else if (GMLPullParser.isDelimiter(c)) {
+            throw this.syntaxError("Expected a value");
+        }
+        return this.readToken();
+    }
+
+    public void skipValue() throws IOException {
+        if (this.isNextList()) {
+            this.beginList();
+            while (this.hasNext()) {
+                this.nextKey();
+                this.skipValue();
+            }
+            this.endList();
+        } else {
+            this.nextValue();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+
+    private int peek() throws IOException {
+        if (this.position == this.limit) {
+            this.limit = this.reader.read(this.buffer, 0, this.buffer.length);
+            this.position = 0;
+            if (this.limit <= 0) {
+                this.limit = 0;
+                return -1;
+            }
+        }
+        return this.buffer[this.position];
+    }
+
+    private int peekSignificant() throws IOException {
+        int c = this.peek();
+        while (c != -1 && (Character.isWhitespace(c) || c == '#')) {
+            if (c == '#') {
+                while (c != -1 && c != '\n') {
+                    this.position++;
+                    c = this.peek();
+                }
+            } else {
+                this.position++;
+                c = this.peek();
+            }
+        }
+        return c;
+    }
+
+    private void expect(char expected) throws IOException {
+        if (this.peekSignificant() != expected) {
+            throw this.syntaxError("Expected '" + expected + "'");
+        }
+        this.position++;
+    }
+
+    private String readToken() throws IOException {
+        this.builder.setLength(0);
+        while (!GMLPullParser.isDelimiter(this.peek())) {
+            this.builder.append(this.buffer[this.position++]);
+        }
+        return this.builder.toString();
+    }
+
+    private String readString() throws IOException {
+        this.builder.setLength(0);
+        int c;
+        while ((c = this.peek()) != '"') {
+            if (c == -1) {
+                throw new EOFException("Unterminated GML string.");
+            }
+            this.builder.append((char) c);
+            this.position++;
+        }
+        this.position++;
+        return this.builder.toString();
+    }
+
+    private IOException syntaxError(String message) throws IOException {
+        int c = this.peek();
+        return new IOException(message + " but found " + (c == -1 ? "end of input" : "'" + (char) c + "'") + ".");
+    }
+}
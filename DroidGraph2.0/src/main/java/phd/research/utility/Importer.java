@@ -1,27 +1,25 @@
 package phd.research.utility;
 
 import org.jgrapht.Graph;
-import org.jgrapht.alg.util.Pair;
 import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
-import org.jgrapht.nio.Attribute;
-import org.jgrapht.nio.gml.GmlImporter;
-import org.jgrapht.nio.json.JSONImporter;
-import org.jgrapht.util.SupplierUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import phd.research.enums.Type;
+import phd.research.graph.Control;
+import phd.research.graph.UnitTextPool;
 import phd.research.singletons.FlowDroidAnalysis;
-import phd.research.vertices.AndroGuardVertex;
-import phd.research.vertices.Vertex;
-import phd.research.vertices.VertexFactory;
+import phd.research.vertices.*;
 import soot.Scene;
 import soot.SootClass;
 import soot.SootMethod;
 
-import java.io.File;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.BiConsumer;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
 
 /**
  * @author Jordan Doyle
@@ -32,40 +30,62 @@ public class Importer {
     private static final Logger LOGGER = LoggerFactory.getLogger(Importer.class);
 
     public static Graph<AndroGuardVertex, DefaultEdge> importAndroGuardGraph(File graphFile) {
-        LOGGER.info("Importing AndroGuard call graph from " + graphFile);
-
-        Graph<Integer, DefaultEdge> tempGraph =
-                new DefaultDirectedGraph<>(SupplierUtil.createIntegerSupplier(), SupplierUtil.DEFAULT_EDGE_SUPPLIER,
-                        false
-                );
+        return Importer.importAndroGuardGraph(graphFile, false, new HashMap<>());
+    }
 
-        GmlImporter<Integer, DefaultEdge> importer = new GmlImporter<>();
-        Map<Integer, Map<String, Attribute>> attributes = new HashMap<>();
-        importer.addVertexAttributeConsumer(createAttributeConsumer(attributes));
-        importer.importGraph(tempGraph, graphFile);
+    /**
+     * Reads an AndroGuard call graph in a single pass. Each node is converted to an {@link AndroGuardVertex} once. A
+     * node is added to the graph when the first edge that uses it is read, or immediately if isolated nodes are
+     * included. Every vertex added to the graph also records the external status of its Jimple signature in the given
+     * map.
+     */
+    public static Graph<AndroGuardVertex, DefaultEdge> importAndroGuardGraph(File graphFile, boolean includeIsolated,
+            Map<String, Boolean> externalStatus) {
+        LOGGER.info("Importing AndroGuard call graph from " + graphFile);
 
         Graph<AndroGuardVertex, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        AndroGuardVertex[] vertices = new AndroGuardVertex[1024];
+        Map<String, String> attributes = new HashMap<>();
 
-        // Warning: Only looping edges, isolated vertices (no edges) will be excluded.
-        tempGraph.edgeSet().forEach(edgeId -> {
-            Map<String, Attribute> sourceAttributes = attributes.get(tempGraph.getEdgeSource(edgeId));
-            AndroGuardVertex sourceVertex =
-                    new AndroGuardVertex(tempGraph.getEdgeSource(edgeId), sourceAttributes.get("label").getValue(),
-                            "1".equals(sourceAttributes.get("external").getValue()),
-                            "1".equals(sourceAttributes.get("entrypoint").getValue())
-                    );
-            graph.addVertex(sourceVertex);
-
-            Map<String, Attribute> targetAttributes = attributes.get(tempGraph.getEdgeTarget(edgeId));
-            AndroGuardVertex targetVertex =
-                    new AndroGuardVertex(tempGraph.getEdgeTarget(edgeId), targetAttributes.get("label").getValue(),
-                            "1".equals(targetAttributes.get("external").getValue()),
-                            "1".equals(targetAttributes.get("entrypoint").getValue())
-                    );
-            graph.addVertex(targetVertex);
-
-            graph.addEdge(sourceVertex, targetVertex);
-        });
+        try (GMLPullParser parser = new GMLPullParser(
+                new InputStreamReader(new FileInputStream(graphFile), StandardCharsets.UTF_8))) {
+            while (parser.hasNext()) {
+                if (!parser.nextKey().equals("graph") || !parser.isNextList()) {
+                    parser.skipValue();
+                    continue;
+                }
+
+                parser.beginList();
+                while (parser.hasNext()) {
+                    String key = parser.nextKey();
+                    if (key.equals("node") && parser.isNextList()) {
+                        Importer.readGMLAttributes(parser, attributes);
+                        int id = Importer.parseVertexId(attributes.get("id"));
+                        if (id >= vertices.length) {
+                            vertices = Arrays.copyOf(vertices, Math.max(id + 1, vertices.length * 2));
+                        }
+                        vertices[id] = new AndroGuardVertex(id, attributes.get("label"),
+                                "1".equals(attributes.get("external")), "1".equals(attributes.get("entrypoint"))
+                        );
+                        if (includeIsolated) {
+                            Importer.addAndroGuardVertex(graph, vertices[id], externalStatus);
+                        }
+                    } else if (key.equals("edge") && parser.isNextList()) {
+                        Importer.readGMLAttributes(parser, attributes);
+                        AndroGuardVertex source = Importer.getVertex(vertices, attributes.get("source"));
+                        Importer.addAndroGuardVertex(graph, source, externalStatus);
+                        AndroGuardVertex target = Importer.getVertex(vertices, attributes.get("target"));
+                        Importer.addAndroGuardVertex(graph, target, externalStatus);
+                        graph.addEdge(source, target);
+                    } else {
+                        parser.skipValue();
+                    }
+                }
+                parser.endList();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read AndroGuard call graph file: " + e.getMessage(), e);
+        }
 
         LOGGER.info("AndroGuard call graph contains " + graph.vertexSet().size() + " vertices and " +
                 graph.edgeSet().size() + " edges.");
@@ -113,45 +133,236 @@ public class Importer {
     public static Graph<Vertex, DefaultEdge> importDroidGraph(File graphFile) throws RuntimeException {
         LOGGER.info("Importing control flow graph from " + graphFile);
 
-        Graph<Integer, DefaultEdge> tempGraph =
-                new DefaultDirectedGraph<>(SupplierUtil.createIntegerSupplier(), SupplierUtil.DEFAULT_EDGE_SUPPLIER,
-                        false
-                );
+        if (Importer.isBinaryDroidGraph(graphFile)) {
+            return Importer.importBinaryDroidGraph(graphFile);
+        }
 
-        JSONImporter<Integer, DefaultEdge> importer = new JSONImporter<>();
-        Map<Integer, Map<String, Attribute>> attributes = new HashMap<>();
-        importer.addVertexAttributeConsumer(createAttributeConsumer(attributes));
-        importer.importGraph(tempGraph, graphFile);
+        Graph<Vertex, DefaultEdge> graph = Importer.importJSONDroidGraph(graphFile);
 
+        LOGGER.info("Imported control flow graph contains " + graph.vertexSet().size() + " vertices and " +
+                graph.edgeSet().size() + " edges.");
+        return graph;
+    }
+
+    /**
+     * Reads a graph written by {@link Writer} in JSON format in a single pass. Each vertex is created once, when its
+     * node is read, and its file id is used as the vertex id. Edges are added as they are read, so nodes must appear
+     * before the edges that reference them, as they do in every file the JGraphT JSON exporter writes.
+     */
+    private static Graph<Vertex, DefaultEdge> importJSONDroidGraph(File graphFile) {
         Graph<Vertex, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
         VertexFactory factory = new VertexFactory();
+        Vertex[] vertices = new Vertex[1024];
+        Map<String, String> attributes = new HashMap<>();
+        Map<Vertex, Vertex> added = new HashMap<>();
 
-        // Loop through vertices first so that isolated vertices (vertex with no edge) are included in the graph.
-        tempGraph.vertexSet().forEach(vertexId -> {
-            Vertex sourceVertex = factory.createVertex(vertexId, attributes.get(vertexId));
-            graph.addVertex(sourceVertex);
-        });
-        tempGraph.edgeSet().forEach(edgeId -> {
-            int sourceId = tempGraph.getEdgeSource(edgeId);
-            Vertex sourceVertex = factory.createVertex(sourceId, attributes.get(sourceId));
-            graph.addVertex(sourceVertex);
-            int targetId = tempGraph.getEdgeTarget(edgeId);
-            Vertex targetVertex = factory.createVertex(targetId, attributes.get(targetId));
-            graph.addVertex(targetVertex);
-            graph.addEdge(sourceVertex, targetVertex);
-        });
+        try (JSONPullParser parser = new JSONPullParser(
+                new InputStreamReader(new FileInputStream(graphFile), StandardCharsets.UTF_8))) {
+            parser.beginObject();
+            while (parser.hasNext()) {
+                String name = parser.nextName();
+                if (name.equals("nodes")) {
+                    parser.beginArray();
+                    while (parser.hasNext()) {
+                        Importer.readJSONAttributes(parser, attributes);
+                        int id = Importer.parseVertexId(attributes.get("id"));
+                        if (id >= vertices.length) {
+                            vertices = Arrays.copyOf(vertices, Math.max(id + 1, vertices.length * 2));
+                        }
+                        Vertex vertex = factory.createVertex(id, attributes::get);
+                        vertices[id] = Importer.addVertex(graph, added, vertex);
+                    }
+                    parser.endArray();
+                } else if (name.equals("edges")) {
+                    parser.beginArray();
+                    while (parser.hasNext()) {
+                        Importer.readJSONAttributes(parser, attributes);
+                        Vertex source = Importer.getVertex(vertices, attributes.get("source"));
+                        Vertex target = Importer.getVertex(vertices, attributes.get("target"));
+                        graph.addEdge(source, target);
+                    }
+                    parser.endArray();
+                } else {
+                    parser.skipValue();
+                }
+            }
+            parser.endObject();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read control flow graph file: " + e.getMessage(), e);
+        }
+
+        // Every unit has been read, so the unit texts can be compressed.
+        UnitTextPool.v().sealAll();
+        return graph;
+    }
+
+    private static void readJSONAttributes(JSONPullParser parser, Map<String, String> attributes)
+            throws IOException {
+        attributes.clear();
+        parser.beginObject();
+        while (parser.hasNext()) {
+            String name = parser.nextName();
+            if (parser.isNextObject() || parser.isNextArray()) {
+                parser.skipValue();
+            } else {
+                attributes.put(name, parser.nextValue());
+            }
+        }
+        parser.endObject();
+    }
+
+    private static void readGMLAttributes(GMLPullParser parser, Map<String, String> attributes) throws IOException {
+        attributes.clear();
+        parser.beginList();
+        while (parser.hasNext()) {
+            String key = parser.nextKey();
+            if (parser.isNextList()) {
+                parser.skipValue();
+            } else {
+                attributes.put(key, parser.nextValue());
+            }
+        }
+        parser.endList();
+    }
 
+    private static void addAndroGuardVertex(Graph<AndroGuardVertex, DefaultEdge> graph, AndroGuardVertex vertex,
+            Map<String, Boolean> externalStatus) {
+        if (graph.addVertex(vertex)) {
+            externalStatus.put(vertex.getJimpleSignature(), vertex.isExternal());
+        }
+    }
+
+    private static int parseVertexId(String id) {
+        try {
+            int value = Integer.parseInt(id);
+            if (value < 0) {
+                throw new RuntimeException("Negative vertex id in graph file: " + id);
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid vertex id in graph file: " + e.getMessage(), e);
+        }
+    }
+
+    private static <V> V getVertex(V[] vertices, String id) {
+        int index = Importer.parseVertexId(id);
+        if (index >= vertices.length || vertices[index] == null) {
+            throw new RuntimeException("Edge references unknown vertex id: " + id);
+        }
+        return vertices[index];
+    }
+
+    // Where the graph already holds an equal vertex (e.g. a UnitVertex with the same method and unit), that vertex is
+    // returned and reused for edges. The map of added vertices only lives for the import.
+    private static Vertex addVertex(Graph<Vertex, DefaultEdge> graph, Map<Vertex, Vertex> added, Vertex vertex) {
+        Vertex existing = added.putIfAbsent(vertex, vertex);
+        if (existing != null) {
+            return existing;
+        }
+
+        graph.addVertex(vertex);
+        return vertex;
+    }
+
+    private static boolean isBinaryDroidGraph(File graphFile) {
+        if (graphFile.length() < Integer.BYTES) {
+            return false;
+        }
+
+        try (DataInputStream input = new DataInputStream(new FileInputStream(graphFile))) {
+            return input.readInt() == Writer.BINARY_MAGIC;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read control flow graph file: " + e.getMessage(), e);
+        }
+    }
+
+    private static Graph<Vertex, DefaultEdge> importBinaryDroidGraph(File graphFile) {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(graphFile.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to map control flow graph file: " + e.getMessage(), e);
+        }
+
+        buffer.getInt();
+        int version = buffer.getInt();
+        if (version != Writer.BINARY_VERSION) {
+            throw new RuntimeException("Unsupported binary control flow graph version: " + version);
+        }
+
+        int vertexCount = buffer.getInt();
+        int edgeCount = buffer.getInt();
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        Type[] types = Type.values();
+        Vertex[] vertices = new Vertex[vertexCount];
+        Graph<Vertex, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        Map<Vertex, Vertex> added = new HashMap<>(Math.max(16, (int) (vertexCount / 0.75f) + 1));
+        for (int i = 0; i < vertexCount; i++) {
+            Vertex vertex = Importer.readBinaryVertex(buffer, i + 1, types[buffer.get()], strings);
+            vertices[i] = Importer.addVertex(graph, added, vertex);
+        }
+
+        for (Vertex source : vertices) {
+            int degree = buffer.getInt();
+            for (int j = 0; j < degree; j++) {
+                graph.addEdge(source, vertices[buffer.getInt()]);
+            }
+        }
+
+        if (graph.edgeSet().size() != edgeCount) {
+            throw new RuntimeException("Binary control flow graph expected " + edgeCount + " edges but contains " +
+                    graph.edgeSet().size() + ".");
+        }
+
+        UnitTextPool.v().sealAll();
         LOGGER.info("Imported control flow graph contains " + graph.vertexSet().size() + " vertices and " +
                 graph.edgeSet().size() + " edges.");
         return graph;
     }
 
-    private static BiConsumer<Pair<Integer, String>, Attribute> createAttributeConsumer(
-            Map<Integer, Map<String, Attribute>> attr) {
-        return (p, a) -> {
-            Map<String, Attribute> map = attr.computeIfAbsent(p.getFirst(), k -> new HashMap<>());
-            map.put(p.getSecond(), a);
-        };
+    private static Vertex readBinaryVertex(ByteBuffer buffer, int id, Type type, String[] strings) {
+        switch (type) {
+            case DUMMY:
+                return new DummyVertex(id, strings[buffer.getInt()]);
+            case LIFECYCLE:
+                return new LifecycleVertex(id, strings[buffer.getInt()]);
+            case LISTENER:
+                return new ListenerVertex(id, strings[buffer.getInt()]);
+            case CALLBACK:
+                return new CallbackVertex(id, strings[buffer.getInt()]);
+            case METHOD:
+                return new MethodVertex(id, strings[buffer.getInt()]);
+            case UNIT:
+                String methodSignature = strings[buffer.getInt()];
+                return new UnitVertex(id, methodSignature, strings[buffer.getInt()]);
+            case BLOCK:
+                String blockSignature = strings[buffer.getInt()];
+                int blockIndex = buffer.getInt();
+                String units = strings[buffer.getInt()];
+                return new BlockVertex(id, blockSignature, blockIndex, Arrays.asList(units.split("\n")));
+            case CONTROL:
+                int controlId = buffer.getInt();
+                String controlName = strings[buffer.getInt()];
+                int layoutId = buffer.getInt();
+                String layoutName = strings[buffer.getInt()];
+                String activity = strings[buffer.getInt()];
+                List<String> listeners = new ArrayList<>();
+                int listenerCount = buffer.getInt();
+                for (int i = 0; i < listenerCount; i++) {
+                    listeners.add(strings[buffer.getInt()]);
+                }
+                return new ControlVertex(id, new Control(controlId, controlName, layoutId, layoutName, activity,
+                        listeners
+                ));
+            default:
+                throw new RuntimeException("Unrecognised vertex type: " + type);
+        }
     }
 
     private static Vertex convertVertex(AndroGuardVertex androGuardVertex) {
@@ -0,0 +1,204 @@
+package phd.research.utility;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Minimal pull parser for JSON documents. Values are read one at a time straight from the underlying reader, so a
+ * document is never held in memory as a whole. Scalars (strings, numbers, booleans) are returned as strings and null
+ * is returned as null.
+ *
+ * @author Jordan Doyle
+ */
+
+public class JSONPullParser implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer;
+    private final StringBuilder builder;
+
+    private int position;
+    private int limit;
+
+    public JSONPullParser(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[BUFFER_SIZE];
+        this.builder = new StringBuilder();
+        this.position = 0;
+        this.limit = 0;
+    }
+
+    private static boolean isDelimiter(int c) {
+        return c == -1 || c == ',' || c == ':' || c == '}' || c == ']' || Character.isWhitespace(c);
+    }
+
+    public void beginObject() throws IOException {
+        this.expect('{');
+    }
+
+    public void endObject() throws IOException {
+        this.expect('}');
+    }
+
+    public void beginArray() throws IOException {
+        this.expect('[');
+    }
+
+    public void endArray() throws IOException {
+        this.expect(']');
+    }
+
+    public boolean hasNext() throws IOException {
+        int c = this.peekSignificant();
+        return c != '}' && c != ']' && c != -1;
+    }
+
+    public boolean isNextObject() throws IOException {
+        return this.peekSignificant() == '{';
+    }
+
+    public boolean isNextArray() throws IOException {
+        return this.peekSignificant() == '[';
+    }
+
+    public String nextName() throws IOException {
+        if (this.peekSignificant() != '"') {
+            throw this.syntaxError("Expected a name");
+        }
+        this.position++;
+        String name = this.readString();
+        this.expect(':');
+        return name;
+    }
+
+    public String nextValue() throws IOException {
+        int c = this.peekSignificant();
+        if (c == '"') {
+            this.position++;
+            return this.readString();
+        } else if (c == '{' || c == '[' || JSONPullParser.isDelimiter(c)) {
+            throw this.syntaxError("Expected a scalar value");
+        }
+
+        this.builder.setLength(0);
+        while (!JSONPullParser.isDelimiter(this.peek())) {
+            this.builder.append(this.buffer[this.position++]);
+        }
+        String literal = this.builder.toString();
+        return literal.equals("null") ? null : literal;
+    }
+
+    public void skipValue() throws IOException {
+        if (this.isNextObject()) {
+            this.beginObject();
+            while (this.hasNext()) {
+                this.nextName();
+                this.skipValue();
+            }
+            this.endObject();
+        } else if (this.isNextArray()) {
+            this.beginArray();
+            while (this.hasNext()) {
+                this.skipValue();
+            }
+            this.endArray();
+        } else {
+            this.nextValue();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+
+    private int peek() throws IOException {
+        if (this.position == this.limit) {
+            this.limit = this.reader.read(this.buffer, 0, this.buffer.length);
+            this.position = 0;
+            if (this.limit <= 0) {
+                this.limit = 0;
+                return -1;
+            }
+        }
+        return this.buffer[this.position];
+    }
+
+    private int peekSignificant() throws IOException {
+        int c = this.peek();
+        while (c == ',' || (c != -1 && Character.isWhitespace(c))) {
+            this.position++;
+            c = this.peek();
+        }
+        return c;
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = this.peekSignificant();
+        if (c != expected) {
+            throw this.syntaxError("Expected '" + expected + "'");
+        }
+        this.position++;
+    }
+
+    private int read() throws IOException {
+        int c = this.peek();
+        if (c == -1) {
+            throw new EOFException("Unterminated JSON string.");
+        }
+        this.position++;
+        return c;
+    }
+
+    private String readString() throws IOException {
+        this.builder.setLength(0);
+        int c;
+        while ((c = this.read()) != '"') {
+            if (c == '\\') {
+                c = this.read();
+                switch (c) {
+                    case 'b':
+                        this.builder.append('\b');
+                        break;
+                    case 'f':
+                        this.builder.append('\f');
+                        break;
+                    case 'n':
+                        this.builder.append('\n');
+                        break;
+                    case 'r':
+                        this.builder.append('\r');
+                        break;
+                    case 't':
+                        this.builder.append('\t');
+                        break;
+                    case 'u':
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(this.read(), 16);
+                            if (digit < 0) {
+                                throw this.syntaxError("Invalid unicode escape");
+                            }
+                            code = (code << 4) | digit;
+                        }
+                        this.builder.append((char) code);
+                        break;
+                    default:
+                        this.builder.append((char) c);
+                }
+            } else {
+                this.builder.append((char) c);
+            }
+        }
+        return this.builder.toString();
+    }
+
+    private IOException syntaxError(String message) throws IOException {
+        int c = this.peek();
+        return new IOException(message + " but found " + (c == -1 ? "end of input" : "'" + (char) c + "'") + ".");
+    }
+}
@@ -8,17 +8,13 @@ import org.jgrapht.nio.json.JSONExporter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import phd.research.enums.Format;
-import phd.research.vertices.Vertex;
+import phd.research.graph.Control;
+import phd.research.vertices.*;
 import soot.util.MultiMap;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Map;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 
 /**
  * @author Jordan Doyle
@@ -26,6 +22,9 @@ import java.util.Map;
 
 public class Writer {
 
+    public static final int BINARY_MAGIC = 0x44474346; // "DGCF"
+    public static final int BINARY_VERSION = 1;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(Writer.class);
 
     public static void writeGraph(File directory, String fileName, Format format, Graph<Vertex, DefaultEdge> graph)
@@ -40,10 +39,14 @@ public class Writer {
             case GML:
                 exportGML(directory, fileName, graph);
                 break;
+            case BINARY:
+                exportBinary(directory, fileName, graph);
+                break;
             case ALL:
                 exportDOT(directory, fileName, graph);
                 exportJSON(directory, fileName, graph);
                 exportGML(directory, fileName, graph);
+                exportBinary(directory, fileName, graph);
                 break;
         }
     }
@@ -141,4 +144,104 @@ public class Writer {
 
         writer.close();
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes the graph in the DroidGraph binary format, read back by {@link Importer#importDroidGraph(File)}. All
+     * values are big-endian. The file holds a header (magic, version, vertex count, edge count, string count), a
+     * table of UTF-8 strings, one record per vertex and, for each vertex in record order, its out-degree followed by
+     * the record indices of its targets. Vertex ids are not stored; as with the JSON export, the vertex at record
+     * index i is imported with id i + 1.
+     */
+    private static void exportBinary(File directory, String fileName, Graph<Vertex, DefaultEdge> graph)
+            throws IOException {
+        File file = new File(directory + File.separator + fileName + ".bin");
+        createFile(file);
+
+        // Unit texts are decoded from the unit text pool each time they are asked for, so the strings of each vertex
+        // are looked up once and their ids kept for writing the vertex.
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        Map<Vertex, Integer> records = new IdentityHashMap<>();
+        int[][] stringIds = new int[graph.vertexSet().size()][];
+        for (Vertex vertex : graph.vertexSet()) {
+            int record = records.size();
+            records.put(vertex, record);
+            if (vertex instanceof MethodVertex) {
+                stringIds[record] = new int[]{Writer.stringId(strings, ((MethodVertex) vertex).getMethodSignature())};
+            } else if (vertex instanceof UnitVertex) {
+                UnitVertex unitVertex = (UnitVertex) vertex;
+                stringIds[record] = new int[]{Writer.stringId(strings, unitVertex.getMethodSignature()),
+                        Writer.stringId(strings, unitVertex.getUnit())};
+            } else if (vertex instanceof BlockVertex) {
+                BlockVertex blockVertex = (BlockVertex) vertex;
+                stringIds[record] = new int[]{Writer.stringId(strings, blockVertex.getMethodSignature()),
+                        Writer.stringId(strings, String.join("\n", blockVertex.getUnits()))};
+            } else if (vertex instanceof ControlVertex) {
+                Control control = ((ControlVertex) vertex).getControl();
+                int[] ids = new int[3 + control.getListeners().size()];
+                ids[0] = Writer.stringId(strings, control.getControlName());
+                ids[1] = Writer.stringId(strings, control.getLayoutName());
+                ids[2] = Writer.stringId(strings, control.getActivity());
+                int i = 3;
+                for (String listener : control.getListeners()) {
+                    ids[i++] = Writer.stringId(strings, listener);
+                }
+                stringIds[record] = ids;
+            } else {
+                throw new IOException("Vertex type not supported by binary export: " + vertex);
+            }
+        }
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            output.writeInt(BINARY_MAGIC);
+            output.writeInt(BINARY_VERSION);
+            output.writeInt(records.size());
+            output.writeInt(graph.edgeSet().size());
+            output.writeInt(strings.size());
+
+            for (String string : strings.keySet()) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+            }
+
+            int record = 0;
+            for (Vertex vertex : graph.vertexSet()) {
+                int[] ids = stringIds[record++];
+                output.writeByte(vertex.getType().ordinal());
+                if (vertex instanceof MethodVertex) {
+                    output.writeInt(ids[0]);
+                } else if (vertex instanceof UnitVertex) {
+                    output.writeInt(ids[0]);
+                    output.writeInt(ids[1]);
+                } else if (vertex instanceof BlockVertex) {
+                    output.writeInt(ids[0]);
+                    output.writeInt(((BlockVertex) vertex).getBlockIndex());
+                    output.writeInt(ids[1]);
+                } else {
+                    Control control = ((ControlVertex) vertex).getControl();
+                    output.writeInt(control.getControlId());
+                    output.writeInt(ids[0]);
+                    output.writeInt(control.getLayoutId());
+                    output.writeInt(ids[1]);
+                    output.writeInt(ids[2]);
+                    output.writeInt(ids.length - 3);
+                    for (int i = 3; i < ids.length; i++) {
+                        output.writeInt(ids[i]);
+                    }
+                }
+            }
+
+            for (Vertex vertex : graph.vertexSet()) {
+                output.writeInt(graph.outDegreeOf(vertex));
+                for (DefaultEdge edge : graph.outgoingEdgesOf(vertex)) {
+                    output.writeInt(records.get(graph.getEdgeTarget(edge)));
+                }
+            }
+        }
+    }
+
+    private static int stringId(Map<String, Integer> strings, String string) {
+        Integer id = strings.putIfAbsent(string, strings.size());
+        return id != null ? id : strings.size() - 1;
+    }
+}
@@ -0,0 +1,153 @@
+package phd.research.vertices;
+
+import org.jetbrains.annotations.NotNull;
+import org.jgrapht.nio.Attribute;
+import org.jgrapht.nio.DefaultAttribute;
+import phd.research.enums.Color;
+import phd.research.enums.Shape;
+import phd.research.enums.Type;
+import phd.research.graph.SignatureTable;
+import phd.research.graph.UnitTextPool;
+
+import java.util.*;
+
+/**
+ * A basic block of a method, standing in for the unit vertices of its units when the control flow graph is built at
+ * block granularity. The block is held as the id of its method signature in the {@link SignatureTable}, its index
+ * within the method and the indexes of its units, in order, in the {@link UnitTextPool}. The signature and the units
+ * resolve through the table and pool of the current analysis context, which must be the context the vertex was
+ * created in. Exported, the units are written as one attribute, a line per unit.
+ *
+ * @author Jordan Doyle
+ */
+
+public class BlockVertex extends DefaultVertex {
+
+    private final int signatureId;
+    private final int blockIndex;
+    private final int[] unitIndices;
+
+    public BlockVertex(String methodSignature, int blockIndex, List<String> units) {
+        super(Type.BLOCK);
+        this.signatureId = SignatureTable.v().intern(Objects.requireNonNull(methodSignature));
+        this.blockIndex = blockIndex;
+        this.unitIndices = BlockVertex.internUnits(this.signatureId, units);
+    }
+
+    public BlockVertex(int id, String methodSignature, int blockIndex, List<String> units) {
+        super(id, Type.BLOCK);
+        this.signatureId = SignatureTable.v().intern(Objects.requireNonNull(methodSignature));
+        this.blockIndex = blockIndex;
+        this.unitIndices = BlockVertex.internUnits(this.signatureId, units);
+    }
+
+    /**
+     * A vertex for a block whose units are already interned in the context's table and pool, e.g. by a block graph.
+     */
+    public BlockVertex(int signatureId, int blockIndex, int[] unitIndices) {
+        super(Type.BLOCK);
+        this.signatureId = signatureId;
+        this.blockIndex = blockIndex;
+        this.unitIndices = unitIndices.clone();
+    }
+
+    private static int[] internUnits(int signatureId, List<String> units) {
+        UnitTextPool textPool = UnitTextPool.v();
+        return Objects.requireNonNull(units).stream().mapToInt(unit -> textPool.intern(signatureId, unit)).toArray();
+    }
+
+    public int getSignatureId() {
+        return this.signatureId;
+    }
+
+    @NotNull
+    public String getMethodSignature() {
+        return SignatureTable.v().getSignature(this.signatureId);
+    }
+
+    public int getBlockIndex() {
+        return this.blockIndex;
+    }
+
+    public int[] getUnitIndices() {
+        return this.unitIndices.clone();
+    }
+
+    @NotNull
+    public List<String> getUnits() {
+        UnitTextPool textPool = UnitTextPool.v();
+        List<String> units = new ArrayList<>(this.unitIndices.length);
+        for (int unitIndex : this.unitIndices) {
+            units.add(textPool.getText(this.signatureId, unitIndex));
+        }
+        return units;
+    }
+
+    public Color getColor() {
+        return Color.YELLOW;
+    }
+
+    public Shape getShape() {
+        return Shape.BOX;
+    }
+
+    @Override
+    public Map<String, Attribute> getAttributes() {
+        Map<String, Attribute> attributes = super.getAttributes();
+
+        attributes.put("method", DefaultAttribute.createAttribute(this.getMethodSignature()));
+        attributes.put("block", DefaultAttribute.createAttribute(this.blockIndex));
+        String units = String.join("\n", this.getUnits());
+        attributes.put("units", DefaultAttribute.createAttribute(units));
+        attributes.put("label", DefaultAttribute.createAttribute(units));
+        attributes.put("color", DefaultAttribute.createAttribute(this.getColor().name().toLowerCase()));
+        attributes.put("shape", DefaultAttribute.createAttribute(this.getShape().name().toLowerCase()));
+        attributes.put("style", DefaultAttribute.createAttribute(this.getStyle().name().toLowerCase()));
+
+        return attributes;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{id=" + super.getId() + ", type=" + super.getType() +
+                ", methodSignature='" + this.getMethodSignature() + "', block=" + this.blockIndex + ", units=" +
+                this.getUnits() + ", visit=" + super.hasVisit() + ", localVisit=" + super.hasLocalVisit() + "}";
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof BlockVertex)) {
+            return false;
+        }
+
+        BlockVertex that = (BlockVertex) o;
+        if (super.getType() != that.getType()) {
+            return false;
+        }
+
+        if (this.signatureId != that.signatureId || this.blockIndex != that.blockIndex ||
+                !Arrays.equals(this.unitIndices, that.unitIndices)) {
+            return false;
+        }
+
+        return that.canEqual(this);
+    }
+
+    @Override
+    public final int hashCode() {
+        int result = super.getType().hashCode();
+        result = 31 * result + this.signatureId;
+        result = 31 * result + this.blockIndex;
+        result = 31 * result + Arrays.hashCode(this.unitIndices);
+        return result;
+    }
+
+    @Override
+    public final boolean canEqual(Object o) {
+        return (o instanceof BlockVertex);
+    }
+}
@@ -7,6 +7,7 @@ import phd.research.enums.Color;
 import phd.research.enums.Shape;
 import phd.research.enums.Style;
 import phd.research.enums.Type;
+import phd.research.singletons.AnalysisContext;
 
 import java.io.Serializable;
 import java.util.HashMap;
@@ -19,8 +20,6 @@ import java.util.Objects;
 
 public class DefaultVertex implements Vertex, Serializable {
 
-    private static int currentIdSequenceValue = 0;
-
     private final int id;
     @NotNull
     private final Type type;
@@ -29,14 +28,12 @@ public class DefaultVertex implements Vertex, Serializable {
     private boolean localVisit;
 
     public DefaultVertex(Type type) {
-        this(currentIdSequenceValue++, type);
+        this(AnalysisContext.v().getVertexIdSequence().getAndIncrement(), type);
     }
 
     public DefaultVertex(int id, Type type) {
         this.id = id;
-        if (currentIdSequenceValue < id) {
-            currentIdSequenceValue = id;
-        }
+        AnalysisContext.v().getVertexIdSequence().accumulateAndGet(id, Math::max);
 
         this.type = Objects.requireNonNull(type);
         this.visit = false;
@@ -44,7 +41,7 @@ public class DefaultVertex implements Vertex, Serializable {
     }
 
     public static void resetIdSequence() {
-        DefaultVertex.currentIdSequenceValue = 0;
+        AnalysisContext.v().getVertexIdSequence().set(0);
     }
 
     public int getId() {
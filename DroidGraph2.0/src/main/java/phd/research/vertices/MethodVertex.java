@@ -6,18 +6,22 @@ import org.jgrapht.nio.DefaultAttribute;
 import phd.research.enums.Color;
 import phd.research.enums.Shape;
 import phd.research.enums.Type;
+import phd.research.graph.SignatureTable;
 
 import java.util.Map;
 import java.util.Objects;
 
 /**
+ * The method signature is held as its id in the {@link SignatureTable} of the analysis context the vertex was created
+ * in, and resolved through the table of the current context when it is asked for. A vertex is only meaningful within
+ * the context it was created in, as are the graphs and indexes holding it.
+ *
  * @author Jordan Doyle
  */
 
 public class MethodVertex extends DefaultVertex {
 
-    @NotNull
-    private final String methodSignature;
+    private final int signatureId;
 
     public MethodVertex(String methodSignature) {
         this(Type.METHOD, methodSignature);
@@ -29,17 +33,21 @@ public class MethodVertex extends DefaultVertex {
 
     public MethodVertex(Type type, String methodSignature) {
         super(type);
-        this.methodSignature = Objects.requireNonNull(methodSignature);
+        this.signatureId = SignatureTable.v().intern(Objects.requireNonNull(methodSignature));
     }
 
     public MethodVertex(int id, Type type, String methodSignature) {
         super(id, type);
-        this.methodSignature = Objects.requireNonNull(methodSignature);
+        this.signatureId = SignatureTable.v().intern(Objects.requireNonNull(methodSignature));
+    }
+
+    public int getSignatureId() {
+        return this.signatureId;
     }
 
     @NotNull
     public String getMethodSignature() {
-        return this.methodSignature;
+        return SignatureTable.v().getSignature(this.signatureId);
     }
 
     public Color getColor() {
@@ -84,7 +92,7 @@ public class MethodVertex extends DefaultVertex {
         }
 
         MethodVertex that = (MethodVertex) o;
-        if (!this.methodSignature.equals(that.methodSignature)) {
+        if (this.signatureId != that.signatureId) {
             return false;
         }
 
@@ -94,7 +102,7 @@ public class MethodVertex extends DefaultVertex {
     @Override
     public final int hashCode() {
         int result = super.hashCode();
-        result = 31 * result + methodSignature.hashCode();
+        result = 31 * result + this.signatureId;
         return result;
     }
 
@@ -6,41 +6,63 @@ import org.jgrapht.nio.DefaultAttribute;
 import phd.research.enums.Color;
 import phd.research.enums.Shape;
 import phd.research.enums.Type;
+import phd.research.graph.SignatureTable;
+import phd.research.graph.UnitTextPool;
 
 import java.util.Map;
 import java.util.Objects;
 
 /**
+ * A unit is held as the id of its method signature in the {@link SignatureTable} and its index within the method in
+ * the {@link UnitTextPool} of the analysis context the vertex was created in, equality being by (method, index). The
+ * signature and the Jimple text of the unit are only resolved when they are asked for, through the table and pool of
+ * the current context, which must be the context the vertex was created in.
+ *
  * @author Jordan Doyle
  */
 
 public class UnitVertex extends DefaultVertex {
 
-    @NotNull
-    private final String methodSignature;
-    @NotNull
-    private final String unit;
+    private final int signatureId;
+    private final int unitIndex;
 
     public UnitVertex(String methodSignature, String unit) {
         super(Type.UNIT);
-        this.methodSignature = Objects.requireNonNull(methodSignature);
-        this.unit = Objects.requireNonNull(unit);
+        this.signatureId = SignatureTable.v().intern(Objects.requireNonNull(methodSignature));
+        this.unitIndex = UnitTextPool.v().intern(this.signatureId, unit);
     }
 
     public UnitVertex(int id, String methodSignature, String unit) {
         super(id, Type.UNIT);
-        this.methodSignature = Objects.requireNonNull(methodSignature);
-        this.unit = Objects.requireNonNull(unit);
+        this.signatureId = SignatureTable.v().intern(Objects.requireNonNull(methodSignature));
+        this.unitIndex = UnitTextPool.v().intern(this.signatureId, unit);
+    }
+
+    /**
+     * A vertex for a unit already interned in the context's table and pool, e.g. by a unit graph.
+     */
+    public UnitVertex(int signatureId, int unitIndex) {
+        super(Type.UNIT);
+        this.signatureId = signatureId;
+        this.unitIndex = unitIndex;
+    }
+
+    public int getSignatureId() {
+        return this.signatureId;
     }
 
     @NotNull
     public String getMethodSignature() {
-        return this.methodSignature;
+        return SignatureTable.v().getSignature(this.signatureId);
+    }
+
+    public int getUnitIndex() {
+        return this.unitIndex;
     }
 
     @NotNull
     public String getUnit() {
-        return this.unit;
+        return UnitTextPool.v().getText(this.signatureId, this.unitIndex);
     }
 
     public Color getColor() {
@@ -56,8 +78,9 @@ public class UnitVertex extends DefaultVertex {
         Map<String, Attribute> attributes = super.getAttributes();
 
         attributes.put("method", DefaultAttribute.createAttribute(this.getMethodSignature()));
-        attributes.put("unit", DefaultAttribute.createAttribute(this.getUnit()));
-        attributes.put("label", DefaultAttribute.createAttribute(this.getUnit()));
+        String unit = this.getUnit();
+        attributes.put("unit", DefaultAttribute.createAttribute(unit));
+        attributes.put("label", DefaultAttribute.createAttribute(unit));
         attributes.put("color", DefaultAttribute.createAttribute(this.getColor().name().toLowerCase()));
         attributes.put("shape", DefaultAttribute.createAttribute(this.getShape().name().toLowerCase()));
         attributes.put("style", DefaultAttribute.createAttribute(this.getStyle().name().toLowerCase()));
@@ -68,7 +91,7 @@ public class UnitVertex extends DefaultVertex {
     @Override
     public String toString() {
         return getClass().getSimpleName() + "{id=" + super.getId() + ", type=" + super.getType() +
-                ", methodSignature='" + this.getMethodSignature() + "', unit='" + unit + "', visit=" +
+                ", methodSignature='" + this.getMethodSignature() + "', unit='" + this.getUnit() + "', visit=" +
                 super.hasVisit() + ", localVisit=" + super.hasLocalVisit() + "}";
     }
 
@@ -91,7 +114,7 @@ public class UnitVertex extends DefaultVertex {
             return false;
         }
 
-        if (!methodSignature.equals(that.methodSignature) || !unit.equals(that.unit)) {
+        if (this.signatureId != that.signatureId || this.unitIndex != that.unitIndex) {
             return false;
         }
 
@@ -100,9 +123,9 @@ public class UnitVertex extends DefaultVertex {
 
     @Override
     public final int hashCode() {
-        int result = super.hashCode();
-        result = 31 * result + methodSignature.hashCode();
-        result = 31 * result + unit.hashCode();
+        int result = super.getType().hashCode();
+        result = 31 * result + this.signatureId;
+        result = 31 * result + this.unitIndex;
         return result;
     }
 
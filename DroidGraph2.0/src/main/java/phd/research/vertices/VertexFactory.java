@@ -2,7 +2,7 @@ package phd.research.vertices;
 
 import org.jgrapht.nio.Attribute;
 import phd.research.enums.Type;
-import phd.research.graph.Classifier;
+import phd.research.graph.ClassificationTable;
 import phd.research.graph.Control;
 import soot.SootMethod;
 
@@ -10,6 +10,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * @author Jordan Doyle
@@ -30,9 +31,8 @@ public class VertexFactory {
 
     public Vertex createVertex(SootMethod method) {
         String methodSignature = method.getSignature();
-        Classifier classifier = new Classifier();
 
-        switch (classifier.getMethodType(method)) {
+        switch (ClassificationTable.v().getMethodType(method)) {
             case DUMMY:
                 return new DummyVertex(methodSignature);
             case LIFECYCLE:
@@ -49,26 +49,34 @@ public class VertexFactory {
     }
 
     public Vertex createVertex(int id, Map<String, Attribute> attributes) {
-        Type type = Type.valueOf(attributes.get("type").getValue());
+        return this.createVertex(id, key -> attributes.get(key).getValue());
+    }
+
+    public Vertex createVertex(int id, Function<String, String> attributes) {
+        Type type = Type.valueOf(attributes.apply("type"));
         switch (type) {
             case DUMMY:
-                return new DummyVertex(id, attributes.get("method").getValue());
+                return new DummyVertex(id, attributes.apply("method"));
             case LIFECYCLE:
-                return new LifecycleVertex(id, attributes.get("method").getValue());
+                return new LifecycleVertex(id, attributes.apply("method"));
             case LISTENER:
-                return new ListenerVertex(id, attributes.get("method").getValue());
+                return new ListenerVertex(id, attributes.apply("method"));
             case CALLBACK:
-                return new CallbackVertex(id, attributes.get("method").getValue());
+                return new CallbackVertex(id, attributes.apply("method"));
             case METHOD:
-                return new MethodVertex(id, attributes.get("method").getValue());
+                return new MethodVertex(id, attributes.apply("method"));
             case CONTROL:
-                return new ControlVertex(id, new Control(Integer.parseInt(attributes.get("controlId").getValue()),
-                        attributes.get("control").getValue(), Integer.parseInt(attributes.get("layoutId").getValue()),
-                        attributes.get("layout").getValue(), attributes.get("activity").getValue(),
-                        VertexFactory.convertStringToList(attributes.get("listeners").getValue())
+                return new ControlVertex(id, new Control(Integer.parseInt(attributes.apply("controlId")),
+                        attributes.apply("control"), Integer.parseInt(attributes.apply("layoutId")),
+                        attributes.apply("layout"), attributes.apply("activity"),
+                        VertexFactory.convertStringToList(attributes.apply("listeners"))
                 ));
             case UNIT:
-                return new UnitVertex(id, attributes.get("method").getValue(), attributes.get("unit").getValue());
+                return new UnitVertex(id, attributes.apply("method"), attributes.apply("unit"));
+            case BLOCK:
+                return new BlockVertex(id, attributes.apply("method"), Integer.parseInt(attributes.apply("block")),
+                        Arrays.asList(attributes.apply("units").split("\n"))
+                );
             default:
                 throw new RuntimeException("Unrecognised vertex type: " + type);
         }
@@ -76,9 +84,8 @@ public class VertexFactory {
 
     public Vertex createVertex(int id, SootMethod method) {
         String methodSignature = method.getSignature();
-        Classifier classifier = new Classifier();
 
-        switch (classifier.getMethodType(method)) {
+        switch (ClassificationTable.v().getMethodType(method)) {
             case DUMMY:
                 return new DummyVertex(id, methodSignature);
             case LIFECYCLE:
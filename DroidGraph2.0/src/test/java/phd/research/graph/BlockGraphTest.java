@@ -0,0 +1,105 @@
+package phd.research.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.Before;
+import org.junit.Test;
+import phd.research.vertices.BlockVertex;
+import phd.research.vertices.Vertex;
+import soot.*;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jordan Doyle
+ */
+
+public class BlockGraphTest {
+
+    private JimpleBody body;
+    private Unit second;
+    private Unit use;
+
+    @Before
+    public void setUp() {
+        SootClass clazz = new SootClass("phd.research.BlockGraphSample");
+        SootMethod method = new SootMethod("sample", Collections.emptyList(), VoidType.v(), Modifier.PUBLIC);
+        clazz.addMethod(method);
+
+        this.body = Jimple.v().newBody(method);
+        method.setActiveBody(this.body);
+        Local a = Jimple.v().newLocal("a", IntType.v());
+        Local b = Jimple.v().newLocal("b", IntType.v());
+        Local c = Jimple.v().newLocal("c", IntType.v());
+        this.body.getLocals().addAll(Arrays.asList(a, b, c));
+
+        // a = 0; if a == 0 goto second; b = 1; goto use; second: b = 2; use: c = b; return
+        this.second = Jimple.v().newAssignStmt(b, IntConstant.v(2));
+        this.use = Jimple.v().newAssignStmt(c, b);
+        this.body.getUnits().addAll(Arrays.asList(Jimple.v().newAssignStmt(a, IntConstant.v(0)),
+                Jimple.v().newIfStmt(Jimple.v().newEqExpr(a, IntConstant.v(0)), this.second),
+                Jimple.v().newAssignStmt(b, IntConstant.v(1)), Jimple.v().newGotoStmt(this.use), this.second,
+                this.use, Jimple.v().newReturnVoidStmt()
+                                                 ));
+    }
+
+    @Test
+    public void testGraph() {
+        Graph<Vertex, DefaultEdge> unitGraph = new UnitGraph(this.body).getGraph();
+        Graph<Vertex, DefaultEdge> blockGraph = new BlockGraph(this.body).getGraph();
+
+        assertEquals("Wrong number of unit vertices.", 7, unitGraph.vertexSet().size());
+        assertEquals("Wrong number of block vertices.", 4, blockGraph.vertexSet().size());
+        assertEquals("Wrong number of block edges.", 4, blockGraph.edgeSet().size());
+    }
+
+    @Test
+    public void testRoots() {
+        BlockGraph graph = new BlockGraph(this.body);
+
+        assertEquals("Wrong number of roots returned.", 1, graph.getRoots().size());
+        BlockVertex root = (BlockVertex) graph.getRoots().iterator().next();
+        assertEquals("Wrong root returned.", 0, root.getBlockIndex());
+        assertEquals("Wrong number of successors.", 2, graph.getGraph().outDegreeOf(root));
+    }
+
+    @Test
+    public void testGetVertex() {
+        BlockGraph graph = new BlockGraph(this.body);
+        BlockVertex vertex = graph.getVertex(this.use);
+
+        assertEquals("Wrong units returned.", Arrays.asList("c = b", "return"), vertex.getUnits());
+        assertSame("Units of a block should share a vertex.", vertex, graph.getVertex(this.body.getUnits().getLast()));
+        assertNotSame("Units of different blocks should not share a vertex.", vertex, graph.getVertex(this.second));
+        assertEquals("Wrong method signature returned.", this.body.getMethod().getSignature(),
+                vertex.getMethodSignature()
+                    );
+    }
+
+    @Test
+    public void testUnitIndices() {
+        UnitGraph unitGraph = new UnitGraph(this.body);
+        BlockVertex vertex = new BlockGraph(this.body).getVertex(this.use);
+
+        assertEquals("Block and unit graphs should intern units alike.",
+                unitGraph.getUnitVertex(this.use).getUnitIndex(), vertex.getUnitIndices()[0]
+                    );
+    }
+
+    @Test
+    public void testIndex() {
+        VertexIndex index = new VertexIndex(new BlockGraph(this.body).getGraph());
+        String signature = this.body.getMethod().getSignature();
+
+        BlockVertex vertex = index.getBlockVertex(signature, "return");
+        assertNotNull("Block vertex not found.", vertex);
+        assertSame("Wrong block vertex returned.", vertex, index.getBlockVertex(signature, "c = b"));
+        assertNull("Units should not be indexed as unit vertices.", index.getUnitVertex(signature, "return"));
+    }
+}
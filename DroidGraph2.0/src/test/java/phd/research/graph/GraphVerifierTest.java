@@ -0,0 +1,129 @@
+package phd.research.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.Before;
+import org.junit.Test;
+import phd.research.enums.Type;
+import phd.research.vertices.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jordan Doyle
+ */
+
+public class GraphVerifierTest {
+
+    private final String SIGNATURE = "<com.example.android.lifecycle.ActivityA: void onClick(android.view.View)>";
+    private final String ACTIVITY = "com.example.lifecycle.ActivityA";
+
+    private Graph<Vertex, DefaultEdge> graph;
+    private Control control;
+
+    @Before
+    public void setUp() {
+        DefaultVertex.resetIdSequence();
+        this.graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        this.control = new Control(123456789, "btn_click_A", 987654321, "activity_a.xml", this.ACTIVITY,
+                Collections.emptyList()
+        );
+    }
+
+    @Test
+    public void testMissingControls() {
+        Control other = new Control(1, "btn_click_B", 987654321, "activity_a.xml", this.ACTIVITY,
+                Collections.emptyList()
+        );
+        this.graph.addVertex(new ControlVertex(this.control));
+
+        Collection<Control> missing = GraphVerifier.findMissingControls(this.graph, Arrays.asList(this.control, other));
+        assertEquals("Wrong missing controls returned.", Collections.singleton(other), missing);
+    }
+
+    @Test
+    public void testDuplicateSignatures() {
+        this.graph.addVertex(new ListenerVertex(this.SIGNATURE));
+        this.graph.addVertex(new MethodVertex("<com.example.A: void b()>"));
+        assertTrue("No duplicates should be found.", GraphVerifier.findDuplicateSignatures(this.graph).isEmpty());
+
+        this.graph.addVertex(new ListenerVertex("'" + this.SIGNATURE + "'"));
+        assertEquals("Wrong duplicate signatures returned.", Collections.singletonList(this.SIGNATURE),
+                GraphVerifier.findDuplicateSignatures(this.graph)
+                    );
+    }
+
+    @Test
+    public void testConsistentComposition() {
+        Graph<Vertex, DefaultEdge> callGraph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        callGraph.addVertex(new ListenerVertex(this.SIGNATURE));
+        callGraph.addVertex(new LifecycleVertex("<com.example.A: void onCreate()>"));
+        callGraph.addVertex(new MethodVertex("<com.example.A: void b()>"));
+
+        this.graph.addVertex(new ListenerVertex(this.SIGNATURE));
+        this.graph.addVertex(new LifecycleVertex("<com.example.A: void onCreate()>"));
+        this.graph.addVertex(new MethodVertex("<com.example.A: void b()>"));
+        this.graph.addVertex(new UnitVertex(this.SIGNATURE, "return"));
+        this.graph.addVertex(new ControlVertex(this.control));
+
+        Map<Type, Integer> classified = new EnumMap<>(Type.class);
+        classified.put(Type.LISTENER, 1);
+        classified.put(Type.LIFECYCLE, 1);
+        classified.put(Type.METHOD, 1);
+
+        List<String> problems = GraphVerifier.checkComposition(new Composition(callGraph),
+                new Composition(this.graph), classified, 1
+                                                              );
+        assertTrue("No composition problems should be found: " + problems, problems.isEmpty());
+
+        classified.put(Type.CALLBACK, 1);
+        problems = GraphVerifier.checkComposition(new Composition(callGraph), new Composition(this.graph), classified,
+                2
+                                                 );
+        assertEquals("Wrong composition problems returned.",
+                Arrays.asList("Filtered methods count does not match call graph composition count.",
+                        "Callback methods count does not match call graph composition count.",
+                        "Control flow graph does not contain all the found controls."
+                             ), problems
+                    );
+    }
+
+    @Test
+    public void testBlockComposition() {
+        Graph<Vertex, DefaultEdge> callGraph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        callGraph.addVertex(new LifecycleVertex("<com.example.A: void onCreate()>"));
+        callGraph.addVertex(new MethodVertex("<com.example.A: void b()>"));
+
+        this.graph.addVertex(new LifecycleVertex("<com.example.A: void onCreate()>"));
+        this.graph.addVertex(new MethodVertex("<com.example.A: void b()>"));
+        this.graph.addVertex(new BlockVertex("<com.example.A: void b()>", 0, Arrays.asList("$i0 = 1", "goto")));
+        this.graph.addVertex(new BlockVertex("<com.example.A: void b()>", 1, Collections.singletonList("return")));
+        this.graph.addVertex(new ControlVertex(this.control));
+
+        Map<Type, Integer> classified = new EnumMap<>(Type.class);
+        classified.put(Type.LIFECYCLE, 1);
+        classified.put(Type.METHOD, 1);
+
+        List<String> problems = GraphVerifier.checkComposition(new Composition(callGraph),
+                new Composition(this.graph), classified, 1
+                                                              );
+        assertTrue("No composition problems should be found: " + problems, problems.isEmpty());
+    }
+
+    @Test
+    public void testReport() {
+        VerificationReport report = new VerificationReport(Collections.emptySet(), Collections.emptySet(),
+                Collections.emptyList(), Collections.emptyList()
+        );
+        assertFalse("Empty report should have no problems.", report.hasProblems());
+
+        report = new VerificationReport(Collections.singleton(this.control), Collections.emptySet(),
+                Collections.singletonList("problem"), Arrays.asList(this.SIGNATURE, this.SIGNATURE)
+        );
+        assertTrue("Report should have problems.", report.hasProblems());
+        assertEquals("Wrong problem count returned.", 4, report.getProblemCount());
+    }
+}
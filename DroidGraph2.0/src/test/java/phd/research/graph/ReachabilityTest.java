@@ -0,0 +1,96 @@
+package phd.research.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.Before;
+import org.junit.Test;
+import phd.research.vertices.*;
+import soot.SootClass;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jordan Doyle
+ */
+
+public class ReachabilityTest {
+
+    private final String LAUNCH_ACTIVITY = "com.example.lifecycle.ActivityA";
+    private final String OTHER_ACTIVITY = "com.example.lifecycle.ActivityB";
+    private final String SERVICE = "com.example.lifecycle.ServiceA";
+
+    private Graph<Vertex, DefaultEdge> graph;
+    private Vertex onCreate;
+    private Vertex helper;
+    private Vertex otherOnCreate;
+    private Vertex onStartCommand;
+    private Vertex onClick;
+    private Vertex deadCode;
+
+    @Before
+    public void setUp() {
+        DefaultVertex.resetIdSequence();
+        this.graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        this.onCreate = new LifecycleVertex("<" + this.LAUNCH_ACTIVITY + ": void onCreate(android.os.Bundle)>");
+        this.helper = new MethodVertex("<com.example.lifecycle.Helper: void help()>");
+        this.otherOnCreate = new LifecycleVertex("<" + this.OTHER_ACTIVITY + ": void onCreate(android.os.Bundle)>");
+        this.onStartCommand = new MethodVertex("<" + this.SERVICE + ": int onStartCommand(android.content.Intent," +
+                "int,int)>");
+        this.onClick = new ListenerVertex("<com.example.lifecycle.ActivityA$1: void onClick(android.view.View)>");
+        this.deadCode = new MethodVertex("<com.example.lifecycle.Helper: void unused()>");
+        Arrays.asList(this.onCreate, this.helper, this.otherOnCreate, this.onStartCommand, this.onClick,
+                this.deadCode
+                     ).forEach(this.graph::addVertex);
+        this.graph.addEdge(this.onCreate, this.helper);
+    }
+
+    private Set<Vertex> findEntryPoints() {
+        return Reachability.findEntryPoints(this.graph, Collections.singleton(new SootClass(this.LAUNCH_ACTIVITY)),
+                Collections.singleton(new SootClass(this.SERVICE))
+                                           );
+    }
+
+    @Test
+    public void testEntryPoints() {
+        Set<Vertex> entryPoints = this.findEntryPoints();
+
+        assertTrue("Launch activity lifecycle method should be an entry point.", entryPoints.contains(this.onCreate));
+        assertTrue("Entry point class method should be an entry point.", entryPoints.contains(this.onStartCommand));
+        assertTrue("Listener should be an entry point.", entryPoints.contains(this.onClick));
+        assertFalse("Other activity should not be an entry point.", entryPoints.contains(this.otherOnCreate));
+        assertFalse("Plain method should not be an entry point.", entryPoints.contains(this.helper));
+    }
+
+    @Test
+    public void testControlEntryPoint() {
+        Vertex control = new ControlVertex(new Control(1, "btn_click_A", 2, "activity_a.xml", this.LAUNCH_ACTIVITY,
+                Collections.emptyList()
+        ));
+        this.graph.addVertex(control);
+        this.graph.addEdge(control, this.otherOnCreate);
+
+        assertTrue("Control should be an entry point.", this.findEntryPoints().contains(control));
+        assertTrue("Control target should be reachable.",
+                Reachability.findReachable(this.graph, this.findEntryPoints()).contains(this.otherOnCreate)
+                  );
+    }
+
+    @Test
+    public void testReachable() {
+        Set<Vertex> reachable = Reachability.findReachable(this.graph, this.findEntryPoints());
+
+        assertEquals("Wrong reachable vertices returned.", new HashSet<>(
+                Arrays.asList(this.onCreate, this.helper, this.onStartCommand, this.onClick)), reachable);
+        assertFalse("Dead code should not be reachable.", reachable.contains(this.deadCode));
+    }
+
+    @Test
+    public void testNoEntryPoints() {
+        assertTrue("Nothing should be reachable.",
+                Reachability.findReachable(this.graph, Collections.emptySet()).isEmpty()
+                  );
+    }
+}
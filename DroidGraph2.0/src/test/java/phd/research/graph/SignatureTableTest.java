@@ -0,0 +1,99 @@
+package phd.research.graph;
+
+import org.junit.Before;
+import org.junit.Test;
+import phd.research.singletons.AnalysisContext;
+import phd.research.vertices.MethodVertex;
+import phd.research.vertices.UnitVertex;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jordan Doyle
+ */
+
+public class SignatureTableTest {
+
+    private final String SIGNATURE = "<com.example.android.lifecycle.ActivityA: void onClick(android.view.View)>";
+    private final String OTHER_SIGNATURE = "<com.example.android.lifecycle.ActivityA: void onStart()>";
+
+    private SignatureTable table;
+
+    @Before
+    public void setUp() {
+        this.table = new SignatureTable();
+    }
+
+    @Test
+    public void testIntern() {
+        int id = this.table.intern(this.SIGNATURE);
+        assertEquals("Wrong id returned.", 0, id);
+        assertEquals("Wrong id returned for an interned signature.", id, this.table.intern(new String(this.SIGNATURE)));
+        assertEquals("Wrong id returned.", 1, this.table.intern(this.OTHER_SIGNATURE));
+        assertEquals("Wrong size returned.", 2, this.table.size());
+    }
+
+    @Test
+    public void testLookup() {
+        int id = this.table.intern(this.SIGNATURE);
+        assertEquals("Wrong signature returned.", this.SIGNATURE, this.table.getSignature(id));
+        assertEquals("Wrong id returned.", id, this.table.getId(this.SIGNATURE));
+        assertEquals("Unknown signature should not have an id.", -1, this.table.getId(this.OTHER_SIGNATURE));
+        assertEquals("Null signature should not have an id.", -1, this.table.getId(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownId() {
+        this.table.getSignature(0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullSignature() {
+        this.table.intern(null);
+    }
+
+    @Test
+    public void testConcurrentIntern() {
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        IntStream.range(0, 10000).parallel().forEach(i -> ids.add(this.table.intern("<Signature: void m" + i + "()>")));
+
+        assertEquals("Wrong number of ids returned.", 10000, ids.size());
+        assertEquals("Wrong size returned.", 10000, this.table.size());
+        IntStream.range(0, 10000).mapToObj(i -> "<Signature: void m" + i + "()>").forEach(signature ->
+                assertEquals("Wrong signature returned.", signature,
+                        this.table.getSignature(this.table.getId(signature))
+                            ));
+    }
+
+    @Test
+    public void testSharedByVertices() {
+        AnalysisContext context = new AnalysisContext();
+        context.run(() -> {
+            MethodVertex method = new MethodVertex(this.SIGNATURE);
+            UnitVertex unit = new UnitVertex(this.SIGNATURE, "return");
+
+            assertEquals("Vertices should share the signature id.", method.getSignatureId(), unit.getSignatureId());
+            assertEquals("Wrong signature returned.", this.SIGNATURE, unit.getMethodSignature());
+            assertEquals("Wrong size returned.", 1, SignatureTable.v().size());
+        });
+    }
+
+    @Test
+    public void testResolvedInContext() {
+        AnalysisContext first = new AnalysisContext();
+        AnalysisContext second = new AnalysisContext();
+        MethodVertex method = first.call(() -> new MethodVertex(this.SIGNATURE));
+        UnitVertex unit = second.call(() -> new UnitVertex("<com.example.A: void b()>", "return"));
+
+        assertEquals("Vertices of each context should have the first id.", method.getSignatureId(),
+                unit.getSignatureId()
+                    );
+        assertEquals("Wrong signature returned.", this.SIGNATURE, first.call(method::getMethodSignature));
+        assertEquals("Wrong signature returned.", "<com.example.A: void b()>", second.call(unit::getMethodSignature));
+        assertEquals("Wrong unit returned.", "return", second.call(unit::getUnit));
+    }
+}
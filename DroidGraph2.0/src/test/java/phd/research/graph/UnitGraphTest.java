@@ -0,0 +1,117 @@
+package phd.research.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.Before;
+import org.junit.Test;
+import phd.research.vertices.UnitVertex;
+import phd.research.vertices.Vertex;
+import soot.*;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.toolkits.graph.BriefUnitGraph;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jordan Doyle
+ */
+
+public class UnitGraphTest {
+
+    private JimpleBody body;
+    private Unit firstReturn;
+    private Unit secondReturn;
+
+    @Before
+    public void setUp() {
+        SootClass clazz = new SootClass("phd.research.UnitGraphSample");
+        SootMethod method = new SootMethod("sample", Collections.emptyList(), VoidType.v(), Modifier.PUBLIC);
+        clazz.addMethod(method);
+
+        this.body = Jimple.v().newBody(method);
+        method.setActiveBody(this.body);
+        Local a = Jimple.v().newLocal("a", IntType.v());
+        Local b = Jimple.v().newLocal("b", IntType.v());
+        this.body.getLocals().addAll(Arrays.asList(a, b));
+
+        // a = 0; if a == 0 goto second; b = 1; return; second: b = 1; loop: a = a + 1; if a < 10 goto loop; return
+        // Both "b = 1" and both "return" units share a text, so they share a vertex.
+        Unit second = Jimple.v().newAssignStmt(b, IntConstant.v(1));
+        Unit loop = Jimple.v().newAssignStmt(a, Jimple.v().newAddExpr(a, IntConstant.v(1)));
+        this.firstReturn = Jimple.v().newReturnVoidStmt();
+        this.secondReturn = Jimple.v().newReturnVoidStmt();
+        this.body.getUnits().addAll(Arrays.asList(Jimple.v().newAssignStmt(a, IntConstant.v(0)),
+                Jimple.v().newIfStmt(Jimple.v().newEqExpr(a, IntConstant.v(0)), second),
+                Jimple.v().newAssignStmt(b, IntConstant.v(1)), this.firstReturn, second, loop,
+                Jimple.v().newIfStmt(Jimple.v().newLtExpr(a, IntConstant.v(10)), loop), this.secondReturn
+                                                 ));
+    }
+
+    // The unit graph as first written: a vertex per distinct unit text, found by scanning the vertices added so far.
+    private static Graph<Vertex, DefaultEdge> baselineGraph(Body body) {
+        BriefUnitGraph unitGraph = new BriefUnitGraph(body);
+        String signature = body.getMethod().getSignature();
+        Graph<Vertex, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+
+        for (Unit unit : body.getUnits()) {
+            Vertex vertex = UnitGraphTest.findOrAdd(graph, new UnitVertex(signature, unit.toString()));
+            for (Unit nextUnit : unitGraph.getSuccsOf(unit)) {
+                graph.addEdge(vertex, UnitGraphTest.findOrAdd(graph, new UnitVertex(signature, nextUnit.toString())));
+            }
+        }
+
+        return graph;
+    }
+
+    private static Vertex findOrAdd(Graph<Vertex, DefaultEdge> graph, UnitVertex vertex) {
+        for (Vertex v : graph.vertexSet()) {
+            if (v.equals(vertex)) {
+                return v;
+            }
+        }
+
+        graph.addVertex(vertex);
+        return vertex;
+    }
+
+    private static Set<List<Vertex>> getEdges(Graph<Vertex, DefaultEdge> graph) {
+        return graph.edgeSet().stream()
+                .map(edge -> Arrays.asList(graph.getEdgeSource(edge), graph.getEdgeTarget(edge)))
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testMatchesBaseline() {
+        UnitGraph unitGraph = new UnitGraph(this.body);
+        Graph<Vertex, DefaultEdge> graph = unitGraph.getGraph();
+        Graph<Vertex, DefaultEdge> baseline = UnitGraphTest.baselineGraph(this.body);
+
+        assertEquals("Wrong number of vertices.", 6, graph.vertexSet().size());
+        assertEquals("Vertices should match the baseline.", baseline.vertexSet(), graph.vertexSet());
+        assertEquals("Edges should match the baseline.", UnitGraphTest.getEdges(baseline),
+                UnitGraphTest.getEdges(graph)
+                    );
+
+        Set<Vertex> baselineRoots = baseline.vertexSet().stream().filter(v -> baseline.inDegreeOf(v) == 0)
+                .collect(Collectors.toSet());
+        assertEquals("Roots should match the baseline.", baselineRoots, new HashSet<>(unitGraph.getRoots()));
+    }
+
+    @Test
+    public void testRepeatedText() {
+        UnitGraph unitGraph = new UnitGraph(this.body);
+        UnitVertex vertex = unitGraph.getUnitVertex(this.firstReturn);
+
+        assertSame("Units with the same text should share a vertex.", vertex,
+                unitGraph.getUnitVertex(this.secondReturn)
+                  );
+        assertEquals("Wrong unit returned.", "return", vertex.getUnit());
+        assertEquals("Wrong number of predecessors.", 2, unitGraph.getGraph().inDegreeOf(vertex));
+    }
+}
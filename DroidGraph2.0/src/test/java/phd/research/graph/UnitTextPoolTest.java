@@ -0,0 +1,113 @@
+package phd.research.graph;
+
+import org.junit.Before;
+import org.junit.Test;
+import phd.research.singletons.AnalysisContext;
+import phd.research.vertices.UnitVertex;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jordan Doyle
+ */
+
+public class UnitTextPoolTest {
+
+    private final String SIGNATURE = "<com.example.android.lifecycle.ActivityA: void onClick(android.view.View)>";
+    private final String FIRST_UNIT = "$r0 := @this: com.example.android.lifecycle.ActivityA";
+    private final String SECOND_UNIT = "return";
+
+    private UnitTextPool pool;
+
+    @Before
+    public void setUp() {
+        this.pool = new UnitTextPool();
+    }
+
+    @Test
+    public void testIntern() {
+        assertEquals("Wrong index returned.", 0, this.pool.intern(1, this.FIRST_UNIT));
+        assertEquals("Wrong index returned.", 1, this.pool.intern(1, this.SECOND_UNIT));
+        assertEquals("Wrong index returned for an interned unit.", 0, this.pool.intern(1, new String(this.FIRST_UNIT)));
+        assertEquals("Indexes should be per method.", 0, this.pool.intern(2, this.SECOND_UNIT));
+    }
+
+    @Test
+    public void testLookup() {
+        int index = this.pool.intern(1, this.FIRST_UNIT);
+        assertEquals("Wrong text returned.", this.FIRST_UNIT, this.pool.getText(1, index));
+        assertEquals("Wrong index returned.", index, this.pool.getIndex(1, this.FIRST_UNIT));
+        assertEquals("Unknown unit should not have an index.", -1, this.pool.getIndex(1, this.SECOND_UNIT));
+        assertEquals("Unknown method should not have an index.", -1, this.pool.getIndex(2, this.FIRST_UNIT));
+    }
+
+    @Test
+    public void testNonAsciiText() {
+        String text = "$r1 = \"café ☕\"";
+        assertEquals("Wrong text returned.", text, this.pool.getText(1, this.pool.intern(1, text)));
+    }
+
+    @Test
+    public void testManyUnits() {
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("Wrong index returned.", i, this.pool.intern(1, this.SECOND_UNIT + " " + i));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("Wrong index returned.", i, this.pool.getIndex(1, this.SECOND_UNIT + " " + i));
+            assertEquals("Wrong text returned.", this.SECOND_UNIT + " " + i, this.pool.getText(1, i));
+        }
+    }
+
+    @Test
+    public void testSeal() {
+        for (int i = 0; i < 100; i++) {
+            this.pool.intern(1, this.SECOND_UNIT + " " + i);
+        }
+        this.pool.intern(2, this.FIRST_UNIT);
+        this.pool.seal(1);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("Wrong index returned.", i, this.pool.getIndex(1, this.SECOND_UNIT + " " + i));
+            assertEquals("Wrong text returned.", this.SECOND_UNIT + " " + i, this.pool.getText(1, i));
+        }
+        assertEquals("Wrong text returned.", this.FIRST_UNIT, this.pool.getText(2, 0));
+        assertEquals("Interned unit should not be added again.", 5, this.pool.intern(1, this.SECOND_UNIT + " 5"));
+        assertEquals("Unknown unit should not have an index.", -1, this.pool.getIndex(1, this.FIRST_UNIT));
+    }
+
+    @Test
+    public void testInternAfterSeal() {
+        this.pool.intern(1, this.FIRST_UNIT);
+        this.pool.sealAll();
+
+        assertEquals("Wrong index returned.", 1, this.pool.intern(1, this.SECOND_UNIT));
+        assertEquals("Wrong text returned.", this.FIRST_UNIT, this.pool.getText(1, 0));
+        assertEquals("Wrong text returned.", this.SECOND_UNIT, this.pool.getText(1, 1));
+        this.pool.sealAll();
+        assertEquals("Wrong index returned.", 1, this.pool.getIndex(1, this.SECOND_UNIT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownUnit() {
+        this.pool.intern(1, this.FIRST_UNIT);
+        this.pool.getText(1, 1);
+    }
+
+    @Test
+    public void testVertexEquality() {
+        new AnalysisContext().run(() -> {
+            UnitVertex first = new UnitVertex(this.SIGNATURE, this.FIRST_UNIT);
+            UnitVertex same = new UnitVertex(12, this.SIGNATURE, this.FIRST_UNIT);
+            UnitVertex second = new UnitVertex(this.SIGNATURE, this.SECOND_UNIT);
+
+            assertEquals("Units with the same method and text should be equal.", first, same);
+            assertEquals("Equal units should have equal hash codes.", first.hashCode(), same.hashCode());
+            assertNotEquals("Units with different text should not be equal.", first, second);
+            assertEquals("Wrong index returned.", 1, second.getUnitIndex());
+            assertEquals("Wrong unit returned.", this.SECOND_UNIT, second.getUnit());
+            UnitVertex interned = new UnitVertex(first.getSignatureId(), 0);
+            assertEquals("Wrong vertex returned.", first, interned);
+        });
+    }
+}
@@ -0,0 +1,126 @@
+package phd.research.graph;
+
+import org.jgrapht.ListenableGraph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DefaultListenableGraph;
+import org.junit.Before;
+import org.junit.Test;
+import phd.research.enums.Type;
+import phd.research.vertices.*;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jordan Doyle
+ */
+
+public class VertexIndexTest {
+
+    private final String SIGNATURE = "<com.example.android.lifecycle.ActivityA: void onClick(android.view.View)>";
+    private final String UNIT = "$r0 := @this: com.example.android.lifecycle.ActivityA";
+    private final String ACTIVITY = "com.example.lifecycle.ActivityA";
+    private final String CONTROL_NAME = "btn_click_A";
+    private final int RESOURCE_ID = 123456789;
+
+    private ListenableGraph<Vertex, DefaultEdge> graph;
+    private VertexIndex index;
+
+    @Before
+    public void setUp() {
+        DefaultVertex.resetIdSequence();
+        this.graph = new DefaultListenableGraph<>(new DefaultDirectedGraph<>(DefaultEdge.class));
+        this.index = VertexIndex.attach(this.graph);
+    }
+
+    @Test
+    public void testMethodLookup() {
+        assertNull("Method should not be indexed yet.", this.index.getMethodVertex(this.SIGNATURE));
+        ListenerVertex vertex = new ListenerVertex(this.SIGNATURE);
+        this.graph.addVertex(vertex);
+        assertSame("Wrong method vertex returned.", vertex, this.index.getMethodVertex(this.SIGNATURE));
+    }
+
+    @Test
+    public void testUnitLookup() {
+        UnitVertex vertex = new UnitVertex(this.SIGNATURE, this.UNIT);
+        this.graph.addVertex(vertex);
+        assertSame("Wrong unit vertex returned.", vertex, this.index.getUnitVertex(this.SIGNATURE, this.UNIT));
+        assertNull("Unit should be keyed by method.", this.index.getUnitVertex("<a.B: void c()>", this.UNIT));
+        assertNull("Unit should not be indexed as a method.", this.index.getMethodVertex(this.SIGNATURE));
+    }
+
+    @Test
+    public void testControlLookup() {
+        ControlVertex vertex = new ControlVertex(
+                new Control(this.RESOURCE_ID, this.CONTROL_NAME, this.RESOURCE_ID, "activity_a.xml", this.ACTIVITY,
+                        Collections.emptyList()
+                ));
+        this.graph.addVertex(vertex);
+        assertSame("Wrong control returned by id.", vertex,
+                this.index.getControlVertex(this.ACTIVITY, this.RESOURCE_ID)
+                  );
+        assertSame("Wrong control returned by name.", vertex,
+                this.index.getControlVertex(this.ACTIVITY, this.CONTROL_NAME)
+                  );
+        assertNull("Control should be keyed by activity.", this.index.getControlVertex("other", this.RESOURCE_ID));
+    }
+
+    @Test
+    public void testRemoveVertex() {
+        MethodVertex vertex = new MethodVertex(this.SIGNATURE);
+        this.graph.addVertex(vertex);
+        this.graph.removeVertex(vertex);
+        assertNull("Removed vertex should not be indexed.", this.index.getMethodVertex(this.SIGNATURE));
+    }
+
+    @Test
+    public void testFirstVertexWins() {
+        MethodVertex first = new MethodVertex(this.SIGNATURE);
+        MethodVertex second = new MethodVertex(this.SIGNATURE);
+        this.graph.addVertex(first);
+        this.graph.addVertex(second);
+        assertSame("First vertex added should be returned.", first, this.index.getMethodVertex(this.SIGNATURE));
+
+        this.graph.removeVertex(second);
+        assertSame("Removing a duplicate should keep the indexed vertex.", first,
+                this.index.getMethodVertex(this.SIGNATURE)
+                  );
+    }
+
+    @Test
+    public void testExistingVerticesIndexed() {
+        DefaultDirectedGraph<Vertex, DefaultEdge> plainGraph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        MethodVertex vertex = new MethodVertex(this.SIGNATURE);
+        plainGraph.addVertex(vertex);
+        VertexIndex plainIndex = new VertexIndex(plainGraph);
+        assertSame("Existing vertex should be indexed.", vertex, plainIndex.getMethodVertex(this.SIGNATURE));
+    }
+
+    @Test
+    public void testTypeCounts() {
+        MethodVertex method = new MethodVertex(this.SIGNATURE);
+        ListenerVertex listener = new ListenerVertex("<com.example.android.lifecycle.ActivityA$1: void onClick()>");
+        this.graph.addVertex(method);
+        this.graph.addVertex(listener);
+        this.graph.addVertex(new UnitVertex(this.SIGNATURE, this.UNIT));
+        method.visit();
+
+        assertEquals("Wrong method count returned.", 1, this.index.countVertices(Type.METHOD));
+        assertEquals("Wrong unit count returned.", 1, this.index.countVertices(Type.UNIT));
+        assertEquals("Wrong visited method count returned.", 1, this.index.countVisited(Type.METHOD));
+        assertEquals("Wrong visited listener count returned.", 0, this.index.countVisited(Type.LISTENER));
+        assertEquals("Wrong visited control count returned.", 0, this.index.countVisited(Type.CONTROL));
+
+        this.graph.removeVertex(method);
+        assertEquals("Removed vertex should not be counted.", 0, this.index.countVertices(Type.METHOD));
+        assertEquals("Removed vertex should not be counted.", 0, this.index.countVisited(Type.METHOD));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnitVisitsNotIndexed() {
+        this.index.countVisited(Type.UNIT);
+    }
+}
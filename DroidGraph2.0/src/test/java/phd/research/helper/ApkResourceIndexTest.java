@@ -0,0 +1,65 @@
+package phd.research.helper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jordan Doyle
+ */
+
+public class ApkResourceIndexTest {
+
+    private static final String workingDirectory = System.getProperty("user.dir") + File.separator + "samples";
+
+    private ApkResourceIndex index;
+
+    @Before
+    public void setUp() throws IOException, XmlPullParserException {
+        this.index = new ApkResourceIndex(
+                new File(ApkResourceIndexTest.workingDirectory + File.separator + "Activity_Lifecycle_1.apk"));
+    }
+
+    @Test
+    public void testManifest() {
+        assertNotNull("Manifest not parsed.", this.index.getManifest());
+        assertFalse("Package name should not be empty.", this.index.getManifest().getPackageName().isEmpty());
+        assertFalse("Launch activities should not be empty.",
+                this.index.getManifest().getLaunchableActivityNodes().isEmpty()
+                   );
+    }
+
+    @Test
+    public void testResources() {
+        assertNotNull("Resources not parsed.", this.index.getResources());
+        assertFalse("Resource packages should not be empty.", this.index.getResources().getPackages().isEmpty());
+    }
+
+    @Test
+    public void testResourceFiles() {
+        assertFalse("Layout files should not be empty.",
+                this.index.getResourceFileNames().stream().noneMatch(name -> name.startsWith("res/layout"))
+                   );
+        assertTrue("Only layout and menu files should be indexed.",
+                this.index.getResourceFileNames().stream().allMatch(ApkResourceIndex::isIndexedResourceFile)
+                  );
+    }
+
+    @Test
+    public void testIsIndexedResourceFile() {
+        assertTrue("Layout file should be indexed.", ApkResourceIndex.isIndexedResourceFile("res/layout/main.xml"));
+        assertTrue("Qualified layout file should be indexed.",
+                ApkResourceIndex.isIndexedResourceFile("res/layout-land/main.xml")
+                  );
+        assertTrue("Menu file should be indexed.", ApkResourceIndex.isIndexedResourceFile("res/menu/options.xml"));
+        assertFalse("Drawable file should not be indexed.",
+                ApkResourceIndex.isIndexedResourceFile("res/drawable/icon.xml")
+                   );
+        assertFalse("Manifest should not be indexed.", ApkResourceIndex.isIndexedResourceFile("AndroidManifest.xml"));
+    }
+}
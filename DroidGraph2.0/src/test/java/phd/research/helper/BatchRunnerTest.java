@@ -0,0 +1,79 @@
+package phd.research.helper;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import phd.research.enums.Outcome;
+import phd.research.graph.Composition;
+import phd.research.vertices.LifecycleVertex;
+import phd.research.vertices.Vertex;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Jordan Doyle
+ */
+
+public class BatchRunnerTest {
+
+    private static final long GIGABYTE = 1024L * 1024L * 1024L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPoolSize() {
+        assertEquals("Pool should be bound by processors.", 8, BatchRunner.poolSize(8, 64 * GIGABYTE, 4 * GIGABYTE));
+        assertEquals("Pool should be bound by memory.", 4, BatchRunner.poolSize(32, 16 * GIGABYTE, 4 * GIGABYTE));
+        assertEquals("Pool should have at least one job.", 1, BatchRunner.poolSize(32, GIGABYTE, 4 * GIGABYTE));
+    }
+
+    @Test
+    public void testAppName() {
+        assertEquals("Wrong app name returned.", "Activity_Lifecycle_1",
+                BatchRunner.getAppName(new File("Test_Apps" + File.separator + "Activity_Lifecycle_1.apk"))
+                    );
+    }
+
+    @Test
+    public void testTableString() {
+        Graph<Vertex, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        graph.addVertex(new LifecycleVertex("<com.example.A: void onCreate()>"));
+
+        String table = BatchRunner.toTableString(
+                Arrays.asList(new BatchRunner.Result("AppA", Outcome.SUCCEEDED, 1, 12, new Composition(graph)),
+                        new BatchRunner.Result("AppB", Outcome.TIMED_OUT, 1, 3600, null)
+                             ));
+        assertTrue("Table should contain the successful app.", table.contains("AppA") && table.contains("12"));
+        assertTrue("Table should contain the timed out app.", table.contains("AppB") && table.contains("TIMED_OUT"));
+    }
+
+    @Test
+    public void testFailedAppDoesNotStopBatch() throws IOException {
+        // The output directory of AppA is a file, so it cannot be created and analysing AppA throws.
+        File output = this.folder.getRoot();
+        this.folder.newFolder("AppA", "AndroGuard");
+        this.folder.newFile("AppA" + File.separator + "AndroGuard" + File.separator + "AppA.gml");
+        this.folder.newFile("AppA" + File.separator + "Droid_Graph");
+
+        BatchRunner runner = new BatchRunner(output, Collections.emptyList(), 2, 1, 1, 0, true);
+        List<BatchRunner.Result> results =
+                runner.run(Arrays.asList(new File(output, "AppA.apk"), new File(output, "AppB.apk")));
+
+        assertEquals("Wrong number of results returned.", 2, results.size());
+        assertEquals("Wrong app returned.", "AppA", results.get(0).getApp());
+        assertEquals("Wrong outcome returned.", Outcome.FAILED, results.get(0).getOutcome());
+        assertEquals("Wrong app returned.", "AppB", results.get(1).getApp());
+        assertEquals("Wrong outcome returned.", Outcome.SKIPPED, results.get(1).getOutcome());
+    }
+}
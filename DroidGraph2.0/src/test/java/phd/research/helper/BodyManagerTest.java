@@ -0,0 +1,136 @@
+package phd.research.helper;
+
+import org.junit.Before;
+import org.junit.Test;
+import soot.*;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jordan Doyle
+ */
+
+public class BodyManagerTest {
+
+    private BodyManager bodies;
+    private SootClass clazz;
+
+    @Before
+    public void setUp() {
+        this.bodies = new BodyManager();
+        this.clazz = new SootClass("phd.research.BodyManagerSample");
+    }
+
+    private SootMethod addMethod(String name, int modifiers) {
+        SootMethod method = new SootMethod(name, Collections.emptyList(), VoidType.v(), modifiers);
+        this.clazz.addMethod(method);
+        return method;
+    }
+
+    // A method whose body is built from its method source every time it is loaded.
+    private SootMethod addLoadableMethod(String name) {
+        SootMethod method = this.addMethod(name, Modifier.PUBLIC);
+        method.setSource((m, phaseName) -> {
+            JimpleBody body = Jimple.v().newBody(m);
+            body.getUnits().add(Jimple.v().newReturnVoidStmt());
+            return body;
+        });
+        return method;
+    }
+
+    @Test
+    public void testRetrieveLoadedBody() {
+        SootMethod method = this.addMethod("loaded", Modifier.PUBLIC);
+        JimpleBody body = Jimple.v().newBody(method);
+        method.setActiveBody(body);
+
+        assertSame("Wrong body returned.", body, this.bodies.retrieve(method));
+        assertEquals("Loaded body should not be counted.", 0, this.bodies.getLoadedBodies());
+    }
+
+    @Test
+    public void testRetrieveAndRelease() {
+        SootMethod method = this.addLoadableMethod("loadable");
+
+        assertNotNull("Body not loaded.", this.bodies.retrieve(method));
+        assertTrue("Body should be active.", method.hasActiveBody());
+        assertEquals("Wrong number of loaded bodies returned.", 1, this.bodies.getLoadedBodies());
+
+        this.bodies.release(method);
+        assertFalse("Body not released.", method.hasActiveBody());
+        assertEquals("Wrong number of released bodies returned.", 1, this.bodies.getReleasedBodies());
+
+        assertNotNull("Released body should load again.", this.bodies.retrieve(method));
+        assertEquals("Wrong number of loaded bodies returned.", 2, this.bodies.getLoadedBodies());
+    }
+
+    @Test
+    public void testOnlyLoadedBodiesReleased() {
+        SootMethod external = this.addMethod("external", Modifier.PUBLIC);
+        external.setActiveBody(Jimple.v().newBody(external));
+        SootMethod retained = this.addLoadableMethod("retained");
+        this.bodies.retrieve(retained);
+        this.bodies.retainLoadedBodies();
+
+        this.bodies.release(external);
+        this.bodies.release(retained);
+        assertTrue("Body loaded elsewhere should be kept.", external.hasActiveBody());
+        assertTrue("Retained body should be kept.", retained.hasActiveBody());
+        assertEquals("Wrong number of released bodies returned.", 0, this.bodies.getReleasedBodies());
+        assertEquals("Wrong number of kept bodies returned.", 2, this.bodies.getKeptBodies());
+    }
+
+    @Test
+    public void testNoBody() {
+        SootMethod abstractMethod = this.addMethod("abstractMethod", Modifier.PUBLIC | Modifier.ABSTRACT);
+        SootMethod noSource = this.addMethod("noSource", Modifier.PUBLIC);
+
+        assertNull("Abstract method should not have a body.", this.bodies.retrieve(abstractMethod));
+        assertNull("Method without a source should not have a body.", this.bodies.retrieve(noSource));
+        assertEquals("Wrong number of loaded bodies returned.", 0, this.bodies.getLoadedBodies());
+    }
+
+    @Test
+    public void testPreload() {
+        SootMethod first = this.addLoadableMethod("first");
+        SootMethod second = this.addLoadableMethod("second");
+        SootMethod failing = this.addMethod("failing", Modifier.PUBLIC);
+        failing.setSource((m, phaseName) -> {
+            throw new RuntimeException("Body can not be built.");
+        });
+
+        assertEquals("Wrong number of built bodies returned.", 2,
+                this.bodies.preload(Arrays.asList(first, failing, second))
+                    );
+        assertTrue("Body not built.", first.hasActiveBody());
+        assertTrue("Body not built.", second.hasActiveBody());
+        assertFalse("Failed body should not be active.", failing.hasActiveBody());
+        assertEquals("Wrong number of failed bodies returned.", 1, this.bodies.getFailedBodies());
+        assertEquals("Loaded bodies should not be built again.", 0,
+                this.bodies.preload(Arrays.asList(first, second))
+                    );
+    }
+
+    @Test
+    public void testWithBody() {
+        SootMethod method = this.addLoadableMethod("loadable");
+        int units = this.bodies.withBody(method, body -> body.getUnits().size(), -1);
+
+        assertEquals("Wrong result returned.", 1, units);
+        assertFalse("Body loaded for the call should be released.", method.hasActiveBody());
+
+        this.bodies.retrieve(method);
+        this.bodies.withBody(method, body -> body.getUnits().size(), -1);
+        assertTrue("Body loaded before the call should be kept.", method.hasActiveBody());
+
+        SootMethod abstractMethod = this.addMethod("abstractMethod", Modifier.PUBLIC | Modifier.ABSTRACT);
+        assertEquals("Wrong result returned.", -1,
+                (int) this.bodies.withBody(abstractMethod, body -> body.getUnits().size(), -1)
+                    );
+    }
+}
@@ -0,0 +1,116 @@
+package phd.research.helper;
+
+import org.junit.Before;
+import org.junit.Test;
+import soot.*;
+import soot.jimple.IntConstant;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.jimple.NullConstant;
+import soot.toolkits.graph.BriefUnitGraph;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Jordan Doyle
+ */
+
+public class ConstantResolverTest {
+
+    private JimpleBody body;
+    private Local a;
+    private Local b;
+    private Local c;
+
+    @Before
+    public void setUp() {
+        SootClass clazz = new SootClass("phd.research.ConstantResolverSample");
+        SootMethod method = new SootMethod("sample", Collections.singletonList(IntType.v()), VoidType.v(),
+                Modifier.PUBLIC | Modifier.STATIC
+        );
+        clazz.addMethod(method);
+
+        this.body = Jimple.v().newBody(method);
+        method.setActiveBody(this.body);
+        this.a = this.addLocal("a");
+        this.b = this.addLocal("b");
+        this.c = this.addLocal("c");
+    }
+
+    private Local addLocal(String name) {
+        Local local = Jimple.v().newLocal(name, IntType.v());
+        this.body.getLocals().add(local);
+        return local;
+    }
+
+    private ConstantResolver resolver() {
+        return new ConstantResolver(() -> new BriefUnitGraph(this.body));
+    }
+
+    @Test
+    public void testConstant() {
+        Unit use = Jimple.v().newReturnVoidStmt();
+        this.body.getUnits().add(use);
+
+        assertEquals("Wrong constants returned.", Collections.singleton(7),
+                this.resolver().resolve(IntConstant.v(7), use)
+                    );
+        assertTrue("Null should not resolve.", this.resolver().resolve(NullConstant.v(), use).isEmpty());
+    }
+
+    @Test
+    public void testCopiesAndCasts() {
+        Unit use = Jimple.v().newAssignStmt(this.c, this.b);
+        this.body.getUnits().addAll(Arrays.asList(Jimple.v().newAssignStmt(this.a, IntConstant.v(2131296283)),
+                Jimple.v().newAssignStmt(this.b, Jimple.v().newCastExpr(this.a, IntType.v())), use,
+                Jimple.v().newReturnVoidStmt()
+                                                 ));
+
+        assertEquals("Wrong constants returned.", Collections.singleton(2131296283),
+                this.resolver().resolve(this.b, use)
+                    );
+    }
+
+    @Test
+    public void testBranches() {
+        Unit use = Jimple.v().newAssignStmt(this.c, this.b);
+        Unit second = Jimple.v().newAssignStmt(this.b, IntConstant.v(2));
+        this.body.getUnits().addAll(Arrays.asList(Jimple.v().newAssignStmt(this.a, IntConstant.v(0)),
+                Jimple.v().newIfStmt(Jimple.v().newEqExpr(this.a, IntConstant.v(0)), second),
+                Jimple.v().newAssignStmt(this.b, IntConstant.v(1)), Jimple.v().newGotoStmt(use), second, use,
+                Jimple.v().newReturnVoidStmt()
+                                                 ));
+
+        assertEquals("Wrong constants returned.", new HashSet<>(Arrays.asList(1, 2)),
+                this.resolver().resolve(this.b, use)
+                    );
+    }
+
+    @Test
+    public void testKilledDefinition() {
+        Unit use = Jimple.v().newAssignStmt(this.c, this.a);
+        this.body.getUnits().addAll(Arrays.asList(Jimple.v().newAssignStmt(this.a, IntConstant.v(1)),
+                Jimple.v().newAssignStmt(this.a, IntConstant.v(2)), use, Jimple.v().newReturnVoidStmt()
+                                                 ));
+
+        assertEquals("Wrong constants returned.", Collections.singleton(2), this.resolver().resolve(this.a, use));
+    }
+
+    @Test
+    public void testNotConstant() {
+        Unit use = Jimple.v().newAssignStmt(this.c, this.b);
+        this.body.getUnits().addAll(Arrays.asList(
+                Jimple.v().newIdentityStmt(this.a, Jimple.v().newParameterRef(IntType.v(), 0)),
+                Jimple.v().newAssignStmt(this.b, Jimple.v().newAddExpr(this.a, IntConstant.v(1))), use,
+                Jimple.v().newReturnVoidStmt()
+                                                 ));
+
+        assertTrue("Parameter should not resolve.", this.resolver().resolve(this.a, use).isEmpty());
+        assertTrue("Arithmetic should not resolve.", this.resolver().resolve(this.b, use).isEmpty());
+    }
+}
@@ -0,0 +1,117 @@
+package phd.research.main;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jordan Doyle
+ */
+
+public class DroidGraphServerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private int port;
+    private File tokenFile;
+    private Thread serverThread;
+    private AtomicReference<String[]> received;
+
+    @Before
+    public void setUp() throws IOException, InterruptedException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            this.port = socket.getLocalPort();
+        }
+
+        this.received = new AtomicReference<>();
+        this.tokenFile = new File(this.folder.getRoot(), "server.token");
+        DroidGraphServer server = new DroidGraphServer(this.port, this.tokenFile);
+        server.register("echo", arguments -> {
+            this.received.set(arguments);
+            return arguments.length;
+        });
+        server.register("fail", arguments -> {
+            throw new RuntimeException("failed");
+        });
+
+        this.serverThread = new Thread(() -> DroidGraphServer.start(server));
+        this.serverThread.start();
+
+        // Wait for the server to accept connections.
+        for (int i = 0; i < 100; i++) {
+            try {
+                this.send(DroidGraphServer.PING, new String[0]);
+                return;
+            } catch (IOException e) {
+                Thread.sleep(50);
+            }
+        }
+        fail("Server did not start.");
+    }
+
+    @After
+    public void tearDown() throws IOException, InterruptedException {
+        this.send(DroidGraphServer.SHUTDOWN, new String[0]);
+        this.serverThread.join(5000);
+        assertFalse("Server should shut down.", this.serverThread.isAlive());
+        assertFalse("Token file should be deleted on shut down.", this.tokenFile.exists());
+    }
+
+    private int send(String command, String[] arguments) throws IOException {
+        return DroidGraphClient.send(this.port, DroidGraphServer.readToken(this.tokenFile), command, arguments);
+    }
+
+    @Test
+    public void testCommands() throws IOException {
+        String[] arguments = new String[]{"-a", "app apk", "-cf"};
+        assertEquals("Wrong exit code returned.", 3, this.send("echo", arguments));
+        assertArrayEquals("Wrong arguments received.", arguments, this.received.get());
+
+        assertEquals("Failed command should return 1.", 1, this.send("fail", new String[0]));
+        assertEquals("Unknown command should return 1.", 1, this.send("none", new String[0]));
+        assertEquals("Ping should return 0.", 0,
+                this.send(DroidGraphServer.PING, new String[0])
+                    );
+    }
+
+    @Test
+    public void testWrongToken() throws IOException {
+        assertEquals("Request with a wrong token should be refused.", DroidGraphServer.UNAUTHORISED,
+                DroidGraphClient.send(this.port, "wrong", "echo", new String[]{"-a"})
+                    );
+        assertNull("Refused command should not run.", this.received.get());
+        assertEquals("Ping should return 0.", 0, this.send(DroidGraphServer.PING, new String[0]));
+    }
+
+    @Test
+    public void testTokenFileOwnerOnly() throws IOException {
+        assertEquals("Wrong token length.", 64, DroidGraphServer.readToken(this.tokenFile).length());
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            assertEquals("Token file should only be accessible to its owner.",
+                    PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(this.tokenFile.toPath())
+                        );
+        }
+    }
+
+    @Test
+    public void testResolvePaths() throws IOException {
+        File apk = this.folder.newFile("app.apk");
+        String[] resolved = DroidGraphClient.resolvePaths(new String[]{"-a", apk.getPath(), "-f", "JSON"});
+        assertArrayEquals("Wrong arguments returned.", new String[]{"-a", apk.getAbsolutePath(), "-f", "JSON"},
+                resolved
+                         );
+    }
+}
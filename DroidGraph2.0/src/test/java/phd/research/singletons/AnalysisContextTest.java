@@ -0,0 +1,127 @@
+package phd.research.singletons;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import phd.research.enums.Format;
+import phd.research.enums.Type;
+import phd.research.vertices.DefaultVertex;
+import soot.G;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jordan Doyle
+ */
+
+public class AnalysisContextTest {
+
+    private AnalysisContext first;
+    private AnalysisContext second;
+
+    @Before
+    public void setUp() {
+        this.first = new AnalysisContext();
+        this.second = new AnalysisContext();
+    }
+
+    @After
+    public void tearDown() {
+        GraphSettings.resetDefaults();
+        DefaultVertex.resetIdSequence();
+    }
+
+    @Test
+    public void testDefaultContext() {
+        assertSame("Wrong context returned without a binding.", AnalysisContext.v(), AnalysisContext.v());
+        assertSame("Wrong settings returned.", AnalysisContext.v().getSettings(), GraphSettings.v());
+        assertNotSame("Default context should not be a new context.", this.first, AnalysisContext.v());
+    }
+
+    @Test
+    public void testCall() {
+        AnalysisContext unbound = AnalysisContext.v();
+        assertSame("Wrong context returned while bound.", this.first, this.first.call(AnalysisContext::v));
+        assertSame("Wrong context returned after call.", unbound, AnalysisContext.v());
+
+        AnalysisContext nested = this.first.call(() -> this.second.call(AnalysisContext::v));
+        assertSame("Wrong context returned by nested call.", this.second, nested);
+        AnalysisContext restored = this.first.call(() -> {
+            this.second.run(() -> {});
+            return AnalysisContext.v();
+        });
+        assertSame("Wrong context returned after nested call.", this.first, restored);
+    }
+
+    @Test
+    public void testSettingsIsolation() {
+        this.first.run(() -> GraphSettings.v().setFormat(Format.GML));
+        this.second.run(() -> GraphSettings.v().setFormat(Format.DOT));
+
+        assertEquals("Wrong format returned.", Format.GML, this.first.call(() -> GraphSettings.v().getFormat()));
+        assertEquals("Wrong format returned.", Format.DOT, this.second.call(() -> GraphSettings.v().getFormat()));
+        assertEquals("Wrong default format returned.", Format.JSON, GraphSettings.v().getFormat());
+    }
+
+    @Test
+    public void testSootIsolation() {
+        G firstSoot = this.first.call(G::v);
+        assertSame("Wrong Soot globals returned.", firstSoot, this.first.call(G::v));
+        assertNotSame("Contexts should not share Soot globals.", firstSoot, this.second.call(G::v));
+        assertNotSame("Context should not share the default Soot globals.", firstSoot, G.v());
+
+        this.first.run(G::reset);
+        assertNotSame("Soot globals not reset.", firstSoot, this.first.call(G::v));
+        assertSame("Soot reset should only affect the bound context.", this.second.getSoot(),
+                this.second.call(G::v)
+                  );
+    }
+
+    @Test
+    public void testVertexIdIsolation() {
+        this.first.run(() -> new DefaultVertex(Type.METHOD));
+        this.first.run(() -> new DefaultVertex(Type.METHOD));
+
+        assertEquals("Wrong id returned.", 2, (int) this.first.call(() -> new DefaultVertex(Type.METHOD).getId()));
+        assertEquals("Wrong id returned.", 0, (int) this.second.call(() -> new DefaultVertex(Type.METHOD).getId()));
+    }
+
+    @Test
+    public void testThreadInheritance() throws InterruptedException {
+        AtomicReference<AnalysisContext> seen = new AtomicReference<>();
+        Thread thread = this.first.call(() -> new Thread(() -> seen.set(AnalysisContext.v())));
+        thread.start();
+        thread.join();
+
+        assertSame("Wrong context returned on child thread.", this.first, seen.get());
+    }
+
+    @Test
+    public void testForkJoinPool() throws ExecutionException, InterruptedException {
+        ForkJoinPool pool = this.first.newForkJoinPool();
+        try {
+            assertSame("Wrong context returned on worker thread.", this.first,
+                    pool.submit(AnalysisContext::v).get()
+                      );
+            assertEquals("Wrong format returned on worker thread.", Format.JSON,
+                    pool.submit(() -> GraphSettings.v().getFormat()).get()
+                        );
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testReset() {
+        GraphSettings settings = this.first.getSettings();
+        this.first.getVertexIdSequence().set(10);
+        this.first.reset();
+
+        assertNotSame("Settings not reset.", settings, this.first.getSettings());
+        assertEquals("Vertex ids not reset.", 0, this.first.getVertexIdSequence().get());
+    }
+}
@@ -90,6 +90,22 @@ public class GraphSettingsTest {
         this.settings.setImportControlFlowGraph(new File(" "));
     }
 
+    @Test
+    public void testSetCacheDirectory() throws IOException {
+        assertFalse("Analysis cache should not be enabled.", this.settings.isCacheAnalysis());
+        assertNull("Cache directory should be null.", this.settings.getCacheDirectory());
+
+        this.settings.setCacheDirectory(new File(GraphSettingsTest.workingDirectory));
+
+        assertTrue("Analysis cache should be enabled.", this.settings.isCacheAnalysis());
+        assertTrue("Cache directory does not exist.", this.settings.getCacheDirectory().isDirectory());
+    }
+
+    @Test(expected = IOException.class)
+    public void testCacheDirectoryIOException() throws IOException {
+        this.settings.setCacheDirectory(new File(" "));
+    }
+
     @Test
     public void testSetIsAddMissingComponents() {
         assertFalse("isAddMissingComponents should return false.", this.settings.isAddMissingComponents());
@@ -98,6 +114,13 @@ public class GraphSettingsTest {
 
     }
 
+    @Test
+    public void testSetParallelUnitGraphs() {
+        assertFalse("isParallelUnitGraphs should return false.", this.settings.isParallelUnitGraphs());
+        this.settings.setParallelUnitGraphs(true);
+        assertTrue("isParallelUnitGraphs should return true.", this.settings.isParallelUnitGraphs());
+    }
+
     @Test
     public void testSetFormat() {
         assertEquals("Default format is not set correctly.", Format.JSON, this.settings.getFormat());
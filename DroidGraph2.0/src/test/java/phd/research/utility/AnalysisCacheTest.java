@@ -0,0 +1,183 @@
+package phd.research.utility;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import phd.research.graph.Composition;
+import phd.research.graph.Control;
+import phd.research.singletons.GraphSettings;
+import phd.research.vertices.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jordan Doyle
+ */
+
+public class AnalysisCacheTest {
+
+    private final String SIGNATURE = "<com.example.android.lifecycle.ActivityA: void onClick(android.view.View)>";
+    private final String KEY = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Control control;
+    private Graph<Vertex, DefaultEdge> callGraph;
+    private Graph<Vertex, DefaultEdge> controlFlowGraph;
+
+    @Before
+    public void setUp() {
+        DefaultVertex.resetIdSequence();
+        this.control = new Control(1, "btn_click_A", 2, "activity_a", "com.example.lifecycle.ActivityA",
+                Collections.singletonList(this.SIGNATURE)
+        );
+
+        ListenerVertex listener = new ListenerVertex(this.SIGNATURE);
+        LifecycleVertex lifecycle = new LifecycleVertex("<com.example.android.lifecycle.ActivityA: void onStart()>");
+        this.callGraph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        this.callGraph.addVertex(listener);
+        this.callGraph.addVertex(lifecycle);
+        this.callGraph.addEdge(lifecycle, listener);
+
+        ControlVertex controlVertex = new ControlVertex(this.control);
+        this.controlFlowGraph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        this.controlFlowGraph.addVertex(controlVertex);
+        this.controlFlowGraph.addVertex(listener);
+        this.controlFlowGraph.addVertex(lifecycle);
+        this.controlFlowGraph.addEdge(controlVertex, listener);
+        this.controlFlowGraph.addEdge(lifecycle, listener);
+    }
+
+    @After
+    public void tearDown() {
+        GraphSettings.resetDefaults();
+    }
+
+    @Test
+    public void testMiss() {
+        AnalysisCache cache = new AnalysisCache(this.folder.getRoot(), this.KEY);
+        assertFalse("Empty cache should not be complete.", cache.isComplete());
+        assertNull("Empty cache should not return a graph.", cache.loadControlFlowGraph());
+        assertNull("Empty cache should not return controls.", cache.loadControls());
+        assertEquals("Wrong hit count returned.", 0, cache.getHits());
+        assertEquals("Wrong miss count returned.", 2, cache.getMisses());
+    }
+
+    @Test
+    public void testStoreAndLoad() throws IOException {
+        File callbacks = this.folder.newFile("flow_droid_callbacks");
+        Files.write(callbacks.toPath(), "callbacks".getBytes(StandardCharsets.UTF_8));
+
+        new AnalysisCache(this.folder.getRoot(), this.KEY).store(callbacks,
+                Collections.singletonList(this.control), this.callGraph, this.controlFlowGraph
+                                                                );
+
+        AnalysisCache cache = new AnalysisCache(this.folder.getRoot(), this.KEY);
+        assertTrue("Stored cache should be complete.", cache.isComplete());
+
+        Collection<Control> controls = cache.loadControls();
+        assertEquals("Wrong controls returned.", Collections.singletonList(this.control), controls);
+
+        Graph<Vertex, DefaultEdge> graph = cache.loadControlFlowGraph();
+        assertNotNull("Control flow graph should be cached.", graph);
+        assertEquals("Wrong control flow graph composition returned.", new Composition(this.controlFlowGraph),
+                new Composition(graph)
+                    );
+
+        graph = cache.loadCallGraph();
+        assertNotNull("Call graph should be cached.", graph);
+        assertEquals("Wrong call graph composition returned.", new Composition(this.callGraph),
+                new Composition(graph)
+                    );
+
+        File cachedCallbacks = cache.loadCallbacksFile();
+        assertNotNull("Callbacks file should be cached.", cachedCallbacks);
+        assertArrayEquals("Wrong callbacks file contents returned.", Files.readAllBytes(callbacks.toPath()),
+                Files.readAllBytes(cachedCallbacks.toPath())
+                         );
+        assertEquals("Wrong hit count returned.", 4, cache.getHits());
+        assertEquals("Wrong miss count returned.", 0, cache.getMisses());
+    }
+
+    @Test
+    public void testStoreTwice() throws IOException {
+        new AnalysisCache(this.folder.getRoot(), this.KEY).store(null, Collections.singletonList(this.control),
+                this.callGraph, this.controlFlowGraph
+                                                                );
+        new AnalysisCache(this.folder.getRoot(), this.KEY).store(null, Collections.singletonList(this.control),
+                this.callGraph, this.controlFlowGraph
+                                                                );
+
+        AnalysisCache cache = new AnalysisCache(this.folder.getRoot(), this.KEY);
+        assertNull("Callbacks file should not be cached.", cache.loadCallbacksFile());
+        assertNotNull("Control flow graph should be cached.", cache.loadControlFlowGraph());
+        String[] entries = this.folder.getRoot().list();
+        assertNotNull("Cache directory should be listed.", entries);
+        assertEquals("Temporary directories should be removed.", 1, entries.length);
+    }
+
+    @Test
+    public void testKey() throws IOException {
+        File apk = this.folder.newFile("app.apk");
+        File callGraph = this.folder.newFile("app.gml");
+        Files.write(apk.toPath(), "apk".getBytes(StandardCharsets.UTF_8));
+        Files.write(callGraph.toPath(), "graph".getBytes(StandardCharsets.UTF_8));
+
+        GraphSettings settings = GraphSettings.v();
+        settings.setApkFile(apk);
+        settings.setCallGraphFile(callGraph);
+        String key = AnalysisCache.computeKey(settings);
+        assertEquals("Wrong key length returned.", 64, key.length());
+        assertEquals("Key should be stable.", key, AnalysisCache.computeKey(settings));
+
+        Files.write(apk.toPath(), "apk2".getBytes(StandardCharsets.UTF_8));
+        assertNotEquals("Key should change with the apk.", key, AnalysisCache.computeKey(settings));
+
+        Files.write(apk.toPath(), "apk".getBytes(StandardCharsets.UTF_8));
+        settings.setAddMissingComponents(true);
+        assertNotEquals("Key should change with the settings.", key, AnalysisCache.computeKey(settings));
+    }
+
+    @Test
+    public void testKeyResources() throws IOException {
+        File apk = this.folder.newFile("app.apk");
+        File callGraph = this.folder.newFile("app.gml");
+        File resources = this.folder.newFolder("resources");
+        File blacklist = new File(resources, "class_blacklist");
+        File build = new File(resources, "droidgraph.properties");
+        Files.write(blacklist.toPath(), "Adapter".getBytes(StandardCharsets.UTF_8));
+        Files.write(build.toPath(), "version=2.0\nbuild=1".getBytes(StandardCharsets.UTF_8));
+
+        GraphSettings settings = GraphSettings.v();
+        settings.setApkFile(apk);
+        settings.setCallGraphFile(callGraph);
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{resources.toURI().toURL()}, null)) {
+            String key = AnalysisCache.computeKey(settings, loader);
+            assertEquals("Key should be stable.", key, AnalysisCache.computeKey(settings, loader));
+
+            Files.write(blacklist.toPath(), "Adapter\nFragment".getBytes(StandardCharsets.UTF_8));
+            String blacklistKey = AnalysisCache.computeKey(settings, loader);
+            assertNotEquals("Key should change with the blacklists.", key, blacklistKey);
+
+            Files.write(build.toPath(), "version=2.0\nbuild=2".getBytes(StandardCharsets.UTF_8));
+            assertNotEquals("Key should change with the build.", blacklistKey,
+                    AnalysisCache.computeKey(settings, loader)
+                           );
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package phd.research.utility;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays every node label from the AndroGuard GML files in Test_Results through
+ * {@link Bytecode#signatureToJimple(String)}. Run with the main method from the test classpath, the input directory can
+ * be changed with -Dlabels.directory=DIRECTORY.
+ *
+ * @author Jordan Doyle
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BytecodeBenchmark {
+
+    private static final String LABELS_DIRECTORY = System.getProperty("labels.directory",
+            System.getProperty("user.dir") + File.separator + ".." + File.separator + "Test_Results");
+
+    private List<String> labels;
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(BytecodeBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+
+    private static void readLabels(File file, List<String> labels) throws IOException {
+        try (GMLPullParser parser = new GMLPullParser(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            parser.nextKey();
+            parser.beginList();
+            while (parser.hasNext()) {
+                String key = parser.nextKey();
+                if (key.equals("node")) {
+                    parser.beginList();
+                    while (parser.hasNext()) {
+                        if (parser.nextKey().equals("label")) {
+                            labels.add(parser.nextValue());
+                        } else {
+                            parser.skipValue();
+                        }
+                    }
+                    parser.endList();
+                } else {
+                    parser.skipValue();
+                }
+            }
+            parser.endList();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void loadLabels() throws IOException {
+        this.labels = new ArrayList<>();
+        File[] apps = new File(BytecodeBenchmark.LABELS_DIRECTORY).listFiles(File::isDirectory);
+        if (apps != null) {
+            for (File app : apps) {
+                File[] graphs = new File(app, "AndroGuard").listFiles((dir, name) -> name.endsWith(".gml"));
+                if (graphs != null) {
+                    for (File graph : graphs) {
+                        BytecodeBenchmark.readLabels(graph, this.labels);
+                    }
+                }
+            }
+        }
+
+        if (this.labels.isEmpty()) {
+            throw new IOException("No AndroGuard labels found in " + BytecodeBenchmark.LABELS_DIRECTORY);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void clearCache() {
+        Bytecode.clearCache();
+    }
+
+    @Benchmark
+    public void signatureToJimple(Blackhole blackhole) {
+        for (String label : this.labels) {
+            try {
+                blackhole.consume(Bytecode.signatureToJimple(label));
+            } catch (RuntimeException e) {
+                blackhole.consume(e);
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package phd.research.utility;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 /**
  * @author Jordan Doyle
@@ -49,6 +50,34 @@ public class BytecodeTest {
                     );
     }
 
+    @Test
+    public void testSignatureToJimpleArraysAndFlags() {
+        String signatureWithFlags = "Lcom/example/android/lifecycle/ActivityA$1;-><init>" +
+                "(Lcom/example/android/lifecycle/ActivityA;)V [access_flags=constructor] @ 0x1958";
+        assertEquals("Wrong flags signature returned.",
+                "<com.example.android.lifecycle.ActivityA$1: void <init>(com.example.android.lifecycle.ActivityA)>",
+                Bytecode.signatureToJimple(signatureWithFlags)
+                    );
+
+        String signatureWithArrays = "Lcom/example/Table;->copy([Ljava/lang/String; [[I)[[J";
+        assertEquals("Wrong array signature returned.", "<com.example.Table: long[][] copy(java.lang.String[],int[][])>",
+                Bytecode.signatureToJimple(signatureWithArrays)
+                    );
+
+        String signatureWithArrayClass = "[I->clone()Ljava/lang/Object;";
+        assertEquals("Wrong array class signature returned.", "<int[]: java.lang.Object clone()>",
+                Bytecode.signatureToJimple(signatureWithArrayClass)
+                    );
+    }
+
+    @Test
+    public void testSignatureToJimpleCached() {
+        String signature = "Landroid/os/Parcel;->readByte()B";
+        assertSame("Cached signature should be returned.", Bytecode.signatureToJimple(signature),
+                Bytecode.signatureToJimple(signature)
+                  );
+    }
+
     @Test(expected = RuntimeException.class)
     public void testInvalidBytecode() {
         Bytecode.signatureToJimple("");
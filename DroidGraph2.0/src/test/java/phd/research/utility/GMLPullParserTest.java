@@ -0,0 +1,58 @@
+package phd.research.utility;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jordan Doyle
+ */
+
+public class GMLPullParserTest {
+
+    @SuppressWarnings("SpellCheckingInspection")
+    private final String NODE = "graph [\n  directed 1\n  node [\n    id 0\n" +
+            "    label \"Landroid/arch/a/a/b;-><init>()V [access_flags=public constructor] @ 0xcb0e4\"\n" +
+            "    external 0\n  ]\n]\n";
+
+    @Test
+    public void testNode() throws IOException {
+        GMLPullParser parser = new GMLPullParser(new StringReader(this.NODE));
+        assertEquals("Wrong key returned.", "graph", parser.nextKey());
+        assertTrue("Graph should be a list.", parser.isNextList());
+        parser.beginList();
+        assertEquals("Wrong key returned.", "directed", parser.nextKey());
+        assertEquals("Wrong value returned.", "1", parser.nextValue());
+        assertEquals("Wrong key returned.", "node", parser.nextKey());
+        parser.beginList();
+        assertEquals("Wrong key returned.", "id", parser.nextKey());
+        assertEquals("Wrong id returned.", "0", parser.nextValue());
+        assertEquals("Wrong key returned.", "label", parser.nextKey());
+        assertEquals("Wrong label returned.",
+                "Landroid/arch/a/a/b;-><init>()V [access_flags=public constructor] @ 0xcb0e4", parser.nextValue()
+                    );
+        assertEquals("Wrong key returned.", "external", parser.nextKey());
+        assertEquals("Wrong value returned.", "0", parser.nextValue());
+        assertFalse("Node should have no more values.", parser.hasNext());
+        parser.endList();
+        parser.endList();
+        assertFalse("Document should have no more values.", parser.hasNext());
+    }
+
+    @Test
+    public void testSkipValue() throws IOException {
+        GMLPullParser parser = new GMLPullParser(new StringReader("# comment\ngraph [ node [ id 0 ] ] creator \"a\""));
+        assertEquals("Wrong key returned.", "graph", parser.nextKey());
+        parser.skipValue();
+        assertEquals("Wrong key returned after skip.", "creator", parser.nextKey());
+        assertEquals("Wrong value returned after skip.", "a", parser.nextValue());
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnterminatedString() throws IOException {
+        new GMLPullParser(new StringReader("\"open")).nextValue();
+    }
+}
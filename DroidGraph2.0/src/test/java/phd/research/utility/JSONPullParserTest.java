@@ -0,0 +1,60 @@
+package phd.research.utility;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jordan Doyle
+ */
+
+public class JSONPullParserTest {
+
+    @Test
+    public void testScalars() throws IOException {
+        JSONPullParser parser = new JSONPullParser(
+                new StringReader("{\"id\":\"1\", \"controlId\": 2131230821, \"visit\":true, \"label\":null}"));
+        parser.beginObject();
+        assertEquals("Wrong name returned.", "id", parser.nextName());
+        assertEquals("Wrong string returned.", "1", parser.nextValue());
+        assertEquals("Wrong name returned.", "controlId", parser.nextName());
+        assertEquals("Wrong number returned.", "2131230821", parser.nextValue());
+        assertEquals("Wrong name returned.", "visit", parser.nextName());
+        assertEquals("Wrong boolean returned.", "true", parser.nextValue());
+        assertEquals("Wrong name returned.", "label", parser.nextName());
+        assertNull("Null should be returned as null.", parser.nextValue());
+        assertFalse("Object should have no more values.", parser.hasNext());
+        parser.endObject();
+    }
+
+    @Test
+    public void testEscapes() throws IOException {
+        JSONPullParser parser = new JSONPullParser(
+                new StringReader("[\"r0 = \\\"text\\\"\", \"a\\/b\\\\c\", \"caf\\u00e9\\n\"]"));
+        parser.beginArray();
+        assertEquals("Wrong quotes returned.", "r0 = \"text\"", parser.nextValue());
+        assertEquals("Wrong slashes returned.", "a/b\\c", parser.nextValue());
+        assertEquals("Wrong unicode returned.", "café\n", parser.nextValue());
+        parser.endArray();
+    }
+
+    @Test
+    public void testSkipValue() throws IOException {
+        JSONPullParser parser = new JSONPullParser(
+                new StringReader("{\"nested\":{\"a\":[1,{\"b\":[]}]},\"after\":\"value\"}"));
+        parser.beginObject();
+        assertEquals("Wrong name returned.", "nested", parser.nextName());
+        parser.skipValue();
+        assertEquals("Wrong name returned after skip.", "after", parser.nextName());
+        assertEquals("Wrong value returned after skip.", "value", parser.nextValue());
+        parser.endObject();
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnterminatedString() throws IOException {
+        new JSONPullParser(new StringReader("\"open")).nextValue();
+    }
+}
@@ -0,0 +1,110 @@
+package phd.research.utility;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import phd.research.enums.Format;
+import phd.research.graph.Composition;
+import phd.research.graph.Control;
+import phd.research.vertices.*;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jordan Doyle
+ */
+
+public class WriterTest {
+
+    private final String SIGNATURE = "<com.example.android.lifecycle.ActivityA: void onClick(android.view.View)>";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Graph<Vertex, DefaultEdge> graph;
+
+    @Before
+    public void setUp() {
+        DefaultVertex.resetIdSequence();
+        this.graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+
+        ControlVertex control = new ControlVertex(
+                new Control(1, "btn_click_A", 2, "activity_a", "com.example.lifecycle.ActivityA",
+                        Arrays.asList(this.SIGNATURE, "<com.example.android.lifecycle.ActivityA: void onStart()>")
+                ));
+        ListenerVertex listener = new ListenerVertex(this.SIGNATURE);
+        UnitVertex firstUnit = new UnitVertex(this.SIGNATURE, "$r0 := @this: com.example.android.lifecycle.ActivityA");
+        UnitVertex secondUnit = new UnitVertex(this.SIGNATURE, "return");
+        LifecycleVertex lifecycle = new LifecycleVertex("<com.example.android.lifecycle.ActivityA: void onStart()>");
+
+        this.graph.addVertex(control);
+        this.graph.addVertex(listener);
+        this.graph.addVertex(firstUnit);
+        this.graph.addVertex(secondUnit);
+        this.graph.addVertex(lifecycle);
+        this.graph.addEdge(control, listener);
+        this.graph.addEdge(listener, firstUnit);
+        this.graph.addEdge(firstUnit, secondUnit);
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException {
+        File directory = this.folder.getRoot();
+        Writer.writeGraph(directory, "graph", Format.BINARY, this.graph);
+
+        Graph<Vertex, DefaultEdge> imported = Importer.importDroidGraph(new File(directory, "graph.bin"));
+        assertEquals("Wrong number of vertices imported.", 5, imported.vertexSet().size());
+        assertEquals("Wrong number of edges imported.", 3, imported.edgeSet().size());
+        assertEquals("Wrong composition imported.", new Composition(this.graph), new Composition(imported));
+
+        Vertex importedControl = imported.vertexSet().stream().filter(v -> v instanceof ControlVertex).findFirst()
+                .orElseThrow(AssertionError::new);
+        assertEquals("Wrong control id assigned.", 1, importedControl.getId());
+        assertEquals("Wrong control imported.", ((ControlVertex) this.graph.vertexSet().iterator().next()).getControl(),
+                ((ControlVertex) importedControl).getControl()
+                    );
+        assertEquals("Wrong out degree imported.", 1, imported.outDegreeOf(importedControl));
+
+        for (Vertex vertex : imported.vertexSet()) {
+            if (vertex instanceof UnitVertex) {
+                assertTrue("Unit vertex not imported.", this.graph.containsVertex(vertex));
+            }
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testBinaryVersionMismatch() throws IOException {
+        File file = this.folder.newFile("graph.bin");
+        try (DataOutputStream output = new DataOutputStream(new FileOutputStream(file))) {
+            output.writeInt(Writer.BINARY_MAGIC);
+            output.writeInt(Writer.BINARY_VERSION + 1);
+        }
+        Importer.importDroidGraph(file);
+    }
+
+    @Test
+    public void testDuplicateUnitImported() throws IOException {
+        File file = this.folder.newFile("graph.json");
+        String unit = "{\"type\":\"UNIT\",\"method\":\"" + this.SIGNATURE + "\",\"unit\":\"return\",\"id\":\"";
+        String json = "{\"nodes\":[{\"type\":\"METHOD\",\"method\":\"" + this.SIGNATURE + "\",\"id\":\"1\"}," +
+                unit + "2\"}," + unit + "3\"}],\"edges\":[{\"source\":\"1\",\"target\":\"3\"}]}";
+        Files.write(file.toPath(), json.getBytes(StandardCharsets.UTF_8));
+
+        Graph<Vertex, DefaultEdge> imported = Importer.importDroidGraph(file);
+        assertEquals("Equal units should be imported once.", 2, imported.vertexSet().size());
+        Vertex target = imported.getEdgeTarget(imported.edgeSet().iterator().next());
+        assertEquals("Edge should target the unit imported first.", 2, target.getId());
+    }
+}
@@ -0,0 +1,84 @@
+package phd.research.vertices;
+
+import nl.jqno.equalsverifier.EqualsVerifier;
+import org.jgrapht.nio.Attribute;
+import org.junit.Before;
+import org.junit.Test;
+import phd.research.enums.Type;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Jordan Doyle
+ */
+
+public class BlockVertexTest {
+
+    private final List<String> UNITS = Arrays.asList("$r0 := @this: com.example.android.lifecycle.ActivityA", "return");
+
+    private BlockVertex vertex;
+
+    @Before
+    public void setUp() {
+        DefaultVertex.resetIdSequence();
+        this.vertex = new BlockVertex(MethodVertexTest.SIGNATURE, 3, this.UNITS);
+    }
+
+    @Test
+    public void testConstructor() {
+        assertEquals("Wrong id returned.", 0, this.vertex.getId());
+        assertEquals("Wrong type returned.", Type.BLOCK, this.vertex.getType());
+        assertEquals("Wrong method signature returned.", MethodVertexTest.SIGNATURE, this.vertex.getMethodSignature());
+        assertEquals("Wrong block index returned.", 3, this.vertex.getBlockIndex());
+        assertEquals("Wrong units returned.", this.UNITS, this.vertex.getUnits());
+    }
+
+    @Test
+    public void testBaseConstructor() {
+        BlockVertex blockVertex = new BlockVertex(45, MethodVertexTest.SIGNATURE, 3, this.UNITS);
+        assertEquals("Wrong id returned.", 45, blockVertex.getId());
+        assertEquals("Wrong type returned.", Type.BLOCK, blockVertex.getType());
+        assertEquals("Blocks with the same units should be equal.", this.vertex, blockVertex);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testMethodNullException() {
+        new BlockVertex(null, 0, this.UNITS);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testUnitsNullException() {
+        new BlockVertex(MethodVertexTest.SIGNATURE, 0, null);
+    }
+
+    @Test
+    public void testGetAttributes() {
+        Map<String, Attribute> attributes = this.vertex.getAttributes();
+        assertEquals("Should be exactly 8 attributes.", 8, attributes.size());
+        assertEquals("Wrong type attribute returned.", Type.BLOCK.name(), attributes.get("type").getValue());
+        assertEquals("Wrong method attribute returned.", MethodVertexTest.SIGNATURE,
+                attributes.get("method").getValue()
+                    );
+        assertEquals("Wrong block attribute returned.", "3", attributes.get("block").getValue());
+        assertEquals("Wrong units attribute returned.", String.join("\n", this.UNITS),
+                attributes.get("units").getValue()
+                    );
+    }
+
+    @Test
+    public void testFactory() {
+        Map<String, Attribute> attributes = this.vertex.getAttributes();
+        Vertex created = new VertexFactory().createVertex(7, attributes);
+        assertEquals("Wrong vertex created.", this.vertex, created);
+    }
+
+    @Test
+    public void testEquals() {
+        EqualsVerifier.forClass(BlockVertex.class).withRedefinedSuperclass().withIgnoredFields("visit", "localVisit")
+                .verify();
+    }
+}
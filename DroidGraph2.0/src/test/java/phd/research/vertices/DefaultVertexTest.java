@@ -8,6 +8,9 @@ import org.junit.Test;
 import phd.research.enums.Type;
 
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.Assert.*;
 
@@ -39,6 +42,13 @@ public class DefaultVertexTest {
         assertEquals("Wrong type returned.", Type.METHOD, defaultVertex.getType());
     }
 
+    @Test
+    public void testConcurrentIdSequence() {
+        Set<Integer> ids = IntStream.range(0, 10000).parallel().mapToObj(i -> new DefaultVertex(Type.UNIT).getId())
+                .collect(Collectors.toSet());
+        assertEquals("Concurrently created vertices should have unique IDs.", 10000, ids.size());
+    }
+
     @Test(expected = NullPointerException.class)
     public void testTypeNullException() {
         new DefaultVertex(null);
@@ -1,5 +1,6 @@
 package phd.research.singleton;
 
+import phd.research.utility.Filter;
 import soot.G;
 import soot.Scene;
 import soot.SootClass;
@@ -36,6 +37,7 @@ public class SootAnalysis {
 
     public void initialiseSoot() {
         G.reset();
+        Filter.clearCache();
 
         Options.v().set_allow_phantom_refs(true);
         Options.v().set_whole_program(true);
@@ -2,6 +2,8 @@ package phd.research.utility;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import phd.research.BlacklistMatcher;
+import phd.research.ValidityCache;
 import soot.SootClass;
 import soot.SootMethod;
 
@@ -10,6 +12,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -20,17 +23,35 @@ public class Filter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Filter.class);
 
-    private static final List<String> PACKAGE_BLACKLIST = Filter.loadBlacklist("package_blacklist");
-    private static final List<String> CLASS_BLACKLIST = Filter.loadBlacklist("class_blacklist");
+    private static final BlacklistMatcher PACKAGE_BLACKLIST =
+            Filter.compilePackageBlacklist(Filter.loadBlacklist("package_blacklist"));
+    private static final BlacklistMatcher CLASS_BLACKLIST =
+            BlacklistMatcher.ofPrefixes(Filter.loadBlacklist("class_blacklist"));
+
+    private static final ValidityCache<SootClass> CLASS_VALIDITY = new ValidityCache<>(Filter::checkClass);
+    private static final ValidityCache<SootMethod> METHOD_VALIDITY = new ValidityCache<>(Filter::checkMethod);
 
     public static boolean isValidMethod(SootMethod method) {
+        return Filter.METHOD_VALIDITY.isValid(method);
+    }
+
+    public static boolean isValidClass(SootClass clazz) {
+        return Filter.CLASS_VALIDITY.isValid(clazz);
+    }
+
+    public static void clearCache() {
+        Filter.CLASS_VALIDITY.clear();
+        Filter.METHOD_VALIDITY.clear();
+    }
+
+    private static boolean checkMethod(SootMethod method) {
         if (Filter.isValidClass(method.getDeclaringClass())) {
             return !method.getName().startsWith("access$");
         }
         return false;
     }
 
-    public static boolean isValidClass(SootClass clazz) {
+    private static boolean checkClass(SootClass clazz) {
         if (!Filter.isValidPackage(clazz.getPackageName())) {
             return false;
         }
@@ -39,14 +60,18 @@ public class Filter {
             return false;
         }
 
-        return Filter.CLASS_BLACKLIST.stream()
-                .noneMatch(blacklistedClass -> clazz.getShortName().startsWith(blacklistedClass));
+        return !Filter.CLASS_BLACKLIST.matches(clazz.getShortName());
     }
 
     private static boolean isValidPackage(String packageName) {
-        return Filter.PACKAGE_BLACKLIST.stream().noneMatch(
-                blacklistedPackage -> blacklistedPackage.startsWith(".") ? packageName.contains(blacklistedPackage) :
-                        packageName.startsWith(blacklistedPackage));
+        return !Filter.PACKAGE_BLACKLIST.matches(packageName);
+    }
+
+    // Rules starting with '.' match anywhere in a package name, all other rules match the start of the name.
+    private static BlacklistMatcher compilePackageBlacklist(List<String> rules) {
+        Map<Boolean, List<String>> partitioned =
+                rules.stream().collect(Collectors.partitioningBy(rule -> rule.startsWith(".")));
+        return new BlacklistMatcher(partitioned.get(false), partitioned.get(true));
     }
 
     private static List<String> loadBlacklist(String fileName) {
@@ -0,0 +1,131 @@
+package phd.research;
+
+import java.util.*;
+
+/**
+ * Matches strings against a compiled set of blacklist rules. Prefix rules are held in a trie and substring rules in
+ * an Aho-Corasick automaton, so each check is a single pass over the input regardless of the number of rules. An
+ * empty rule matches every input, exactly as {@link String#startsWith(String)} and {@link String#contains} do.
+ *
+ * @author Jordan Doyle
+ */
+
+public class BlacklistMatcher {
+
+    private final Automaton prefixes;
+    private final Automaton substrings;
+
+    public BlacklistMatcher(Collection<String> prefixRules, Collection<String> substringRules) {
+        this.prefixes = new Automaton(prefixRules, false);
+        this.substrings = new Automaton(substringRules, true);
+    }
+
+    public static BlacklistMatcher ofPrefixes(Collection<String> prefixRules) {
+        return new BlacklistMatcher(prefixRules, Collections.emptyList());
+    }
+
+    public static BlacklistMatcher ofSubstrings(Collection<String> substringRules) {
+        return new BlacklistMatcher(Collections.emptyList(), substringRules);
+    }
+
+    public boolean matches(CharSequence text) {
+        return this.prefixes.matchesPrefix(text) || this.substrings.matchesSubstring(text);
+    }
+
+    private static final class Automaton {
+
+        private final char[][] labels;
+        private final int[][] targets;
+        private final int[] failures;
+        private final boolean[] accepting;
+
+        private Automaton(Collection<String> patterns, boolean linkFailures) {
+            List<TreeMap<Character, Integer>> children = new ArrayList<>();
+            List<Boolean> accept = new ArrayList<>();
+            children.add(new TreeMap<>());
+            accept.add(false);
+
+            for (String pattern : patterns) {
+                int node = 0;
+                for (int i = 0; i < pattern.length(); i++) {
+                    Integer child = children.get(node).get(pattern.charAt(i));
+                    if (child == null) {
+                        child = children.size();
+                        children.get(node).put(pattern.charAt(i), child);
+                        children.add(new TreeMap<>());
+                        accept.add(false);
+                    }
+                    node = child;
+                }
+                accept.set(node, true);
+            }
+
+            int size = children.size();
+            this.labels = new char[size][];
+            this.targets = new int[size][];
+            this.failures = new int[size];
+            this.accepting = new boolean[size];
+            for (int node = 0; node < size; node++) {
+                TreeMap<Character, Integer> edges = children.get(node);
+                this.labels[node] = new char[edges.size()];
+                this.targets[node] = new int[edges.size()];
+                int i = 0;
+                for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                    this.labels[node][i] = edge.getKey();
+                    this.targets[node][i++] = edge.getValue();
+                }
+                this.accepting[node] = accept.get(node);
+            }
+
+            // Breadth first so that every failure link points to a node whose own link is already set.
+            Deque<Integer> queue = new ArrayDeque<>();
+            if (linkFailures) {
+                for (int child : this.targets[0]) {
+                    queue.add(child);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                for (int i = 0; i < this.labels[node].length; i++) {
+                    int child = this.targets[node][i];
+                    int failure = this.failures[node];
+                    while (failure != 0 && this.next(failure, this.labels[node][i]) < 0) {
+                        failure = this.failures[failure];
+                    }
+                    int target = this.next(failure, this.labels[node][i]);
+                    this.failures[child] = target < 0 ? 0 : target;
+                    this.accepting[child] |= this.accepting[this.failures[child]];
+                    queue.add(child);
+                }
+            }
+        }
+
+        private int next(int node, char c) {
+            int index = Arrays.binarySearch(this.labels[node], c);
+            return index < 0 ? -1 : this.targets[node][index];
+        }
+
+        private boolean matchesPrefix(CharSequence text) {
+            int node = 0;
+            for (int i = 0; i < text.length() && !this.accepting[node]; i++) {
+                node = this.next(node, text.charAt(i));
+                if (node < 0) {
+                    return false;
+                }
+            }
+            return this.accepting[node];
+        }
+
+        private boolean matchesSubstring(CharSequence text) {
+            int node = 0;
+            for (int i = 0; i < text.length() && !this.accepting[node]; i++) {
+                char c = text.charAt(i);
+                while (node != 0 && this.next(node, c) < 0) {
+                    node = this.failures[node];
+                }
+                node = Math.max(this.next(node, c), 0);
+            }
+            return this.accepting[node];
+        }
+    }
+}
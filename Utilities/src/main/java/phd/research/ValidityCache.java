@@ -0,0 +1,41 @@
+package phd.research;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Thread safe memo of a validity check. Keys are compared with their own equals method, which for Soot classes and
+ * methods is identity, so each object is checked at most once (a race may check it twice, the result is the same).
+ *
+ * @author Jordan Doyle
+ */
+
+public class ValidityCache<K> {
+
+    private final Predicate<K> check;
+    private final Map<K, Boolean> results;
+
+    public ValidityCache(Predicate<K> check) {
+        this.check = Objects.requireNonNull(check);
+        this.results = new ConcurrentHashMap<>();
+    }
+
+    public boolean isValid(K key) {
+        Boolean valid = this.results.get(key);
+        if (valid == null) {
+            valid = this.check.test(key);
+            this.results.putIfAbsent(key, valid);
+        }
+        return valid;
+    }
+
+    public int size() {
+        return this.results.size();
+    }
+
+    public void clear() {
+        this.results.clear();
+    }
+}
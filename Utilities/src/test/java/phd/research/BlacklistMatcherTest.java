@@ -0,0 +1,58 @@
+package phd.research;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Jordan Doyle
+ */
+
+public class BlacklistMatcherTest {
+
+    @Test
+    public void testPrefixes() {
+        BlacklistMatcher matcher = BlacklistMatcher.ofPrefixes(Arrays.asList("android", "androidx", "java."));
+        assertTrue("Prefix should match.", matcher.matches("android.support"));
+        assertTrue("Longer prefix should match.", matcher.matches("androidx.core"));
+        assertTrue("Exact prefix should match.", matcher.matches("java."));
+        assertFalse("Shorter string should not match.", matcher.matches("andro"));
+        assertFalse("Infix should not match.", matcher.matches("com.android"));
+        assertFalse("Empty string should not match.", matcher.matches(""));
+    }
+
+    @Test
+    public void testSubstrings() {
+        BlacklistMatcher matcher = BlacklistMatcher.ofSubstrings(Arrays.asList(".databinding", "R$", "abab", "bc"));
+        assertTrue("Infix should match.", matcher.matches("com.example.databinding.view"));
+        assertTrue("Suffix should match.", matcher.matches("MainR$"));
+        assertTrue("Match after a failure link should be found.", matcher.matches("aababx"));
+        assertTrue("Shorter rule inside longer partial match should be found.", matcher.matches("ababc"));
+        assertFalse("Partial rule should not match.", matcher.matches("com.example.databindin"));
+        assertFalse("Unrelated string should not match.", matcher.matches("MainActivity"));
+    }
+
+    @Test
+    public void testMixedRules() {
+        BlacklistMatcher matcher =
+                new BlacklistMatcher(Collections.singletonList("android"), Collections.singletonList(".databinding"));
+        assertTrue("Prefix rule should match.", matcher.matches("android.widget"));
+        assertTrue("Substring rule should match.", matcher.matches("com.example.databinding"));
+        assertFalse("Neither rule should match.", matcher.matches("com.example.android"));
+    }
+
+    @Test
+    public void testEmptyRule() {
+        assertTrue("Empty prefix should match everything.",
+                BlacklistMatcher.ofPrefixes(Collections.singletonList("")).matches("anything")
+                  );
+        assertTrue("Empty substring should match everything.",
+                BlacklistMatcher.ofSubstrings(Collections.singletonList("")).matches("")
+                  );
+        assertFalse("No rules should match nothing.", BlacklistMatcher.ofPrefixes(Collections.emptyList()).matches(""));
+    }
+}
@@ -0,0 +1,37 @@
+package phd.research;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Jordan Doyle
+ */
+
+public class ValidityCacheTest {
+
+    @Test
+    public void testCheckedOnce() {
+        AtomicInteger checks = new AtomicInteger();
+        ValidityCache<String> cache = new ValidityCache<>(key -> {
+            checks.incrementAndGet();
+            return key.startsWith("com.");
+        });
+
+        assertTrue("Wrong validity returned.", cache.isValid("com.example"));
+        assertTrue("Wrong cached validity returned.", cache.isValid("com.example"));
+        assertFalse("Wrong validity returned.", cache.isValid("android"));
+        assertEquals("Each key should be checked once.", 2, checks.get());
+        assertEquals("Wrong cache size returned.", 2, cache.size());
+
+        cache.clear();
+        assertEquals("Cache should be empty after clear.", 0, cache.size());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullCheck() {
+        new ValidityCache<String>(null);
+    }
+}